@@ -56,6 +56,9 @@ public abstract class AbstractEventModel implements
 	}
 
 	public void setCode(String code) {
+		if (this.code != null && !this.code.equals(code)) {
+			TaggerSet.keysChanged();
+		}
 		this.code = code;
 	}
 
@@ -12,21 +12,23 @@ import edu.utsa.tagger.TagXmlModel.PredicateType;
  */
 public abstract class AbstractTagModel implements Comparable<AbstractTagModel> {
 
-	private String path;
-	private String name;
-	private String parentPath;
-	private int depth;
+	private static final int CHILD_REQUIRED = 1;
+	private static final int EXTENSION_ALLOWED = 1 << 1;
+	private static final int TAKES_VALUE = 1 << 2;
+	private static final int NUMERIC = 1 << 3;
+	private static final int REQUIRED = 1 << 4;
+	private static final int RECOMMENDED = 1 << 5;
+	private static final int UNIQUE = 1 << 6;
+	// Incremented whenever the path of a tag is changed
+	private static volatile int pathEpoch = 0;
+
+	// Interned path shared with every tag that has the same path
+	private TagPath tagPath;
 	private String description;
 	private Date creationDate;
 	private Date lastModified;
-	private boolean childRequired;
-	private boolean extensionAllowed;
-	private boolean takesValue;
-	private boolean isNumeric;
-	private boolean required;
-	private boolean recommended;
+	private int flags;
 	private int position = -1;
-	private boolean unique;
 	private String unitClass;
 	private PredicateType predicateType = PredicateType.SUBCLASSOF;
 
@@ -50,12 +52,11 @@ public abstract class AbstractTagModel implements Comparable<AbstractTagModel> {
 		if (getClass() != obj.getClass())
 			return false;
 		AbstractTagModel other = (AbstractTagModel) obj;
-		if (path == null) {
-			if (other.path != null)
-				return false;
-		} else if (!path.equals(other.path))
+		if (tagPath == other.tagPath)
+			return true;
+		if (tagPath == null || other.tagPath == null)
 			return false;
-		return true;
+		return tagPath.getPath().equals(other.tagPath.getPath());
 	}
 
 	public Date getCreationDate() {
@@ -63,7 +64,7 @@ public abstract class AbstractTagModel implements Comparable<AbstractTagModel> {
 	}
 
 	public int getDepth() {
-		return depth;
+		return tagPath == null ? 0 : tagPath.getDepth();
 	}
 
 	public String getDescription() {
@@ -75,11 +76,11 @@ public abstract class AbstractTagModel implements Comparable<AbstractTagModel> {
 	}
 
 	public String getName() {
-		return name;
+		return tagPath == null ? null : tagPath.getName();
 	}
 
 	public String getParentPath() {
-		return parentPath;
+		return tagPath == null ? null : tagPath.getParentPath();
 	}
 
 	public PredicateType getPredicateType() {
@@ -91,7 +92,11 @@ public abstract class AbstractTagModel implements Comparable<AbstractTagModel> {
 	}
 
 	public String getPath() {
-		return path;
+		return tagPath == null ? null : tagPath.getPath();
+	}
+
+	public TagPath getTagPath() {
+		return tagPath;
 	}
 
 	public int getPosition() {
@@ -102,32 +107,32 @@ public abstract class AbstractTagModel implements Comparable<AbstractTagModel> {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((path == null) ? 0 : path.hashCode());
+		result = prime * result + ((tagPath == null) ? 0 : tagPath.getPath().hashCode());
 		return result;
 	}
 
 	public boolean isChildRequired() {
-		return childRequired;
+		return (flags & CHILD_REQUIRED) != 0;
 	}
 
 	public boolean isExtensionAllowed() {
-		return extensionAllowed;
+		return (flags & EXTENSION_ALLOWED) != 0;
 	}
 
 	public boolean isRecommended() {
-		return recommended;
+		return (flags & RECOMMENDED) != 0;
 	}
 
 	public boolean isRequired() {
-		return required;
+		return (flags & REQUIRED) != 0;
 	}
 
 	public boolean isUnique() {
-		return unique;
+		return (flags & UNIQUE) != 0;
 	}
 
 	public void setChildRequired(boolean childRequired) {
-		this.childRequired = childRequired;
+		setFlag(CHILD_REQUIRED, childRequired);
 	}
 
 	public void setCreationDate(Date creationDate) {
@@ -142,25 +147,36 @@ public abstract class AbstractTagModel implements Comparable<AbstractTagModel> {
 		this.lastModified = lastModified;
 	}
 
+	private void setFlag(int flag, boolean value) {
+		if (value) {
+			flags |= flag;
+		} else {
+			flags &= ~flag;
+		}
+	}
+
+	/**
+	 * Gets the number of times the path of a tag was changed. Indexes of tags
+	 * by path are out of date once this number changes.
+	 *
+	 * @return The current path epoch.
+	 */
+	static int getPathEpoch() {
+		return pathEpoch;
+	}
+
 	/**
 	 * Sets the tag's path, depth, and parent path.
 	 * 
 	 * @param pathArg
 	 */
 	public void setPath(String pathArg) {
-		path = pathArg;
-		name = path.substring(path.lastIndexOf('/') + 1);
-		depth = 2;
-		for (int i = 0; i < path.length(); i++) {
-			if (path.charAt(i) == '/') {
-				depth++;
-			}
-		}
-		if (depth == 2) {
-			parentPath = null;
-		} else {
-			parentPath = path.substring(0, path.lastIndexOf('/'));
+		TagPath newTagPath = TagPath.intern(pathArg);
+		if (tagPath != null && tagPath != newTagPath) {
+			TaggerSet.keysChanged();
+			pathEpoch++;
 		}
+		tagPath = newTagPath;
 	}
 
 	public void setPosition(int position) {
@@ -176,34 +192,34 @@ public abstract class AbstractTagModel implements Comparable<AbstractTagModel> {
 	}
 
 	public void setRecommended(boolean recommended) {
-		this.recommended = recommended;
+		setFlag(RECOMMENDED, recommended);
 	}
 
 	public void setRequired(boolean required) {
-		this.required = required;
+		setFlag(REQUIRED, required);
 	}
 
 	public void setTakesValue(boolean takesValue) {
-		this.takesValue = takesValue;
+		setFlag(TAKES_VALUE, takesValue);
 	}
 
 	public void setExtensionAllowed(boolean extensionAllowed) {
-		this.extensionAllowed = extensionAllowed;
+		setFlag(EXTENSION_ALLOWED, extensionAllowed);
 	}
 
 	public void setIsNumeric(boolean isNumeric) {
-		this.isNumeric = isNumeric;
+		setFlag(NUMERIC, isNumeric);
 	}
 
 	public void setUnique(boolean unique) {
-		this.unique = unique;
+		setFlag(UNIQUE, unique);
 	}
 
 	public boolean takesValue() {
-		return takesValue;
+		return (flags & TAKES_VALUE) != 0;
 	}
 
 	public boolean isNumeric() {
-		return isNumeric;
+		return (flags & NUMERIC) != 0;
 	}
 }
@@ -0,0 +1,161 @@
+package edu.utsa.tagger;
+
+/**
+ * This class maps group IDs to the events that contain them. The group IDs
+ * are kept as ints in an open addressing table, so looking up the event of a
+ * group takes constant time without boxing the ID or scanning the events.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class GroupEventMap {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] groupIds;
+	private TaggedEvent[] events;
+	private int mask;
+	private int shift;
+	private int size;
+
+	public GroupEventMap() {
+		allocate(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Removes all of the groups.
+	 */
+	public void clear() {
+		allocate(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Gets the event that contains the group with the given ID.
+	 *
+	 * @param groupId
+	 *            The group ID.
+	 * @return The event containing the group, or null if the group is not
+	 *         mapped.
+	 */
+	public TaggedEvent get(int groupId) {
+		for (int i = slot(groupId); events[i] != null; i = (i + 1) & mask) {
+			if (groupIds[i] == groupId) {
+				return events[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Maps the group with the given ID to the given event, replacing the event
+	 * it was mapped to before.
+	 *
+	 * @param groupId
+	 *            The group ID.
+	 * @param event
+	 *            The event containing the group.
+	 */
+	public void put(int groupId, TaggedEvent event) {
+		int i = slot(groupId);
+		for (; events[i] != null; i = (i + 1) & mask) {
+			if (groupIds[i] == groupId) {
+				events[i] = event;
+				return;
+			}
+		}
+		groupIds[i] = groupId;
+		events[i] = event;
+		if (++size * 2 > events.length) {
+			resize(events.length * 2);
+		}
+	}
+
+	/**
+	 * Adds all of the groups of the given event.
+	 *
+	 * @param event
+	 *            The event containing the groups.
+	 */
+	public void putAll(TaggedEvent event) {
+		for (Integer groupId : event.getTagGroups().keySet()) {
+			put(groupId, event);
+		}
+	}
+
+	/**
+	 * Removes the group with the given ID if it is mapped to the given event.
+	 *
+	 * @param groupId
+	 *            The group ID.
+	 * @param event
+	 *            The event the group was removed from.
+	 */
+	public void remove(int groupId, TaggedEvent event) {
+		for (int i = slot(groupId); events[i] != null; i = (i + 1) & mask) {
+			if (groupIds[i] == groupId) {
+				if (events[i] == event) {
+					delete(i);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Removes all of the groups of the given event that are mapped to it.
+	 *
+	 * @param event
+	 *            The event containing the groups.
+	 */
+	public void removeAll(TaggedEvent event) {
+		for (Integer groupId : event.getTagGroups().keySet()) {
+			remove(groupId, event);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private void allocate(int capacity) {
+		groupIds = new int[capacity];
+		events = new TaggedEvent[capacity];
+		mask = capacity - 1;
+		shift = 32 - Integer.numberOfTrailingZeros(capacity);
+		size = 0;
+	}
+
+	/**
+	 * Empties the given slot and moves back the entries after it that would
+	 * no longer be found, so that no tombstones are needed.
+	 */
+	private void delete(int i) {
+		events[i] = null;
+		size--;
+		for (int j = (i + 1) & mask; events[j] != null; j = (j + 1) & mask) {
+			int home = slot(groupIds[j]);
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				groupIds[i] = groupIds[j];
+				events[i] = events[j];
+				events[j] = null;
+				i = j;
+			}
+		}
+	}
+
+	private void resize(int capacity) {
+		int[] oldGroupIds = groupIds;
+		TaggedEvent[] oldEvents = events;
+		allocate(capacity);
+		for (int i = 0; i < oldEvents.length; i++) {
+			if (oldEvents[i] != null) {
+				put(oldGroupIds[i], oldEvents[i]);
+			}
+		}
+	}
+
+	private int slot(int groupId) {
+		// Group IDs are sequential, so they are spread to avoid long runs
+		return (groupId * 0x9E3779B9) >>> shift;
+	}
+}
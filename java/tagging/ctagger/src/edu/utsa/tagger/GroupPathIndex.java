@@ -0,0 +1,290 @@
+package edu.utsa.tagger;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * This class is a sorted copy of the tag paths of a tag group. Ancestor,
+ * descendant and prefix queries are answered by binary search over the sorted
+ * paths, comparing the query path in place so that no path with a trailing
+ * slash has to be built. When several tags match, the tag that comes first in
+ * the group is returned, the same tag a scan of the group would find. Small
+ * groups, where a binary search does not pay off, keep their paths in group
+ * order and are scanned with the same comparisons.
+ *
+ * The index is a snapshot of the group. It is no longer current when the group
+ * changes or when the path of any tag in a set changes, which is tracked by the
+ * modification count and key epoch of the TaggerSet.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class GroupPathIndex {
+
+	// Largest group that is scanned instead of sorted
+	private static final int SCAN_SIZE = 8;
+
+	private final TaggerSet<AbstractTagModel> group;
+	private final int modCount;
+	private final int keyEpoch;
+	// Paths in sorted order with the positions of their tags in the group, or
+	// in group order with no positions if the group is scanned
+	private final String[] paths;
+	private final int[] positions;
+
+	/**
+	 * Builds the index of the given group.
+	 *
+	 * @param group
+	 *            The tags of the group.
+	 */
+	public GroupPathIndex(TaggerSet<AbstractTagModel> group) {
+		this.group = group;
+		modCount = group.getModCount();
+		keyEpoch = TaggerSet.getKeyEpoch();
+		int size = group.size();
+		final String[] groupPaths = new String[size];
+		Integer[] order = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			groupPaths[i] = group.get(i).getPath();
+			order[i] = i;
+		}
+		if (size <= SCAN_SIZE) {
+			paths = groupPaths;
+			positions = null;
+			return;
+		}
+		// A stable sort keeps tags with the same path in group order
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				return groupPaths[i1].compareTo(groupPaths[i2]);
+			}
+		});
+		paths = new String[size];
+		positions = new int[size];
+		for (int i = 0; i < size; i++) {
+			int position = order[i];
+			paths[i] = groupPaths[position];
+			positions[i] = position;
+		}
+	}
+
+	/**
+	 * Checks whether the index still matches the given group.
+	 *
+	 * @param group
+	 *            The tags of the group.
+	 * @return True if the index was built from the group and neither the
+	 *         group nor the paths of its tags have changed since.
+	 */
+	public boolean isCurrent(TaggerSet<AbstractTagModel> group) {
+		return this.group == group && modCount == group.getModCount() && keyEpoch == TaggerSet.getKeyEpoch();
+	}
+
+	/**
+	 * Finds the first tag in the group whose path is the given path, a
+	 * descendant of it or an ancestor of it.
+	 *
+	 * @param path
+	 *            The path of the tag.
+	 * @return The tag found, or null if no tag shares the path.
+	 */
+	public AbstractTagModel findSharedPath(String path) {
+		if (positions == null) {
+			for (int i = 0; i < paths.length; i++) {
+				if (paths[i].equals(path) || isDescendant(paths[i], path) || isDescendant(path, paths[i])) {
+					return group.get(i);
+				}
+			}
+			return null;
+		}
+		int best = findSelfOrDescendantPosition(path);
+		for (int end = path.indexOf('/'); end >= 0; end = path.indexOf('/', end + 1)) {
+			best = first(best, findExactPosition(path, end));
+		}
+		return best == Integer.MAX_VALUE ? null : group.get(best);
+	}
+
+	/**
+	 * Finds the first tag in the group whose path is the given path or a
+	 * descendant of it.
+	 *
+	 * @param path
+	 *            The path of the tag.
+	 * @return The tag found, or null if there is no such tag.
+	 */
+	public AbstractTagModel findSelfOrDescendant(String path) {
+		if (positions == null) {
+			for (int i = 0; i < paths.length; i++) {
+				if (paths[i].equals(path) || isDescendant(paths[i], path)) {
+					return group.get(i);
+				}
+			}
+			return null;
+		}
+		int best = findSelfOrDescendantPosition(path);
+		return best == Integer.MAX_VALUE ? null : group.get(best);
+	}
+
+	/**
+	 * Finds the tags in the group whose paths are the given path or
+	 * descendants of it.
+	 *
+	 * @param path
+	 *            The path of the tag.
+	 * @return The tags found in group order, or null if there are none.
+	 */
+	public TaggerSet<AbstractTagModel> findSelfAndDescendants(String path) {
+		if (positions == null) {
+			TaggerSet<AbstractTagModel> result = null;
+			for (int i = 0; i < paths.length; i++) {
+				if (paths[i].equals(path) || isDescendant(paths[i], path)) {
+					if (result == null) {
+						result = new TaggerSet<AbstractTagModel>();
+					}
+					result.add(group.get(i));
+				}
+			}
+			return result;
+		}
+		int length = path.length();
+		int from = lowerBound(path, length, false);
+		int to = from;
+		while (to < paths.length && compare(paths[to], path, length, false) == 0) {
+			to++;
+		}
+		int descendantsFrom = lowerBound(path, length, true);
+		int descendantsTo = descendantsFrom;
+		while (descendantsTo < paths.length && isDescendant(paths[descendantsTo], path)) {
+			descendantsTo++;
+		}
+		int count = (to - from) + (descendantsTo - descendantsFrom);
+		if (count == 0) {
+			return null;
+		}
+		int[] found = new int[count];
+		System.arraycopy(positions, from, found, 0, to - from);
+		System.arraycopy(positions, descendantsFrom, found, to - from, descendantsTo - descendantsFrom);
+		Arrays.sort(found);
+		TaggerSet<AbstractTagModel> result = new TaggerSet<AbstractTagModel>();
+		for (int position : found) {
+			result.add(group.get(position));
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the first tag in the group whose path starts with the given text.
+	 * Unlike the other queries, the text does not have to end at a slash.
+	 *
+	 * @param prefix
+	 *            The start of the path.
+	 * @return The tag found, or null if there is no such tag.
+	 */
+	public AbstractTagModel findPrefix(String prefix) {
+		if (positions == null) {
+			for (int i = 0; i < paths.length; i++) {
+				if (paths[i].startsWith(prefix)) {
+					return group.get(i);
+				}
+			}
+			return null;
+		}
+		int best = Integer.MAX_VALUE;
+		for (int i = lowerBound(prefix, prefix.length(), false); i < paths.length
+				&& paths[i].startsWith(prefix); i++) {
+			best = first(best, positions[i]);
+		}
+		return best == Integer.MAX_VALUE ? null : group.get(best);
+	}
+
+	/**
+	 * Checks whether the path of any tag in the group starts with the given
+	 * text.
+	 *
+	 * @param prefix
+	 *            The start of the path.
+	 * @return True if a path starts with the text, false if otherwise.
+	 */
+	public boolean containsPrefix(String prefix) {
+		if (positions == null) {
+			return findPrefix(prefix) != null;
+		}
+		int i = lowerBound(prefix, prefix.length(), false);
+		return i < paths.length && paths[i].startsWith(prefix);
+	}
+
+	private int findSelfOrDescendantPosition(String path) {
+		int length = path.length();
+		int best = findExactPosition(path, length);
+		for (int i = lowerBound(path, length, true); i < paths.length && isDescendant(paths[i], path); i++) {
+			best = first(best, positions[i]);
+		}
+		return best;
+	}
+
+	/**
+	 * Finds the first position in the group of a tag whose path is the start
+	 * of the given path up to the given index.
+	 */
+	private int findExactPosition(String path, int end) {
+		int best = Integer.MAX_VALUE;
+		for (int i = lowerBound(path, end, false); i < paths.length && compare(paths[i], path, end, false) == 0; i++) {
+			best = first(best, positions[i]);
+		}
+		return best;
+	}
+
+	private static int first(int position1, int position2) {
+		return position1 < position2 ? position1 : position2;
+	}
+
+	private static boolean isDescendant(String candidate, String path) {
+		int length = path.length();
+		return candidate.length() > length && candidate.charAt(length) == '/' && candidate.startsWith(path);
+	}
+
+	/**
+	 * Finds the first sorted position whose path is not less than the start of
+	 * the given path up to the given index, followed by a slash if asked.
+	 */
+	private int lowerBound(String path, int end, boolean slash) {
+		int low = 0;
+		int high = paths.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compare(paths[mid], path, end, slash) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Compares a path to the start of another path up to the given index,
+	 * followed by a slash if asked, in the order of String.compareTo.
+	 * Comparing with the slash gives 0 for every descendant of the start.
+	 */
+	private static int compare(String candidate, String path, int end, boolean slash) {
+		int length = Math.min(candidate.length(), end);
+		for (int i = 0; i < length; i++) {
+			int diff = candidate.charAt(i) - path.charAt(i);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		if (candidate.length() < end) {
+			return -1;
+		}
+		if (!slash) {
+			return candidate.length() - end;
+		}
+		if (candidate.length() == end) {
+			return -1;
+		}
+		return candidate.charAt(end) - '/';
+	}
+}
@@ -0,0 +1,335 @@
+package edu.utsa.tagger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import edu.utsa.tagger.TagXmlModel.PredicateType;
+import edu.utsa.tagger.gui.GuiTagModel;
+
+/**
+ * This class reads and writes a binary snapshot of a loaded HED hierarchy.
+ * Snapshots are keyed by a hash of the HED XML they were loaded from, so a
+ * changed schema gets a new snapshot instead of a stale one. Every string is
+ * stored once in a table and each tag refers to its parent by position, so a
+ * snapshot loads without parsing any XML.
+ *
+ * Snapshots are stored in a directory in the user's home directory that only
+ * the user can read and write, so another user cannot plant a snapshot that
+ * would be trusted. Only the most recently used snapshots are kept.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class HedSchemaSnapshot {
+
+	private static final int MAGIC = 0x48454453;
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int CHILD_REQUIRED = 1;
+	private static final int EXTENSION_ALLOWED = 1 << 1;
+	private static final int TAKES_VALUE = 1 << 2;
+	private static final int NUMERIC = 1 << 3;
+	private static final int REQUIRED = 1 << 4;
+	private static final int RECOMMENDED = 1 << 5;
+	private static final int UNIQUE = 1 << 6;
+
+	private static final int MAX_SNAPSHOTS = 8;
+
+	private static File snapshotDirectory = new File(new File(System.getProperty("user.home"), ".ctagger"),
+			"snapshots");
+
+	private final Tagger tagger;
+	private String version = "";
+	private LinkedHashMap<String, String> unitClasses = new LinkedHashMap<String, String>();
+	private LinkedHashMap<String, String> unitClassDefaults = new LinkedHashMap<String, String>();
+
+	public HedSchemaSnapshot(Tagger tagger) {
+		this.tagger = tagger;
+	}
+
+	/**
+	 * Gets the directory that snapshots are stored in.
+	 *
+	 * @return The snapshot directory.
+	 */
+	public static File getSnapshotDirectory() {
+		return snapshotDirectory;
+	}
+
+	/**
+	 * Sets the directory that snapshots are stored in.
+	 *
+	 * @param directory
+	 *            The snapshot directory.
+	 */
+	public static void setSnapshotDirectory(File directory) {
+		snapshotDirectory = directory;
+	}
+
+	/**
+	 * Gets the snapshot file for the given key.
+	 *
+	 * @param key
+	 *            The hash of the HED XML.
+	 * @return The snapshot file, which may not exist.
+	 */
+	public static File getSnapshotFile(String key) {
+		return new File(snapshotDirectory, "hed-" + key + ".bin");
+	}
+
+	/**
+	 * Computes the key of the snapshot for the given HED XML.
+	 *
+	 * @param hedBytes
+	 *            The bytes of the HED XML.
+	 * @return The SHA-1 hash of the bytes in hexadecimal.
+	 */
+	public static String hash(byte[] hedBytes) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("SHA-1 is not available: " + e.getMessage());
+		}
+		byte[] hash = digest.digest(hedBytes);
+		StringBuilder sb = new StringBuilder(hash.length * 2);
+		for (byte b : hash) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	public LinkedHashMap<String, String> getUnitClasses() {
+		return unitClasses;
+	}
+
+	public LinkedHashMap<String, String> getUnitClassDefaults() {
+		return unitClassDefaults;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * Reads the snapshot with the given key into the Tagger.
+	 *
+	 * @param key
+	 *            The hash of the HED XML.
+	 * @return True if the snapshot was read, false if there is no snapshot for
+	 *         the key or it was written in another format.
+	 * @throws IOException
+	 *             If the snapshot cannot be read.
+	 */
+	public boolean read(String key) throws IOException {
+		File snapshotFile = getSnapshotFile(key);
+		if (!snapshotFile.isFile()) {
+			return false;
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+				return false;
+			}
+			String[] strings = new String[in.readInt()];
+			for (int i = 0; i < strings.length; i++) {
+				byte[] utf8 = new byte[in.readInt()];
+				in.readFully(utf8);
+				strings[i] = new String(utf8, "UTF-8");
+			}
+			version = strings[in.readInt()];
+			unitClasses = new LinkedHashMap<String, String>();
+			unitClassDefaults = new LinkedHashMap<String, String>();
+			int numUnitClasses = in.readInt();
+			for (int i = 0; i < numUnitClasses; i++) {
+				String name = strings[in.readInt()];
+				unitClasses.put(name, strings[in.readInt()]);
+				unitClassDefaults.put(name, strings[in.readInt()]);
+			}
+			PredicateType[] predicateTypes = PredicateType.values();
+			String[] paths = new String[in.readInt()];
+			for (int i = 0; i < paths.length; i++) {
+				int parent = in.readInt();
+				String name = strings[in.readInt()];
+				paths[i] = parent < 0 ? name : paths[parent] + "/" + name;
+				AbstractTagModel tagModel = tagger.getFactory().createAbstractTagModel(tagger);
+				tagModel.setPath(paths[i]);
+				tagModel.setDescription(strings[in.readInt()]);
+				tagModel.setUnitClass(strings[in.readInt()]);
+				int flags = in.readUnsignedByte();
+				tagModel.setChildRequired((flags & CHILD_REQUIRED) != 0);
+				tagModel.setExtensionAllowed((flags & EXTENSION_ALLOWED) != 0);
+				tagModel.setTakesValue((flags & TAKES_VALUE) != 0);
+				tagModel.setIsNumeric((flags & NUMERIC) != 0);
+				tagModel.setRequired((flags & REQUIRED) != 0);
+				tagModel.setRecommended((flags & RECOMMENDED) != 0);
+				tagModel.setUnique((flags & UNIQUE) != 0);
+				tagModel.setPredicateType(predicateTypes[in.readUnsignedByte()]);
+				tagModel.setPosition(in.readInt());
+				tagger.addTagToHierarchy(tagModel, in.readUnsignedByte());
+			}
+		} finally {
+			in.close();
+		}
+		// Marks the snapshot as recently used so it is the last to be removed
+		snapshotFile.setLastModified(System.currentTimeMillis());
+		return true;
+	}
+
+	/**
+	 * Writes a snapshot of a hierarchy that was just loaded. The snapshot is
+	 * written to a temporary file first so that a partly written snapshot is
+	 * never read.
+	 *
+	 * @param key
+	 *            The hash of the HED XML.
+	 * @param version
+	 *            The version of the HED XML.
+	 * @param unitClasses
+	 *            The units keyed by unit class name.
+	 * @param unitClassDefaults
+	 *            The default units keyed by unit class name.
+	 * @param tags
+	 *            The tags of the hierarchy in hierarchy order.
+	 * @throws IOException
+	 *             If the snapshot cannot be written.
+	 */
+	public static void write(String key, String version, Map<String, String> unitClasses,
+			Map<String, String> unitClassDefaults, Collection<AbstractTagModel> tags) throws IOException {
+		LinkedHashMap<String, Integer> strings = new LinkedHashMap<String, Integer>();
+		HashMap<String, Integer> positions = new HashMap<String, Integer>();
+		ArrayList<int[]> records = new ArrayList<int[]>(tags.size());
+		for (AbstractTagModel tag : tags) {
+			Integer parent = tag.getParentPath() == null ? null : positions.get(tag.getParentPath());
+			int flags = (tag.isChildRequired() ? CHILD_REQUIRED : 0) | (tag.isExtensionAllowed() ? EXTENSION_ALLOWED : 0)
+					| (tag.takesValue() ? TAKES_VALUE : 0) | (tag.isNumeric() ? NUMERIC : 0)
+					| (tag.isRequired() ? REQUIRED : 0) | (tag.isRecommended() ? RECOMMENDED : 0)
+					| (tag.isUnique() ? UNIQUE : 0);
+			int level = ((GuiTagModel) tag).getHighlight().ordinal() - 4;
+			records.add(new int[] { parent == null ? -1 : parent,
+					stringIndex(strings, parent == null ? tag.getPath() : tag.getName()),
+					stringIndex(strings, tag.getDescription()), stringIndex(strings, tag.getUnitClass()), flags,
+					tag.getPredicateType().ordinal(), tag.getPosition(), level });
+			positions.put(tag.getPath(), positions.size());
+		}
+		int versionIndex = stringIndex(strings, version);
+		for (Entry<String, String> unitClass : unitClasses.entrySet()) {
+			stringIndex(strings, unitClass.getKey());
+			stringIndex(strings, unitClass.getValue());
+			stringIndex(strings, unitClassDefaults.get(unitClass.getKey()));
+		}
+
+		if (!snapshotDirectory.isDirectory() && !snapshotDirectory.mkdirs()) {
+			throw new IOException("Unable to create the snapshot directory " + snapshotDirectory);
+		}
+		restrictToOwner(snapshotDirectory);
+		File tempFile = File.createTempFile("hed-" + key, ".tmp", snapshotDirectory);
+		restrictToOwner(tempFile);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(key);
+			out.writeInt(strings.size());
+			for (String s : strings.keySet()) {
+				byte[] utf8 = s.getBytes("UTF-8");
+				out.writeInt(utf8.length);
+				out.write(utf8);
+			}
+			out.writeInt(versionIndex);
+			out.writeInt(unitClasses.size());
+			for (Entry<String, String> unitClass : unitClasses.entrySet()) {
+				out.writeInt(strings.get(unitClass.getKey()));
+				out.writeInt(strings.get(unitClass.getValue()));
+				out.writeInt(strings.get(unitClassDefaults.get(unitClass.getKey())));
+			}
+			out.writeInt(records.size());
+			for (int[] record : records) {
+				out.writeInt(record[0]);
+				out.writeInt(record[1]);
+				out.writeInt(record[2]);
+				out.writeInt(record[3]);
+				out.writeByte(record[4]);
+				out.writeByte(record[5]);
+				out.writeInt(record[6]);
+				out.writeByte(record[7]);
+			}
+		} finally {
+			out.close();
+		}
+		File snapshotFile = getSnapshotFile(key);
+		if (!tempFile.renameTo(snapshotFile)) {
+			tempFile.delete();
+		}
+		removeOldSnapshots();
+	}
+
+	/**
+	 * Removes the least recently used snapshots beyond the most recent ones.
+	 */
+	private static void removeOldSnapshots() {
+		File[] snapshotFiles = snapshotDirectory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isFile() && file.getName().startsWith("hed-") && file.getName().endsWith(".bin");
+			}
+		});
+		if (snapshotFiles == null || snapshotFiles.length <= MAX_SNAPSHOTS) {
+			return;
+		}
+		Arrays.sort(snapshotFiles, new Comparator<File>() {
+			@Override
+			public int compare(File f1, File f2) {
+				long m1 = f1.lastModified();
+				long m2 = f2.lastModified();
+				return m1 > m2 ? -1 : (m1 < m2 ? 1 : 0);
+			}
+		});
+		for (int i = MAX_SNAPSHOTS; i < snapshotFiles.length; i++) {
+			snapshotFiles[i].delete();
+		}
+	}
+
+	/**
+	 * Takes the permissions of everyone but the owner away from a file or
+	 * directory.
+	 */
+	private static void restrictToOwner(File file) {
+		boolean directory = file.isDirectory();
+		file.setReadable(false, false);
+		file.setWritable(false, false);
+		file.setExecutable(false, false);
+		file.setReadable(true, true);
+		file.setWritable(true, true);
+		if (directory) {
+			file.setExecutable(true, true);
+		}
+	}
+
+	private static int stringIndex(LinkedHashMap<String, Integer> strings, String s) {
+		Integer index = strings.get(s);
+		if (index == null) {
+			index = strings.size();
+			strings.put(s, index);
+		}
+		return index;
+	}
+}
@@ -0,0 +1,279 @@
+package edu.utsa.tagger;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * This class reads the HED hierarchy XML format with StAX and adds each tag to
+ * the Tagger as soon as its name and attributes have been read. Unlike
+ * unmarshalling a HedXmlModel, it only keeps the XML models of the tags on the
+ * current path in memory. The unit classes and version are kept for the
+ * Tagger to apply once the whole document has been read.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class HedSchemaStreamReader {
+
+	private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+	private final Tagger tagger;
+	private String version = "";
+	private LinkedHashMap<String, String> unitClasses = new LinkedHashMap<String, String>();
+	private LinkedHashMap<String, String> unitClassDefaults = new LinkedHashMap<String, String>();
+
+	public HedSchemaStreamReader(Tagger tagger) {
+		this.tagger = tagger;
+	}
+
+	/**
+	 * Gets the units of each unit class in the last HED document read.
+	 *
+	 * @return The units keyed by unit class name.
+	 */
+	public LinkedHashMap<String, String> getUnitClasses() {
+		return unitClasses;
+	}
+
+	/**
+	 * Gets the default unit of each unit class in the last HED document read.
+	 *
+	 * @return The default units keyed by unit class name.
+	 */
+	public LinkedHashMap<String, String> getUnitClassDefaults() {
+		return unitClassDefaults;
+	}
+
+	/**
+	 * Gets the version attribute of the last HED document read.
+	 *
+	 * @return The HED version, empty if the document has none.
+	 */
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * Reads the HED hierarchy from the given file into the Tagger.
+	 *
+	 * @param hedFile
+	 *            The HED file.
+	 * @return True if the hierarchy was read, false if a tag name comes after
+	 *         the child tags of the tag and the document must be unmarshalled
+	 *         instead.
+	 * @throws Exception
+	 *             If the file cannot be read or is not a HED document.
+	 */
+	public boolean read(File hedFile) throws Exception {
+		InputStream in = new BufferedInputStream(new FileInputStream(hedFile));
+		try {
+			return read(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads the HED hierarchy from the given stream into the Tagger. The
+	 * encoding is taken from the XML declaration.
+	 *
+	 * @param hedStream
+	 *            A stream containing HED XML.
+	 * @return True if the hierarchy was read, false if a tag name comes after
+	 *         the child tags of the tag and the document must be unmarshalled
+	 *         instead.
+	 * @throws Exception
+	 *             If the stream does not contain a HED document.
+	 */
+	public boolean read(InputStream hedStream) throws Exception {
+		XMLStreamReader reader;
+		synchronized (inputFactory) {
+			reader = inputFactory.createXMLStreamReader(hedStream);
+		}
+		return read(reader);
+	}
+
+	/**
+	 * Reads the HED hierarchy from the given reader into the Tagger.
+	 *
+	 * @param hedReader
+	 *            A reader containing HED XML.
+	 * @return True if the hierarchy was read, false if a tag name comes after
+	 *         the child tags of the tag and the document must be unmarshalled
+	 *         instead.
+	 * @throws Exception
+	 *             If the reader does not contain a HED document.
+	 */
+	public boolean read(Reader hedReader) throws Exception {
+		XMLStreamReader reader;
+		synchronized (inputFactory) {
+			reader = inputFactory.createXMLStreamReader(hedReader);
+		}
+		return read(reader);
+	}
+
+	private boolean read(XMLStreamReader reader) throws XMLStreamException {
+		try {
+			reader.nextTag();
+			if (!"HED".equals(reader.getLocalName())) {
+				throw new XMLStreamException("Unexpected root element " + reader.getLocalName(),
+						reader.getLocation());
+			}
+			String versionAttribute = reader.getAttributeValue(null, "version");
+			version = versionAttribute == null ? "" : versionAttribute;
+			unitClasses = new LinkedHashMap<String, String>();
+			unitClassDefaults = new LinkedHashMap<String, String>();
+			while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+				if (!reader.isStartElement()) {
+					continue;
+				}
+				if ("node".equals(reader.getLocalName())) {
+					if (!readNode(reader, "", 0)) {
+						return false;
+					}
+				} else if ("unitClasses".equals(reader.getLocalName())) {
+					readUnitClasses(reader);
+				} else {
+					skipElement(reader);
+				}
+			}
+			return true;
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Reads a tag and its descendants. The reader is positioned on the start
+	 * of the node and is left on its end.
+	 */
+	private boolean readNode(XMLStreamReader reader, String parentPath, int level) throws XMLStreamException {
+		TagXmlModel tagXmlModel = new TagXmlModel();
+		readNodeAttributes(reader, tagXmlModel);
+		AbstractTagModel tagModel = null;
+		while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+			if (!reader.isStartElement()) {
+				continue;
+			}
+			String element = reader.getLocalName();
+			if ("name".equals(element)) {
+				if (tagModel != null) {
+					return false;
+				}
+				tagXmlModel.setName(reader.getElementText());
+			} else if ("description".equals(element)) {
+				tagXmlModel.setDescription(reader.getElementText());
+				if (tagModel != null) {
+					tagModel.setDescription(tagXmlModel.getDescription());
+				}
+			} else if ("node".equals(element)) {
+				if (tagModel == null) {
+					tagModel = tagger.createTagFromXml(parentPath, tagXmlModel, level);
+				}
+				if (!readNode(reader, tagModel.getPath(), level + 1)) {
+					return false;
+				}
+			} else {
+				skipElement(reader);
+			}
+		}
+		if (tagModel == null) {
+			tagger.createTagFromXml(parentPath, tagXmlModel, level);
+		}
+		return true;
+	}
+
+	private void readNodeAttributes(XMLStreamReader reader, TagXmlModel tagXmlModel) {
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String attribute = reader.getAttributeLocalName(i);
+			String value = reader.getAttributeValue(i);
+			if ("requireChild".equals(attribute)) {
+				tagXmlModel.setChildRequired(parseBoolean(value));
+			} else if ("extensionAllowed".equals(attribute)) {
+				tagXmlModel.setExtensionAllowed(parseBoolean(value));
+			} else if ("takesValue".equals(attribute)) {
+				tagXmlModel.setTakesValue(parseBoolean(value));
+			} else if ("required".equals(attribute)) {
+				tagXmlModel.setRequired(parseBoolean(value));
+			} else if ("recommended".equals(attribute)) {
+				tagXmlModel.setRecommended(parseBoolean(value));
+			} else if ("position".equals(attribute)) {
+				try {
+					tagXmlModel.setPosition(Integer.parseInt(value.trim()));
+				} catch (NumberFormatException e) {
+					// Keep the default position like the unmarshaller does
+				}
+			} else if ("unique".equals(attribute)) {
+				tagXmlModel.setUnique(parseBoolean(value));
+			} else if ("isNumeric".equals(attribute)) {
+				tagXmlModel.setIsNumeric(parseBoolean(value));
+			} else if ("predicateType".equals(attribute)) {
+				tagXmlModel.setPredicateType(value);
+			} else if ("unitClass".equals(attribute)) {
+				tagXmlModel.setUnitClass(value);
+			}
+		}
+	}
+
+	/**
+	 * Reads the unit classes of the document. Nested unit classes are skipped.
+	 */
+	private void readUnitClasses(XMLStreamReader reader) throws XMLStreamException {
+		while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+			if (!reader.isStartElement()) {
+				continue;
+			}
+			if (!"unitClass".equals(reader.getLocalName())) {
+				skipElement(reader);
+				continue;
+			}
+			String defaultUnit = reader.getAttributeValue(null, "default");
+			String name = "";
+			String units = "";
+			while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+				if (!reader.isStartElement()) {
+					continue;
+				}
+				if ("name".equals(reader.getLocalName())) {
+					name = reader.getElementText();
+				} else if ("units".equals(reader.getLocalName())) {
+					units = reader.getElementText();
+				} else {
+					skipElement(reader);
+				}
+			}
+			unitClasses.put(name, units);
+			unitClassDefaults.put(name, defaultUnit == null ? "" : defaultUnit);
+		}
+	}
+
+	private static boolean parseBoolean(String value) {
+		String trimmed = value.trim();
+		return "true".equals(trimmed) || "1".equals(trimmed);
+	}
+
+	/**
+	 * Skips the current element and its content. The reader is left on the end
+	 * of the element.
+	 */
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package edu.utsa.tagger;
+
+/**
+ * This class splits HED strings into tags in a single pass without creating
+ * any strings. Each tag is reported as a span of the original text along with
+ * the number of tag groups opened before it and closed after it, so groups
+ * can be nested to any depth. Tags are separated by ',' and '~', and each '~'
+ * is reported as a tag of its own. Whitespace and quotes around a tag and the
+ * leading '/' of a tag path are not part of its span.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class HedStringTokenizer {
+
+	private CharSequence text;
+	private int position;
+	private int end;
+	private int depth;
+	private int tagStart;
+	private int tagEnd;
+	private int openedGroups;
+	private int closedGroups;
+	private boolean quoted;
+
+	/**
+	 * Starts tokenizing the given text at depth 0. The range to tokenize must
+	 * be set with setRange.
+	 *
+	 * @param text
+	 *            The text containing the HED string.
+	 */
+	public void reset(CharSequence text) {
+		this.text = text;
+		position = 0;
+		end = 0;
+		depth = 0;
+	}
+
+	/**
+	 * Sets the range of the text to tokenize next. The group depth carries
+	 * over from the previous range, so a group may span several ranges, like
+	 * the tag columns of a row.
+	 *
+	 * @param start
+	 *            The index where the range starts.
+	 * @param end
+	 *            The index where the range ends, exclusive.
+	 */
+	public void setRange(int start, int end) {
+		position = start;
+		this.end = end;
+	}
+
+	/**
+	 * Moves to the next tag in the range. A tag may be empty when a field only
+	 * opens or closes groups.
+	 *
+	 * @return True if there is a tag, false if the end of the range has been
+	 *         reached.
+	 */
+	public boolean next() {
+		while (position < end) {
+			int fieldStart = position;
+			if (text.charAt(fieldStart) == '~') {
+				position++;
+				setTag(fieldStart, fieldStart + 1, 0, 0, false);
+				return true;
+			}
+			int fieldEnd = fieldStart;
+			char c;
+			while (fieldEnd < end && (c = text.charAt(fieldEnd)) != ',' && c != '~') {
+				fieldEnd++;
+			}
+			position = fieldEnd < end && text.charAt(fieldEnd) == ',' ? fieldEnd + 1 : fieldEnd;
+			if (readField(fieldStart, fieldEnd)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the number of groups closed by the ')' after the current tag.
+	 *
+	 * @return The number of groups closed.
+	 */
+	public int getClosedGroups() {
+		return closedGroups;
+	}
+
+	/**
+	 * Gets the group depth of the current tag, which is 0 for a tag that is
+	 * not in a group.
+	 *
+	 * @return The group depth.
+	 */
+	public int getDepth() {
+		return depth + closedGroups;
+	}
+
+	/**
+	 * Gets the number of groups opened by the '(' before the current tag.
+	 *
+	 * @return The number of groups opened.
+	 */
+	public int getOpenedGroups() {
+		return openedGroups;
+	}
+
+	/**
+	 * Gets the current tag as a string, without any quotes inside it.
+	 *
+	 * @return The current tag.
+	 */
+	public String getTag() {
+		if (!quoted) {
+			return text.subSequence(tagStart, tagEnd).toString();
+		}
+		StringBuilder sb = new StringBuilder(tagEnd - tagStart);
+		for (int i = tagStart; i < tagEnd; i++) {
+			if (text.charAt(i) != '"') {
+				sb.append(text.charAt(i));
+			}
+		}
+		return sb.toString();
+	}
+
+	public int getTagEnd() {
+		return tagEnd;
+	}
+
+	public int getTagStart() {
+		return tagStart;
+	}
+
+	/**
+	 * Checks if the current tag has quotes inside it. The span of such a tag
+	 * is not the tag, so it must be read with getTag.
+	 *
+	 * @return True if the tag contains quotes, false if otherwise.
+	 */
+	public boolean isQuoted() {
+		return quoted;
+	}
+
+	public boolean isTagEmpty() {
+		return tagStart == tagEnd;
+	}
+
+	private boolean readField(int start, int end) {
+		start = skipForward(start, end);
+		end = skipBack(start, end);
+		int opened = 0;
+		while (start < end && text.charAt(start) == '(') {
+			opened++;
+			start = skipForward(start + 1, end);
+		}
+		int closed = 0;
+		while (start < end && text.charAt(end - 1) == ')') {
+			closed++;
+			end = skipBack(start, end - 1);
+		}
+		if (start < end && text.charAt(start) == '/') {
+			start++;
+		}
+		if (start == end && opened == 0 && closed == 0) {
+			return false;
+		}
+		boolean hasQuotes = false;
+		for (int i = start; i < end && !hasQuotes; i++) {
+			hasQuotes = text.charAt(i) == '"';
+		}
+		setTag(start, end, opened, closed, hasQuotes);
+		return true;
+	}
+
+	private void setTag(int start, int end, int opened, int closed, boolean hasQuotes) {
+		tagStart = start;
+		tagEnd = end;
+		openedGroups = opened;
+		closedGroups = Math.min(closed, depth + opened);
+		quoted = hasQuotes;
+		depth += opened - closedGroups;
+	}
+
+	private int skipBack(int start, int end) {
+		while (end > start && isPadding(text.charAt(end - 1))) {
+			end--;
+		}
+		return end;
+	}
+
+	private int skipForward(int start, int end) {
+		while (start < end && isPadding(text.charAt(start))) {
+			start++;
+		}
+		return start;
+	}
+
+	private static boolean isPadding(char c) {
+		return c <= ' ' || c == '"';
+	}
+}
@@ -29,4 +29,5 @@ public class HistoryItem {
 	public Integer groupId;
 	public TaggerSet<Integer> groupIds;
 	public TaggerSet<AbstractTagModel> tags;
+	public List<EventModel> replacedTags;
 }
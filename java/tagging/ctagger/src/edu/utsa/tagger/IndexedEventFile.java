@@ -0,0 +1,273 @@
+package edu.utsa.tagger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * This class reads an event file in the tab-delimited text format into memory
+ * and indexes where each line starts and ends. The lines are split into
+ * columns by the offsets of their tabs, and only the columns that are asked
+ * for are decoded from UTF-8, so the other columns of a row are never turned
+ * into text. Lines end at "\n", "\r" or "\r\n" like BufferedReader.readLine.
+ *
+ * The file is read into a heap buffer instead of being mapped, because a
+ * mapping cannot be released until it is garbage collected and keeps the file
+ * locked on Windows, so the file could not be saved over while the mapping was
+ * alive. Only files up to the largest buffered size are read this way, and
+ * larger files are left to the reader thread of TabDelimitedEventReader so
+ * that they do not have to fit in the heap.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class IndexedEventFile {
+
+	/**
+	 * This class gives access to the columns of one line at a time. Each
+	 * thread reading the file needs its own Row.
+	 */
+	public class Row {
+		private final ByteBuffer bytes = buffer.duplicate();
+		private final CharsetDecoder decoder = UTF8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		private CharBuffer chars = CharBuffer.allocate(256);
+		private int[] tabs = new int[16];
+		private int tabCount;
+		private int lineStart;
+		private int lineEnd;
+
+		private Row() {
+		}
+
+		/**
+		 * Moves to the given line and finds its columns.
+		 *
+		 * @param line
+		 *            The index of the line, starting at 0.
+		 * @return True if the line has any text, false if it is blank.
+		 */
+		public boolean setLine(int line) {
+			lineStart = lineStarts[line];
+			lineEnd = lineEnds[line];
+			tabCount = 0;
+			boolean blank = true;
+			for (int i = lineStart; i < lineEnd; i++) {
+				int b = bytes.get(i) & 0xFF;
+				if (b == '\t') {
+					if (tabCount == tabs.length) {
+						int[] newTabs = new int[tabs.length * 2];
+						System.arraycopy(tabs, 0, newTabs, 0, tabCount);
+						tabs = newTabs;
+					}
+					tabs[tabCount++] = i;
+				} else if (b > ' ') {
+					blank = false;
+				}
+			}
+			return !blank;
+		}
+
+		/**
+		 * Gets the text of a column of the current line.
+		 *
+		 * @param column
+		 *            The column, starting at 1.
+		 * @return The text of the column, or null if the line has no such
+		 *         column.
+		 */
+		public String getColumn(int column) {
+			if (!hasColumn(column)) {
+				return null;
+			}
+			chars.clear();
+			decodeColumn(column);
+			chars.flip();
+			return chars.toString();
+		}
+
+		/**
+		 * Decodes the given columns of the current line one after the other
+		 * into a buffer. The start and end of column columns[i] in the buffer
+		 * are stored in ranges[2 * i] and ranges[2 * i + 1], which are both -1
+		 * if the line has no such column.
+		 *
+		 * @param columns
+		 *            The columns, starting at 1.
+		 * @param ranges
+		 *            The array the ranges are stored in, at least twice as
+		 *            long as columns.
+		 * @return The buffer with the decoded columns. It is reused by the next
+		 *         call.
+		 */
+		public CharBuffer getColumns(int[] columns, int[] ranges) {
+			chars.clear();
+			for (int i = 0; i < columns.length; i++) {
+				if (hasColumn(columns[i])) {
+					ranges[2 * i] = chars.position();
+					decodeColumn(columns[i]);
+					ranges[2 * i + 1] = chars.position();
+				} else {
+					ranges[2 * i] = -1;
+					ranges[2 * i + 1] = -1;
+				}
+			}
+			chars.flip();
+			return chars;
+		}
+
+		private void decodeColumn(int column) {
+			int start = column == 1 ? lineStart : tabs[column - 2] + 1;
+			int end = column <= tabCount ? tabs[column - 1] : lineEnd;
+			// UTF-8 never decodes to more chars than it has bytes
+			if (chars.remaining() < end - start) {
+				CharBuffer newChars = CharBuffer
+						.allocate(Math.max(chars.capacity() * 2, chars.position() + end - start));
+				chars.flip();
+				newChars.put(chars);
+				chars = newChars;
+			}
+			// Most columns are ASCII, which can be copied without the decoder
+			char[] array = chars.array();
+			int offset = chars.position();
+			for (int i = start; i < end; i++) {
+				byte b = bytes.get(i);
+				if (b < 0) {
+					bytes.limit(end);
+					bytes.position(start);
+					decoder.reset();
+					decoder.decode(bytes, chars, true);
+					decoder.flush(chars);
+					bytes.limit(bytes.capacity());
+					return;
+				}
+				array[offset + i - start] = (char) b;
+			}
+			chars.position(offset + end - start);
+		}
+
+		private boolean hasColumn(int column) {
+			return column >= 1 && column <= tabCount + 1;
+		}
+	}
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static long maxBufferedSize = 64L * 1024 * 1024;
+
+	private final ByteBuffer buffer;
+	private int[] lineStarts = new int[1024];
+	private int[] lineEnds = new int[1024];
+	private int lineCount;
+
+	/**
+	 * Reads the given file and indexes its lines.
+	 *
+	 * @param file
+	 *            The tab-delimited event file.
+	 * @throws IOException
+	 *             If the file cannot be read, or is larger than the largest
+	 *             buffered size.
+	 */
+	public IndexedEventFile(File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			if (channel.size() > Math.min(maxBufferedSize, Integer.MAX_VALUE)) {
+				throw new IOException("File is too large to read at once: " + file.getPath());
+			}
+			buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) == -1) {
+					break;
+				}
+			}
+			buffer.flip();
+		} finally {
+			randomAccessFile.close();
+		}
+		indexLines();
+	}
+
+	/**
+	 * Checks if the given file is small enough to be read into memory at once.
+	 *
+	 * @param file
+	 *            The tab-delimited event file.
+	 * @return True if the file is no larger than the largest buffered size,
+	 *         false if otherwise.
+	 */
+	public static boolean canBuffer(File file) {
+		return file.length() <= Math.min(maxBufferedSize, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Gets the size of the largest file that is read into memory at once.
+	 *
+	 * @return The size in bytes.
+	 */
+	public static long getMaxBufferedSize() {
+		return maxBufferedSize;
+	}
+
+	/**
+	 * Sets the size of the largest file that is read into memory at once.
+	 *
+	 * @param size
+	 *            The size in bytes.
+	 */
+	public static void setMaxBufferedSize(long size) {
+		maxBufferedSize = size;
+	}
+
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Creates a Row to read the columns of lines with.
+	 *
+	 * @return A new Row.
+	 */
+	public Row newRow() {
+		return new Row();
+	}
+
+	private void addLine(int start, int end) {
+		if (lineCount == lineStarts.length) {
+			int[] newStarts = new int[lineCount * 2];
+			int[] newEnds = new int[lineCount * 2];
+			System.arraycopy(lineStarts, 0, newStarts, 0, lineCount);
+			System.arraycopy(lineEnds, 0, newEnds, 0, lineCount);
+			lineStarts = newStarts;
+			lineEnds = newEnds;
+		}
+		lineStarts[lineCount] = start;
+		lineEnds[lineCount] = end;
+		lineCount++;
+	}
+
+	private void indexLines() {
+		int size = buffer.limit();
+		int start = 0;
+		for (int i = 0; i < size; i++) {
+			byte b = buffer.get(i);
+			if (b == '\n' || b == '\r') {
+				addLine(start, i);
+				if (b == '\r' && i + 1 < size && buffer.get(i + 1) == '\n') {
+					i++;
+				}
+				start = i + 1;
+			}
+		}
+		if (start < size) {
+			addLine(start, size);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package edu.utsa.tagger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * This class holds the Jackson objects used to read and write event JSON.
+ * Building an ObjectMapper is expensive and it is thread safe once it has been
+ * configured, so one mapper is shared by all taggers in the JVM instead of
+ * creating one for every load and save.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class JsonMapperRegistry {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private JsonMapperRegistry() {
+	}
+
+	/**
+	 * Gets the factory of the shared mapper, used to create streaming parsers
+	 * and generators.
+	 *
+	 * @return The shared JsonFactory.
+	 */
+	public static JsonFactory getFactory() {
+		return mapper.getFactory();
+	}
+
+	/**
+	 * Gets the shared mapper. It must not be reconfigured.
+	 *
+	 * @return The shared ObjectMapper.
+	 */
+	public static ObjectMapper getMapper() {
+		return mapper;
+	}
+}
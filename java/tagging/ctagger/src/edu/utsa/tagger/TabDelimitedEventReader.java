@@ -0,0 +1,491 @@
+package edu.utsa.tagger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * This class reads events in the tab-delimited text format with a pipeline.
+ * The lines are taken in batches, either by a reader thread or from the line
+ * index of an IndexedEventFile. A fork-join pool splits each batch into event
+ * codes and tags and looks the tags up in the hierarchy, and the calling
+ * thread hands the rows to a RowHandler in the order they appear in the file.
+ * Everything that depends on the order of the rows, like group IDs, is left to
+ * the handler, so the result is the same as reading the rows one at a time.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class TabDelimitedEventReader {
+
+	/**
+	 * Receives the rows of the file in order.
+	 */
+	public interface RowHandler {
+		void handleRow(EventRow row);
+	}
+
+	/**
+	 * This class represents an event read from a line, with its tags and the
+	 * tag groups they belong to.
+	 */
+	public static class EventRow {
+		private final String eventCode;
+		private String[] tags = new String[8];
+		private AbstractTagModel[] hierarchyTags = new AbstractTagModel[8];
+		private int[] openedGroups = new int[8];
+		private int[] closedGroups = new int[8];
+		private int tagCount;
+
+		private EventRow(String eventCode) {
+			this.eventCode = eventCode;
+		}
+
+		private void addTag(String tag, AbstractTagModel hierarchyTag, int opened, int closed) {
+			if (tagCount == tags.length) {
+				tags = Arrays.copyOf(tags, tagCount * 2);
+				hierarchyTags = Arrays.copyOf(hierarchyTags, tagCount * 2);
+				openedGroups = Arrays.copyOf(openedGroups, tagCount * 2);
+				closedGroups = Arrays.copyOf(closedGroups, tagCount * 2);
+			}
+			tags[tagCount] = tag;
+			hierarchyTags[tagCount] = hierarchyTag;
+			openedGroups[tagCount] = opened;
+			closedGroups[tagCount] = closed;
+			tagCount++;
+		}
+
+		/**
+		 * Gets the number of tag groups closed after the tag at the given
+		 * index.
+		 *
+		 * @param index
+		 *            The index of the tag in the row.
+		 * @return The number of groups closed.
+		 */
+		public int getClosedGroups(int index) {
+			return closedGroups[index];
+		}
+
+		public String getEventCode() {
+			return eventCode;
+		}
+
+		/**
+		 * Gets the tag in the hierarchy that was found for the tag at the
+		 * given index.
+		 *
+		 * @param index
+		 *            The index of the tag in the row.
+		 * @return The tag in the hierarchy, or null if the tag has to be
+		 *         resolved by the Tagger.
+		 */
+		public AbstractTagModel getHierarchyTag(int index) {
+			return hierarchyTags[index];
+		}
+
+		/**
+		 * Gets the number of tag groups opened before the tag at the given
+		 * index.
+		 *
+		 * @param index
+		 *            The index of the tag in the row.
+		 * @return The number of groups opened.
+		 */
+		public int getOpenedGroups(int index) {
+			return openedGroups[index];
+		}
+
+		/**
+		 * Gets the path of the tag at the given index if it was not found in
+		 * the hierarchy.
+		 *
+		 * @param index
+		 *            The index of the tag in the row.
+		 * @return The path of the tag, or null if the tag was found in the
+		 *         hierarchy or the entry only opens or closes groups.
+		 */
+		public String getTag(int index) {
+			return tags[index];
+		}
+
+		public int getTagCount() {
+			return tagCount;
+		}
+
+		/**
+		 * Checks if there is a tag at the given index, as an entry may only
+		 * open or close groups.
+		 *
+		 * @param index
+		 *            The index of the tag in the row.
+		 * @return True if there is a tag, false if otherwise.
+		 */
+		public boolean hasTag(int index) {
+			return tags[index] != null || hierarchyTags[index] != null;
+		}
+	}
+
+	private static final int BATCH_SIZE = 1024;
+	private static final ForkJoinPool pool = new ForkJoinPool();
+	private static final Future<EventRow[]> END_OF_INPUT = new FutureTask<EventRow[]>(new Callable<EventRow[]>() {
+		@Override
+		public EventRow[] call() {
+			return new EventRow[0];
+		}
+	});
+
+	private final int header;
+	private final int[] eventCodeColumns;
+	private final int[] tagColumns;
+	private final TagPathTable tagPathTable;
+	private volatile IOException readError;
+
+	/**
+	 * Creates a reader for files with the given layout.
+	 *
+	 * @param tagger
+	 *            The Tagger whose hierarchy the tags are looked up in.
+	 * @param header
+	 *            The number of header lines.
+	 * @param eventCodeColumns
+	 *            The event code column(s).
+	 * @param tagColumns
+	 *            The event tag column(s).
+	 */
+	public TabDelimitedEventReader(Tagger tagger, int header, int[] eventCodeColumns, int[] tagColumns) {
+		this.header = header;
+		this.eventCodeColumns = eventCodeColumns;
+		this.tagColumns = tagColumns;
+		tagPathTable = tagger.getTagPathTable();
+	}
+
+	/**
+	 * Reads the events from the given reader and passes them to the handler
+	 * in file order on the calling thread. The hierarchy must not be edited
+	 * until this returns.
+	 *
+	 * @param egtReader
+	 *            The BufferedReader used to read in the tab-delimited events.
+	 * @param handler
+	 *            The handler that receives the rows.
+	 * @throws IOException
+	 *             If the events cannot be read.
+	 */
+	public void read(final BufferedReader egtReader, RowHandler handler) throws IOException {
+		final BlockingQueue<Future<EventRow[]>> batches = new ArrayBlockingQueue<Future<EventRow[]>>(
+				pool.getParallelism() * 2);
+		readError = null;
+		Thread readerThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				readBatches(egtReader, batches);
+			}
+		}, "Tab-delimited event reader");
+		readerThread.setDaemon(true);
+		readerThread.start();
+		try {
+			Future<EventRow[]> batch;
+			while ((batch = batches.take()) != END_OF_INPUT) {
+				handleBatch(batch.get(), handler);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading events");
+		} catch (ExecutionException e) {
+			throw rethrow(e);
+		} finally {
+			readerThread.interrupt();
+		}
+		if (readError != null) {
+			throw readError;
+		}
+	}
+
+	/**
+	 * Reads the events from the given indexed file and passes them to the
+	 * handler in file order on the calling thread. Since the lines are already
+	 * indexed, the batches are submitted by the calling thread, which keeps a
+	 * few batches ahead of the one it is handling. The hierarchy must not be
+	 * edited until this returns.
+	 *
+	 * @param egtFile
+	 *            The indexed tab-delimited event file.
+	 * @param handler
+	 *            The handler that receives the rows.
+	 * @throws IOException
+	 *             If the events cannot be read.
+	 */
+	public void read(IndexedEventFile egtFile, RowHandler handler) throws IOException {
+		ArrayDeque<Future<EventRow[]>> batches = new ArrayDeque<Future<EventRow[]>>();
+		int lineCount = egtFile.getLineCount();
+		int nextLine = header;
+		try {
+			while (nextLine < lineCount || !batches.isEmpty()) {
+				while (nextLine < lineCount && batches.size() < pool.getParallelism() * 2) {
+					int endLine = Math.min(nextLine + BATCH_SIZE, lineCount);
+					batches.add(submitBatch(egtFile, nextLine, endLine));
+					nextLine = endLine;
+				}
+				handleBatch(batches.remove().get(), handler);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading events");
+		} catch (ExecutionException e) {
+			throw rethrow(e);
+		} finally {
+			for (Future<EventRow[]> batch : batches) {
+				batch.cancel(false);
+			}
+		}
+	}
+
+	private static void handleBatch(EventRow[] rows, RowHandler handler) {
+		for (EventRow row : rows) {
+			if (row != null) {
+				handler.handleRow(row);
+			}
+		}
+	}
+
+	/**
+	 * Gets the exception to throw for a batch that failed. Runtime exceptions
+	 * and errors are thrown as they are.
+	 */
+	private static IOException rethrow(ExecutionException e) {
+		if (e.getCause() instanceof RuntimeException) {
+			throw (RuntimeException) e.getCause();
+		} else if (e.getCause() instanceof Error) {
+			throw (Error) e.getCause();
+		}
+		return new IOException("Unable to read events: " + e.getCause().getMessage());
+	}
+
+	/**
+	 * Reads the lines after the header in batches and submits each batch to
+	 * the pool. The futures are queued in file order and the queue is ended
+	 * with END_OF_INPUT, also when the reader fails.
+	 */
+	private void readBatches(BufferedReader egtReader, BlockingQueue<Future<EventRow[]>> batches) {
+		try {
+			try {
+				List<String> lines = new ArrayList<String>(BATCH_SIZE);
+				String line;
+				int lineCount = 0;
+				while ((line = egtReader.readLine()) != null) {
+					lineCount++;
+					if (lineCount <= header) {
+						continue;
+					}
+					lines.add(line);
+					if (lines.size() == BATCH_SIZE) {
+						batches.put(submitBatch(lines));
+						lines = new ArrayList<String>(BATCH_SIZE);
+					}
+				}
+				if (!lines.isEmpty()) {
+					batches.put(submitBatch(lines));
+				}
+			} catch (IOException e) {
+				readError = e;
+			}
+			batches.put(END_OF_INPUT);
+		} catch (InterruptedException e) {
+			// The caller has stopped taking batches
+		}
+	}
+
+	private Future<EventRow[]> submitBatch(final List<String> lines) {
+		return pool.submit(new Callable<EventRow[]>() {
+			@Override
+			public EventRow[] call() {
+				HedStringTokenizer tokenizer = new HedStringTokenizer();
+				EventRow[] rows = new EventRow[lines.size()];
+				for (int i = 0; i < rows.length; i++) {
+					rows[i] = parseRow(lines.get(i), tokenizer);
+				}
+				return rows;
+			}
+		});
+	}
+
+	private Future<EventRow[]> submitBatch(final IndexedEventFile egtFile, final int startLine, final int endLine) {
+		return pool.submit(new Callable<EventRow[]>() {
+			@Override
+			public EventRow[] call() {
+				IndexedEventFile.Row columns = egtFile.newRow();
+				HedStringTokenizer tokenizer = new HedStringTokenizer();
+				int[] ranges = new int[tagColumns.length * 2];
+				EventRow[] rows = new EventRow[endLine - startLine];
+				for (int i = 0; i < rows.length; i++) {
+					rows[i] = parseRow(columns, startLine + i, tokenizer, ranges);
+				}
+				return rows;
+			}
+		});
+	}
+
+	/**
+	 * Splits a line into its event code and tags and looks the tags up in the
+	 * hierarchy. Only tags that are not in the hierarchy are copied out of the
+	 * line.
+	 *
+	 * @param line
+	 *            A line of the file after the header.
+	 * @param tokenizer
+	 *            The tokenizer of the current batch.
+	 * @return The row, or null if the line is blank or has no event code.
+	 */
+	private EventRow parseRow(String line, HedStringTokenizer tokenizer) {
+		if (line.trim().isEmpty()) {
+			return null;
+		}
+		int[] tabs = findTabs(line);
+		String eventCode = combineColumns(line, tabs, eventCodeColumns);
+		if (eventCode.isEmpty()) {
+			return null;
+		}
+		EventRow row = new EventRow(eventCode);
+		if (tagColumns[0] == 0) {
+			return row;
+		}
+		tokenizer.reset(line);
+		for (int column : tagColumns) {
+			if (column < 1 || column > tabs.length + 1) {
+				continue;
+			}
+			tokenizer.setRange(columnStart(tabs, column), columnEnd(line, tabs, column));
+			addTags(row, line, tokenizer);
+		}
+		return row;
+	}
+
+	/**
+	 * Splits a line of an indexed file into its event code and tags and looks
+	 * the tags up in the hierarchy. Only the event code and tag columns are
+	 * decoded.
+	 *
+	 * @param columns
+	 *            The Row of the current batch.
+	 * @param line
+	 *            The index of a line of the file after the header.
+	 * @param tokenizer
+	 *            The tokenizer of the current batch.
+	 * @param ranges
+	 *            The array the ranges of the tag columns are stored in.
+	 * @return The row, or null if the line is blank or has no event code.
+	 */
+	private EventRow parseRow(IndexedEventFile.Row columns, int line, HedStringTokenizer tokenizer, int[] ranges) {
+		if (!columns.setLine(line)) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int column : eventCodeColumns) {
+			String text = columns.getColumn(column);
+			if (text != null) {
+				appendEventCode(sb, text);
+			}
+		}
+		String eventCode = sb.toString().trim();
+		if (eventCode.isEmpty()) {
+			return null;
+		}
+		EventRow row = new EventRow(eventCode);
+		if (tagColumns[0] == 0) {
+			return row;
+		}
+		CharBuffer text = columns.getColumns(tagColumns, ranges);
+		tokenizer.reset(text);
+		for (int i = 0; i < tagColumns.length; i++) {
+			if (ranges[2 * i] != -1) {
+				tokenizer.setRange(ranges[2 * i], ranges[2 * i + 1]);
+				addTags(row, text, tokenizer);
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Adds the tags in the current range of the tokenizer to the row.
+	 */
+	private void addTags(EventRow row, CharSequence text, HedStringTokenizer tokenizer) {
+		while (tokenizer.next()) {
+			String tag = null;
+			AbstractTagModel hierarchyTag = null;
+			if (tokenizer.isQuoted()) {
+				tag = tokenizer.getTag();
+				hierarchyTag = tagPathTable.get(tag, 0, tag.length());
+			} else if (!tokenizer.isTagEmpty()) {
+				hierarchyTag = tagPathTable.get(text, tokenizer.getTagStart(), tokenizer.getTagEnd());
+				if (hierarchyTag == null) {
+					tag = tokenizer.getTag();
+				}
+			}
+			row.addTag(hierarchyTag == null ? tag : null, hierarchyTag, tokenizer.getOpenedGroups(),
+					tokenizer.getClosedGroups());
+		}
+	}
+
+	/**
+	 * Joins the trimmed text of the given columns with spaces. A '~' is
+	 * replaced by ",~," as in the tag columns.
+	 */
+	private static String combineColumns(String line, int[] tabs, int[] columns) {
+		StringBuilder sb = new StringBuilder();
+		for (int column : columns) {
+			if (column < 1 || column > tabs.length + 1) {
+				continue;
+			}
+			appendEventCode(sb, line.substring(columnStart(tabs, column), columnEnd(line, tabs, column)));
+		}
+		return sb.toString().trim();
+	}
+
+	/**
+	 * Appends the trimmed text of an event code column, separated from the
+	 * previous column by a space. A '~' is replaced by ",~," as in the tag
+	 * columns.
+	 */
+	private static void appendEventCode(StringBuilder sb, String column) {
+		String text = column.trim();
+		if (!text.isEmpty()) {
+			if (sb.length() > 0) {
+				sb.append(' ');
+			}
+			sb.append(text.indexOf('~') == -1 ? text : text.replace("~", ",~,"));
+		}
+	}
+
+	private static int columnEnd(String line, int[] tabs, int column) {
+		return column <= tabs.length ? tabs[column - 1] : line.length();
+	}
+
+	private static int columnStart(int[] tabs, int column) {
+		return column == 1 ? 0 : tabs[column - 2] + 1;
+	}
+
+	private static int[] findTabs(String line) {
+		int count = 0;
+		for (int i = line.indexOf('\t'); i != -1; i = line.indexOf('\t', i + 1)) {
+			count++;
+		}
+		int[] tabs = new int[count];
+		for (int i = line.indexOf('\t'), j = 0; i != -1; i = line.indexOf('\t', i + 1), j++) {
+			tabs[j] = i;
+		}
+		return tabs;
+	}
+}
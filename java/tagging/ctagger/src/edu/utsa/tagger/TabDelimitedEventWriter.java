@@ -0,0 +1,286 @@
+package edu.utsa.tagger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Map;
+
+/**
+ * This class writes events in the tab-delimited text format. Each row has the
+ * event code, the header columns (category, label, long name and description)
+ * and the remaining tags of the event. The tags of an event are sorted into
+ * these columns in a single pass over its tag groups, and each row is built in
+ * a reused StringBuilder before it is written. Rows can be appended to text or
+ * encoded as UTF-8 through a direct buffer straight to a channel, like the
+ * channel of a file.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class TabDelimitedEventWriter {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int ENCODE_SIZE = 1 << 12;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int OTHER = 0;
+	private static final int CATEGORY = 1;
+	private static final int LABEL = 2;
+	private static final int LONG_NAME = 3;
+	private static final int DESCRIPTION = 4;
+
+	private final String lineSeparator = System.getProperty("line.separator");
+	private final StringBuilder row = new StringBuilder(256);
+	private final StringBuilder categories = new StringBuilder(64);
+	private final StringBuilder otherTags = new StringBuilder(256);
+	private String label;
+	private String longName;
+	private String description;
+	private ByteBuffer bytes;
+	private ByteBuffer encoded;
+	private CharBuffer chars;
+	private CharsetEncoder encoder;
+
+	/**
+	 * Writes the header and a row for each event to the given text.
+	 *
+	 * @param out
+	 *            The text to append to, like a StringBuilder or Writer.
+	 * @param header
+	 *            The names of the columns.
+	 * @param events
+	 *            The events to write.
+	 * @throws IOException
+	 *             If the text cannot be appended to.
+	 */
+	public void write(Appendable out, String[] header, Iterable<TaggedEvent> events) throws IOException {
+		appendHeader(header);
+		out.append(row);
+		for (TaggedEvent event : events) {
+			appendRow(event);
+			out.append(row);
+		}
+	}
+
+	/**
+	 * Writes the header and a row for each event to the given channel in
+	 * UTF-8. The channel is not closed.
+	 *
+	 * @param channel
+	 *            The channel to write to.
+	 * @param header
+	 *            The names of the columns.
+	 * @param events
+	 *            The events to write.
+	 * @throws IOException
+	 *             If the channel cannot be written to.
+	 */
+	public void write(WritableByteChannel channel, String[] header, Iterable<TaggedEvent> events)
+			throws IOException {
+		if (bytes == null) {
+			bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			encoded = ByteBuffer.allocate(ENCODE_SIZE);
+			chars = CharBuffer.allocate(256);
+			encoder = UTF8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+		bytes.clear();
+		encoded.clear();
+		encoder.reset();
+		appendHeader(header);
+		encodeRow(channel);
+		for (TaggedEvent event : events) {
+			appendRow(event);
+			encodeRow(channel);
+		}
+		chars.clear();
+		chars.flip();
+		encode(channel, true);
+		encoder.flush(encoded);
+		transfer(channel);
+		drain(channel);
+	}
+
+	private void appendHeader(String[] header) {
+		row.setLength(0);
+		row.append(header[0]);
+		for (int i = 1; i < header.length; i++) {
+			row.append('\t').append(header[i]);
+		}
+		row.append(lineSeparator);
+	}
+
+	/**
+	 * Builds the row of an event. Header tags are only taken from the
+	 * event-level tags. The first tag of a tag group is always kept in the
+	 * group, even if it is a header tag.
+	 */
+	private void appendRow(TaggedEvent event) {
+		categories.setLength(0);
+		otherTags.setLength(0);
+		label = null;
+		longName = null;
+		description = null;
+		boolean previous = false;
+		int eventGroupId = event.getEventGroupId();
+		for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> entry : event.getTagGroups().entrySet()) {
+			if (previous) {
+				otherTags.append(',');
+			}
+			if (entry.getKey() == eventGroupId) {
+				previous = classifyEventTags(entry.getValue());
+			} else {
+				appendGroup(entry.getValue());
+				previous = true;
+			}
+		}
+		row.setLength(0);
+		row.append(event.getEventModel().getCode()).append('\t');
+		row.append(categories).append('\t');
+		appendColumn(label);
+		appendColumn(longName);
+		appendColumn(description);
+		row.append(otherTags).append(lineSeparator);
+	}
+
+	/**
+	 * Sorts the event-level tags into the header columns and the other tags.
+	 *
+	 * @return True if any other tags were written, false if otherwise.
+	 */
+	private boolean classifyEventTags(TaggerSet<AbstractTagModel> tags) {
+		boolean written = false;
+		for (AbstractTagModel tag : tags) {
+			String path = tag.getPath();
+			switch (getColumn(path)) {
+			case CATEGORY:
+				if (categories.length() > 0) {
+					categories.append(',');
+				}
+				categories.append(path);
+				break;
+			case LABEL:
+				if (label == null) {
+					label = path;
+				}
+				break;
+			case LONG_NAME:
+				if (longName == null) {
+					longName = path;
+				}
+				break;
+			case DESCRIPTION:
+				if (description == null) {
+					description = path;
+				}
+				break;
+			default:
+				if (written) {
+					otherTags.append(',');
+				}
+				otherTags.append(path);
+				written = true;
+			}
+		}
+		return written;
+	}
+
+	private void appendGroup(TaggerSet<AbstractTagModel> tags) {
+		if (tags.isEmpty()) {
+			return;
+		}
+		otherTags.append('(').append(tags.get(0).getPath());
+		for (int i = 1; i < tags.size(); i++) {
+			String path = tags.get(i).getPath();
+			if (getColumn(path) == OTHER) {
+				otherTags.append(',').append(path);
+			}
+		}
+		otherTags.append(')');
+	}
+
+	private void appendColumn(String path) {
+		if (path != null) {
+			row.append(path);
+		}
+		row.append('\t');
+	}
+
+	/**
+	 * Finds the header column of a tag path with a single scan of its prefix,
+	 * ignoring case.
+	 */
+	private static int getColumn(String path) {
+		if (!startsWith(path, 0, "event/")) {
+			return OTHER;
+		}
+		if (startsWith(path, 6, "category")) {
+			return CATEGORY;
+		}
+		if (startsWith(path, 6, "label")) {
+			return LABEL;
+		}
+		if (startsWith(path, 6, "long name")) {
+			return LONG_NAME;
+		}
+		if (startsWith(path, 6, "description")) {
+			return DESCRIPTION;
+		}
+		return OTHER;
+	}
+
+	private static boolean startsWith(String path, int offset, String lowerCasePrefix) {
+		if (path.length() - offset < lowerCasePrefix.length()) {
+			return false;
+		}
+		for (int i = 0; i < lowerCasePrefix.length(); i++) {
+			if (Character.toLowerCase(path.charAt(offset + i)) != lowerCasePrefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void encodeRow(WritableByteChannel channel) throws IOException {
+		int length = row.length();
+		if (chars.capacity() < length) {
+			chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+		}
+		chars.clear();
+		row.getChars(0, length, chars.array(), 0);
+		chars.limit(length);
+		encode(channel, false);
+	}
+
+	private void encode(WritableByteChannel channel, boolean endOfInput) throws IOException {
+		while (encoder.encode(chars, encoded, endOfInput).isOverflow()) {
+			transfer(channel);
+		}
+		transfer(channel);
+	}
+
+	/**
+	 * Moves the encoded bytes into the direct buffer. Encoding into a heap
+	 * buffer first lets the encoder work on arrays, which is much faster.
+	 */
+	private void transfer(WritableByteChannel channel) throws IOException {
+		encoded.flip();
+		if (bytes.remaining() < encoded.remaining()) {
+			drain(channel);
+		}
+		bytes.put(encoded);
+		encoded.clear();
+	}
+
+	private void drain(WritableByteChannel channel) throws IOException {
+		bytes.flip();
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+		bytes.clear();
+	}
+}
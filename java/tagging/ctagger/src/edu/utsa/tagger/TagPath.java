@@ -0,0 +1,98 @@
+package edu.utsa.tagger;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * This class represents an interned tag path. Each distinct path has one
+ * TagPath that holds its last segment and refers to the TagPath of its parent,
+ * so tags with the same path share the same strings. A TagPath is kept only as
+ * long as a tag or a descendant path refers to it.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public final class TagPath {
+
+	private static final WeakHashMap<String, WeakReference<TagPath>> paths = new WeakHashMap<String, WeakReference<TagPath>>();
+
+	private final String path;
+	private final String name;
+	private final TagPath parent;
+	private final int depth;
+
+	private TagPath(String path, TagPath parent) {
+		this.path = path;
+		this.parent = parent;
+		if (parent == null) {
+			name = path;
+			depth = 2;
+		} else {
+			name = path.substring(parent.path.length() + 1);
+			depth = parent.depth + 1;
+		}
+	}
+
+	/**
+	 * Gets the interned TagPath for the given path, creating it and any missing
+	 * ancestors if needed.
+	 *
+	 * @param path
+	 *            The tag path.
+	 * @return The TagPath shared by all tags with the given path.
+	 */
+	public static synchronized TagPath intern(String path) {
+		WeakReference<TagPath> reference = paths.get(path);
+		TagPath tagPath = reference == null ? null : reference.get();
+		if (tagPath == null) {
+			int lastSlash = path.lastIndexOf('/');
+			TagPath parent = lastSlash == -1 ? null : intern(path.substring(0, lastSlash));
+			tagPath = new TagPath(path, parent);
+			// Replace the key as well, since a cleared entry may hold another copy
+			paths.remove(path);
+			paths.put(tagPath.path, new WeakReference<TagPath>(tagPath));
+		}
+		return tagPath;
+	}
+
+	/**
+	 * Gets the depth of the path, which is 2 for a top-level tag and one more
+	 * for each level below it.
+	 *
+	 * @return The depth of the path.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Gets the last segment of the path.
+	 *
+	 * @return The name of the tag.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public TagPath getParent() {
+		return parent;
+	}
+
+	/**
+	 * Gets the path without its last segment.
+	 *
+	 * @return The parent path, null for a top-level tag.
+	 */
+	public String getParentPath() {
+		return parent == null ? null : parent.path;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	@Override
+	public String toString() {
+		return path;
+	}
+}
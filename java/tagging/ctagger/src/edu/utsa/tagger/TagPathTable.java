@@ -0,0 +1,158 @@
+package edu.utsa.tagger;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * This class is a read-only copy of the path index of the hierarchy that can
+ * look up a path given as a span of a larger text, so tags can be found
+ * without creating a string for each one. Since it is never changed, any
+ * number of threads can use it at once.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class TagPathTable {
+
+	private final String[] paths;
+	private final int[] hashes;
+	private final AbstractTagModel[] tags;
+	private final int mask;
+
+	/**
+	 * Copies the given path index.
+	 *
+	 * @param tagPaths
+	 *            The tags of the hierarchy keyed by path.
+	 */
+	public TagPathTable(Map<String, AbstractTagModel> tagPaths) {
+		int capacity = Integer.highestOneBit(Math.max(tagPaths.size(), 1) * 2) * 2;
+		paths = new String[capacity];
+		hashes = new int[capacity];
+		tags = new AbstractTagModel[capacity];
+		mask = capacity - 1;
+		for (Entry<String, AbstractTagModel> entry : tagPaths.entrySet()) {
+			int hash = entry.getKey().hashCode();
+			int i = spread(hash) & mask;
+			while (paths[i] != null) {
+				i = (i + 1) & mask;
+			}
+			paths[i] = entry.getKey();
+			hashes[i] = hash;
+			tags[i] = entry.getValue();
+		}
+	}
+
+	/**
+	 * Finds the tag in the hierarchy that getTagModel would return for the
+	 * path in the given span.
+	 *
+	 * @param text
+	 *            The text containing the path.
+	 * @param start
+	 *            The index where the path starts.
+	 * @param end
+	 *            The index where the path ends, exclusive.
+	 * @return The tag in the hierarchy if found, null if the tag has to be
+	 *         resolved by getTagModel.
+	 */
+	public AbstractTagModel get(CharSequence text, int start, int end) {
+		int hash = 0;
+		boolean slash = false;
+		boolean segment = false;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			hash = 31 * hash + c;
+			if (c == '/') {
+				slash = true;
+			} else if (slash) {
+				segment = true;
+			}
+		}
+		// getTagModel only looks up paths with a segment after a '/'
+		if (!segment) {
+			return null;
+		}
+		for (int i = spread(hash) & mask; paths[i] != null; i = (i + 1) & mask) {
+			if (hashes[i] == hash && regionMatches(paths[i], text, start, end)) {
+				return checkPath(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the tag in the hierarchy that getTagModel would return for the
+	 * path in the given span of a char array, like the buffer of a parser.
+	 *
+	 * @param chars
+	 *            The array containing the path.
+	 * @param start
+	 *            The index where the path starts.
+	 * @param end
+	 *            The index where the path ends, exclusive.
+	 * @return The tag in the hierarchy if found, null if the tag has to be
+	 *         resolved by getTagModel.
+	 */
+	public AbstractTagModel get(char[] chars, int start, int end) {
+		int hash = 0;
+		boolean slash = false;
+		boolean segment = false;
+		for (int i = start; i < end; i++) {
+			char c = chars[i];
+			hash = 31 * hash + c;
+			if (c == '/') {
+				slash = true;
+			} else if (slash) {
+				segment = true;
+			}
+		}
+		// getTagModel only looks up paths with a segment after a '/'
+		if (!segment) {
+			return null;
+		}
+		for (int i = spread(hash) & mask; paths[i] != null; i = (i + 1) & mask) {
+			if (hashes[i] == hash && regionMatches(paths[i], chars, start, end)) {
+				return checkPath(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the tag in the given slot, unless its path has been changed outside
+	 * of the Tagger since the table was built.
+	 */
+	private AbstractTagModel checkPath(int slot) {
+		String path = tags[slot].getPath();
+		return path == paths[slot] || paths[slot].equals(path) ? tags[slot] : null;
+	}
+
+	private static boolean regionMatches(String path, char[] chars, int start, int end) {
+		if (path.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < path.length(); i++) {
+			if (path.charAt(i) != chars[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean regionMatches(String path, CharSequence text, int start, int end) {
+		if (path.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < path.length(); i++) {
+			if (path.charAt(i) != text.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,253 @@
+package edu.utsa.tagger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * This class is a trigram index over the lowercased paths of the tags in the
+ * hierarchy, used to find the tags whose paths contain a search text. A query
+ * only checks the tags that have every trigram of the search text, and a
+ * query that extends the previous query only checks the tags that matched the
+ * previous query. Queries shorter than a trigram check every tag, comparing
+ * against the lowercased paths kept in the index.
+ *
+ * The index is kept in sync with the path index of the hierarchy by the
+ * Tagger, so it is built as the schema is loaded and updated as tags are
+ * added, removed and edited. Its methods are synchronized, so searches can run
+ * on a background thread while the hierarchy is edited.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class TagSearchIndex {
+
+	private static final int GRAM = 3;
+
+	/**
+	 * A tag with its lowercased path.
+	 */
+	private static class Entry {
+		final AbstractTagModel tag;
+		final String path;
+		final int nameStart;
+		final int depth;
+
+		Entry(AbstractTagModel tag) {
+			this.tag = tag;
+			path = tag.getPath().toLowerCase();
+			nameStart = path.lastIndexOf('/') + 1;
+			depth = tag.getDepth();
+		}
+	}
+
+	/**
+	 * A matching entry with where the search text was found, which it is
+	 * ranked by.
+	 */
+	private static class Match {
+		final Entry entry;
+		final boolean nameMatch;
+		final int matchStart;
+
+		Match(Entry entry, String searchText) {
+			this.entry = entry;
+			int nameIndex = entry.path.indexOf(searchText, entry.nameStart);
+			nameMatch = nameIndex != -1;
+			matchStart = nameMatch ? nameIndex - entry.nameStart : entry.path.indexOf(searchText);
+		}
+	}
+
+	/**
+	 * Orders matches by relevance: tags whose name contains the search text
+	 * come first, then earlier matches, then shallower tags, then tags with
+	 * shorter paths.
+	 */
+	private static final Comparator<Match> RANK = new Comparator<Match>() {
+		@Override
+		public int compare(Match m1, Match m2) {
+			if (m1.nameMatch != m2.nameMatch) {
+				return m1.nameMatch ? -1 : 1;
+			}
+			if (m1.matchStart != m2.matchStart) {
+				return m1.matchStart < m2.matchStart ? -1 : 1;
+			}
+			Entry e1 = m1.entry;
+			Entry e2 = m2.entry;
+			if (e1.depth != e2.depth) {
+				return e1.depth < e2.depth ? -1 : 1;
+			}
+			if (e1.path.length() != e2.path.length()) {
+				return e1.path.length() < e2.path.length() ? -1 : 1;
+			}
+			return e1.path.compareTo(e2.path);
+		}
+	};
+
+	private final Map<AbstractTagModel, Entry> entries = new IdentityHashMap<AbstractTagModel, Entry>();
+	private final Map<String, Set<Entry>> grams = new HashMap<String, Set<Entry>>();
+	// Last query and its matches, which an extended query narrows
+	private String lastSearchText;
+	private List<Entry> lastMatches;
+
+	/**
+	 * Adds a tag to the index.
+	 *
+	 * @param tag
+	 *            The tag.
+	 */
+	public synchronized void add(AbstractTagModel tag) {
+		if (entries.containsKey(tag)) {
+			remove(tag);
+		}
+		Entry entry = new Entry(tag);
+		entries.put(tag, entry);
+		for (int i = 0; i + GRAM <= entry.path.length(); i++) {
+			String gram = entry.path.substring(i, i + GRAM);
+			Set<Entry> posting = grams.get(gram);
+			if (posting == null) {
+				posting = Collections.newSetFromMap(new IdentityHashMap<Entry, Boolean>());
+				grams.put(gram, posting);
+			}
+			posting.add(entry);
+		}
+		clearLastQuery();
+	}
+
+	/**
+	 * Removes all of the tags from the index.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		grams.clear();
+		clearLastQuery();
+	}
+
+	/**
+	 * Removes a tag from the index.
+	 *
+	 * @param tag
+	 *            The tag.
+	 */
+	public synchronized void remove(AbstractTagModel tag) {
+		Entry entry = entries.remove(tag);
+		if (entry == null) {
+			return;
+		}
+		for (int i = 0; i + GRAM <= entry.path.length(); i++) {
+			String gram = entry.path.substring(i, i + GRAM);
+			Set<Entry> posting = grams.get(gram);
+			if (posting != null) {
+				posting.remove(entry);
+				if (posting.isEmpty()) {
+					grams.remove(gram);
+				}
+			}
+		}
+		clearLastQuery();
+	}
+
+	/**
+	 * Finds the tags whose paths contain the search text, ignoring case.
+	 *
+	 * @param searchText
+	 *            The search text.
+	 * @return The matching tags, in no particular order.
+	 */
+	public synchronized List<AbstractTagModel> search(String searchText) {
+		List<Entry> matches = match(searchText.toLowerCase());
+		List<AbstractTagModel> result = new ArrayList<AbstractTagModel>(matches.size());
+		for (Entry entry : matches) {
+			result.add(entry.tag);
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the most relevant tags whose paths contain the search text,
+	 * ignoring case. Tags whose name contains the search text rank first,
+	 * followed by tags that match earlier in the name or path and by
+	 * shallower tags.
+	 *
+	 * @param searchText
+	 *            The search text.
+	 * @param maxResults
+	 *            The largest number of tags returned.
+	 * @return The matching tags, most relevant first.
+	 */
+	public synchronized List<AbstractTagModel> searchRanked(String searchText, int maxResults) {
+		String lowerSearchText = searchText.toLowerCase();
+		List<Entry> matches = match(lowerSearchText);
+		if (maxResults <= 0) {
+			return new ArrayList<AbstractTagModel>();
+		}
+		// Keeps the best matches in a heap whose head is the worst of them
+		PriorityQueue<Match> heap = new PriorityQueue<Match>(Math.min(maxResults, matches.size()) + 1,
+				Collections.reverseOrder(RANK));
+		for (Entry entry : matches) {
+			Match match = new Match(entry, lowerSearchText);
+			if (heap.size() < maxResults) {
+				heap.add(match);
+			} else if (RANK.compare(match, heap.peek()) < 0) {
+				heap.poll();
+				heap.add(match);
+			}
+		}
+		List<Match> top = new ArrayList<Match>(heap);
+		Collections.sort(top, RANK);
+		List<AbstractTagModel> result = new ArrayList<AbstractTagModel>(top.size());
+		for (Match match : top) {
+			result.add(match.entry.tag);
+		}
+		return result;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private void clearLastQuery() {
+		lastSearchText = null;
+		lastMatches = null;
+	}
+
+	/**
+	 * Finds the entries whose paths contain the lowercased search text.
+	 */
+	private List<Entry> match(String searchText) {
+		Collection<Entry> candidates;
+		if (lastSearchText != null && searchText.contains(lastSearchText)) {
+			candidates = lastMatches;
+		} else if (searchText.length() < GRAM) {
+			candidates = entries.values();
+		} else {
+			candidates = null;
+			for (int i = 0; i + GRAM <= searchText.length(); i++) {
+				Set<Entry> posting = grams.get(searchText.substring(i, i + GRAM));
+				if (posting == null) {
+					candidates = Collections.emptyList();
+					break;
+				}
+				if (candidates == null || posting.size() < candidates.size()) {
+					candidates = posting;
+				}
+			}
+		}
+		List<Entry> matches = new ArrayList<Entry>();
+		for (Entry entry : candidates) {
+			if (entry.path.indexOf(searchText) != -1) {
+				matches.add(entry);
+			}
+		}
+		lastSearchText = searchText;
+		lastMatches = matches;
+		return matches;
+	}
+}
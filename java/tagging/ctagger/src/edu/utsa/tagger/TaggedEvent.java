@@ -2,6 +2,7 @@ package edu.utsa.tagger;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.TreeMap;
@@ -22,10 +23,25 @@ import edu.utsa.tagger.gui.TagEventView;
  *         Robbins
  */
 public class TaggedEvent implements Comparable<TaggedEvent> {
+	private static final String LABEL_PREFIX = "Event/Label/";
+	private static final String LONG_NAME_PREFIX = "Event/Long name/";
+	private static final String DESCRIPTION_PREFIX = "Event/Description/";
+	private static final String CATEGORY_PREFIX = "Event/Category/";
 	private Tagger tagger;
 	private TaggerView appView;
 	private GuiEventModel guiEventModel;
 	private TreeMap<Integer, TaggerSet<AbstractTagModel>> tagGroups;
+	// Sorted paths of the tag groups, built when a group is first queried
+	private IdentityHashMap<TaggerSet<AbstractTagModel>, GroupPathIndex> pathIndexes;
+	// First event-level tags of each header field and the state of the
+	// event-level group they were found in
+	private AbstractTagModel labelTag;
+	private AbstractTagModel longNameTag;
+	private AbstractTagModel descriptionTag;
+	private AbstractTagModel categoryTag;
+	private TaggerSet<AbstractTagModel> headerGroup;
+	private int headerModCount;
+	private int headerKeyEpoch;
 	// Tag group used to represent tags at the event level
 	private int eventGroupId;
 	// Associated views
@@ -39,6 +55,7 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 		this.guiEventModel = guiEventModel;
 		this.tagger = tagger;
 		this.tagGroups = new TreeMap<Integer, TaggerSet<AbstractTagModel>>();
+		this.pathIndexes = new IdentityHashMap<TaggerSet<AbstractTagModel>, GroupPathIndex>();
 		this.groupViews = new HashMap<Integer, GroupView>();
 		this.tagEgtViews = new HashMap<AbstractTagModel, TagEventView>();
 		this.rrTagViews = new HashMap<AbstractTagModel, RRTagView>();
@@ -110,12 +127,17 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 		if (tags == null) {
 			return false;
 		} else {
+			boolean headerCurrent = isHeaderCurrent(tags);
 			if ("~".equals(tagModel.getName()))
 				tags.add(tagModel, true);
 			else
 				tags.add(tagModel);
-			if (getLabel().length() > 0) {
-				guiEventModel.setLabel(getLabel());
+			if (headerCurrent) {
+				headerTagAdded(tagModel);
+			}
+			String label = getLabel();
+			if (label.length() > 0) {
+				guiEventModel.setLabel(label);
 			}
 			return true;
 		}
@@ -135,13 +157,18 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 		if (tags == null) {
 			return false;
 		} else {
+			boolean headerCurrent = isHeaderCurrent(tags);
 			if ("~".equals(tagModel.getName())) {
 				tags.add(index, tagModel, true);
 			} else {
 				tags.add(tagModel);
 			}
-			if (getLabel().length() > 0) {
-				guiEventModel.setLabel(getLabel());
+			if (headerCurrent) {
+				headerTagAdded(tagModel);
+			}
+			String label = getLabel();
+			if (label.length() > 0) {
+				guiEventModel.setLabel(label);
 			}
 			return true;
 		}
@@ -225,6 +252,16 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 		return (0 == this.compareTo(other));
 	}
 
+	/**
+	 * TaggedEvents are hashed by their event code, which is consistent with
+	 * <code>equals</code>.
+	 */
+	@Override
+	public int hashCode() {
+		String code = guiEventModel.getCode();
+		return code == null ? 0 : code.hashCode();
+	}
+
 	/**
 	 * Finds the descendant of the given unique tag in the given group, if it
 	 * exists.
@@ -236,18 +273,11 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 	 *         tag exists in this group.
 	 */
 	public AbstractTagModel findDescendant(int groupId, AbstractTagModel uniqueKey) {
-		TaggerSet<AbstractTagModel> tags = tagGroups.get(groupId);
-		if (tags == null) {
+		GroupPathIndex pathIndex = getPathIndex(groupId);
+		if (pathIndex == null) {
 			return null;
 		}
-		String uniquePrefix = uniqueKey.getPath() + "/";
-		for (AbstractTagModel tag : tags) {
-			String path = tag.getPath();
-			if (path.equals(uniqueKey.getPath()) || path.startsWith(uniquePrefix) || path.equals(uniqueKey.getPath())) {
-				return tag;
-			}
-		}
-		return null;
+		return pathIndex.findSelfOrDescendant(uniqueKey.getPath());
 	}
 
 	/**
@@ -259,26 +289,19 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 	 */
 	public Set<Integer> findTagGroup(String tagName) {
 		Set<Integer> groups = new HashSet<Integer>();
-		TreeMap<Integer, TaggerSet<AbstractTagModel>> tagGroups = getTagGroups();
-		Set<Integer> tagGroupKeys = tagGroups.keySet();
-		for (Integer key : tagGroupKeys) {
-			for (AbstractTagModel tag : tagGroups.get(key)) {
-				if (tag.getPath().startsWith(tagName)) {
-					groups.add(key);
-				}
+		for (Integer key : tagGroups.keySet()) {
+			if (getPathIndex(key).containsPrefix(tagName)) {
+				groups.add(key);
 			}
 		}
 		return groups;
 	}
 
 	public AbstractTagModel findTagModel(String tagName) {
-		TreeMap<Integer, TaggerSet<AbstractTagModel>> tagGroups = getTagGroups();
-		Set<Integer> tagGroupKeys = tagGroups.keySet();
-		for (Integer key : tagGroupKeys) {
-			for (AbstractTagModel tag : tagGroups.get(key)) {
-				if (tag.getPath().startsWith(tagName)) {
-					return tag;
-				}
+		for (Integer key : tagGroups.keySet()) {
+			AbstractTagModel tag = getPathIndex(key).findPrefix(tagName);
+			if (tag != null) {
+				return tag;
 			}
 		}
 		return null;
@@ -295,17 +318,11 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 	 *         given group.
 	 */
 	public AbstractTagModel findTagSharedPath(int groupId, AbstractTagModel tagModel) {
-		TaggerSet<AbstractTagModel> tags = tagGroups.get(groupId);
-		if (tags != null) {
-			for (AbstractTagModel tag : tags) {
-				String path = tag.getPath();
-				if (path.startsWith(tagModel.getPath() + "/") || path.equals(tagModel.getPath())
-						|| tagModel.getPath().startsWith(path + "/")) {
-					return tag;
-				}
-			}
+		GroupPathIndex pathIndex = getPathIndex(groupId);
+		if (pathIndex == null) {
+			return null;
 		}
-		return null;
+		return pathIndex.findSharedPath(tagModel.getPath());
 	}
 
 	/**
@@ -369,19 +386,118 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 		return -1;
 	}
 
+	/**
+	 * Gets the category tag of the event.
+	 * 
+	 * @return The first event-level tag under Event/Category, or null if
+	 *         there is none.
+	 */
+	public AbstractTagModel getCategoryTag() {
+		ensureHeaderTags();
+		return categoryTag;
+	}
+
+	/**
+	 * Gets the description tag of the event.
+	 * 
+	 * @return The first event-level tag under Event/Description, or null if
+	 *         there is none.
+	 */
+	public AbstractTagModel getDescriptionTag() {
+		ensureHeaderTags();
+		return descriptionTag;
+	}
+
 	/**
 	 * Gets the label of the event.
 	 * 
 	 * @return The event label.
 	 */
 	public String getLabel() {
-		String label = new String();
-		for (AbstractTagModel tag : tagGroups.get(eventGroupId)) {
-			if (tag.getPath().startsWith("Event/Label/")) {
-				return tag.getName();
+		ensureHeaderTags();
+		return labelTag == null ? new String() : labelTag.getName();
+	}
+
+	/**
+	 * Gets the label tag of the event.
+	 * 
+	 * @return The first event-level tag under Event/Label, or null if there
+	 *         is none.
+	 */
+	public AbstractTagModel getLabelTag() {
+		ensureHeaderTags();
+		return labelTag;
+	}
+
+	/**
+	 * Gets the long name tag of the event.
+	 * 
+	 * @return The first event-level tag under Event/Long name, or null if
+	 *         there is none.
+	 */
+	public AbstractTagModel getLongNameTag() {
+		ensureHeaderTags();
+		return longNameTag;
+	}
+
+	/**
+	 * Finds the header tags again if the event-level group changed in a way
+	 * that was not followed, like a tag added to the group directly or a tag
+	 * path that was edited.
+	 */
+	private void ensureHeaderTags() {
+		TaggerSet<AbstractTagModel> eventTags = tagGroups.get(eventGroupId);
+		if (!isHeaderCurrent(eventTags)) {
+			findHeaderTags(eventTags);
+		}
+	}
+
+	/**
+	 * Scans the event-level tags for the first tag of each header field.
+	 */
+	private void findHeaderTags(TaggerSet<AbstractTagModel> eventTags) {
+		labelTag = null;
+		longNameTag = null;
+		descriptionTag = null;
+		categoryTag = null;
+		if (eventTags != null) {
+			for (AbstractTagModel tag : eventTags) {
+				headerTagAdded(tag);
 			}
 		}
-		return label;
+		headerGroup = eventTags;
+		headerModCount = eventTags == null ? 0 : eventTags.getModCount();
+		headerKeyEpoch = TaggerSet.getKeyEpoch();
+	}
+
+	/**
+	 * Keeps the header tags current after a tag was appended to the
+	 * event-level group. The tag only replaces a header field that has no tag
+	 * yet, since the first tag of each field is kept.
+	 */
+	private void headerTagAdded(AbstractTagModel tag) {
+		String path = tag.getPath();
+		if (labelTag == null && path.startsWith(LABEL_PREFIX)) {
+			labelTag = tag;
+		} else if (longNameTag == null && path.startsWith(LONG_NAME_PREFIX)) {
+			longNameTag = tag;
+		} else if (descriptionTag == null && path.startsWith(DESCRIPTION_PREFIX)) {
+			descriptionTag = tag;
+		} else if (categoryTag == null && path.startsWith(CATEGORY_PREFIX)) {
+			categoryTag = tag;
+		}
+		if (headerGroup != null) {
+			headerModCount = headerGroup.getModCount();
+		}
+	}
+
+	/**
+	 * Checks whether the header tags were found in the given group and the
+	 * group has not changed since.
+	 */
+	private boolean isHeaderCurrent(TaggerSet<AbstractTagModel> tags) {
+		return tags == headerGroup && tags != null && tags.getModCount() == headerModCount
+				&& headerKeyEpoch == TaggerSet.getKeyEpoch();
 	}
 
 	/**
@@ -412,17 +528,27 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 	 *         such tags are found for this event.
 	 */
 	public TaggerSet<AbstractTagModel> getRRValue(AbstractTagModel tagModel) {
-		TaggerSet<AbstractTagModel> desc = new TaggerSet<AbstractTagModel>();
-		TaggerSet<AbstractTagModel> eventTags = tagGroups.get(eventGroupId);
-		for (AbstractTagModel tag : eventTags) {
-			if (tag.getPath().startsWith(tagModel.getPath() + "/") || tag.getPath().equals(tagModel.getPath())) {
-				desc.add(tag);
-			}
+		return getPathIndex(eventGroupId).findSelfAndDescendants(tagModel.getPath());
+	}
+
+	/**
+	 * Gets the path index of the group with the given ID, building it again if
+	 * the group changed since it was last queried.
+	 * 
+	 * @param groupId
+	 * @return The path index of the group, or null if the group does not exist.
+	 */
+	private GroupPathIndex getPathIndex(int groupId) {
+		TaggerSet<AbstractTagModel> tags = tagGroups.get(groupId);
+		if (tags == null) {
+			return null;
 		}
-		if (desc.size() > 0) {
-			return desc;
+		GroupPathIndex pathIndex = pathIndexes.get(tags);
+		if (pathIndex == null || !pathIndex.isCurrent(tags)) {
+			pathIndex = new GroupPathIndex(tags);
+			pathIndexes.put(tags, pathIndex);
 		}
-		return null;
+		return pathIndex;
 	}
 
 	public TreeMap<Integer, TaggerSet<AbstractTagModel>> getTagGroups() {
@@ -460,8 +586,10 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 	 *         exist.
 	 */
 	public TaggerSet<AbstractTagModel> removeGroup(int groupId) {
-		TaggerSet<AbstractTagModel> tags = tagGroups.get(groupId);
-		tagGroups.remove(groupId);
+		TaggerSet<AbstractTagModel> tags = tagGroups.remove(groupId);
+		if (tags != null) {
+			pathIndexes.remove(tags);
+		}
 		return tags;
 	}
 
@@ -478,17 +606,34 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 		if (tags == null) {
 			return false;
 		}
+		boolean headerCurrent = isHeaderCurrent(tags);
 		Iterator<AbstractTagModel> it = tags.iterator();
 		while (it.hasNext()) {
 			AbstractTagModel tag = it.next();
 			if (tag.equals(tagModel)) {
 				it.remove();
+				if (headerCurrent) {
+					headerTagRemoved(tag);
+				}
 				return true;
 			}
 		}
 		return false;
 	}
 
+	/**
+	 * Keeps the header tags current after a tag was removed from the
+	 * event-level group. The group is only scanned again if the tag was one
+	 * of the header tags.
+	 */
+	private void headerTagRemoved(AbstractTagModel tag) {
+		if (tag == labelTag || tag == longNameTag || tag == descriptionTag || tag == categoryTag) {
+			findHeaderTags(headerGroup);
+		} else {
+			headerModCount = headerGroup.getModCount();
+		}
+	}
+
 	public boolean isRRTagDescendant(AbstractTagModel tagModel) {
 		Iterator<AbstractTagModel> rrTags = rrTagViews.keySet().iterator();
 		while (rrTags.hasNext()) {
@@ -523,6 +668,7 @@ public class TaggedEvent implements Comparable<TaggedEvent> {
 	}
 
 	public void setEventModel(GuiEventModel eventModel) {
+		TaggerSet.keysChanged();
 		this.guiEventModel = eventModel;
 	}
 
@@ -1,36 +1,46 @@
 package edu.utsa.tagger;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLStreamException;
 
-import com.fasterxml.jackson.core.JsonGenerationException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
 
 import edu.utsa.tagger.TagXmlModel.PredicateType;
 import edu.utsa.tagger.gui.GuiEventModel;
@@ -103,8 +113,26 @@ public class Tagger {
 	private TaggerLoader loader;
 	// Set of tags in the HED hierarchy
 	private TaggerSet<AbstractTagModel> tagList = new TaggerSet<AbstractTagModel>();
+	// Tags in the HED hierarchy keyed by exact and upper case path
+	private HashMap<String, AbstractTagModel> tagPaths = new HashMap<String, AbstractTagModel>();
+	private HashMap<String, AbstractTagModel> tagPathsUpper = new HashMap<String, AbstractTagModel>();
+	// Path epoch at which the path indexes were last known to be up to date
+	private int tagIndexEpoch = AbstractTagModel.getPathEpoch();
+	private TagPathTable tagPathTable;
+	// Trigram index of the lowercased tag paths used by the tag search, which
+	// can run on a background thread
+	private volatile TagSearchIndex tagSearchIndex = new TagSearchIndex();
+	// Child tags in hierarchy order keyed by parent path (null for top level)
+	private HashMap<String, List<AbstractTagModel>> childTags = new HashMap<String, List<AbstractTagModel>>();
+	// Compiled child tags that take values keyed by parent path
+	private HashMap<String, TakesValueMatcher[]> valueMatchers = new HashMap<String, TakesValueMatcher[]>();
+	// Shared tag models for paths that are not in the hierarchy
+	private WeakHashMap<String, WeakReference<AbstractTagModel>> transientTags = new WeakHashMap<String, WeakReference<AbstractTagModel>>();
 	// Set of events and their associated tags
 	private TaggerSet<TaggedEvent> taggedEventSet = new TaggerSet<TaggedEvent>();
+	private GroupEventMap groupEvents = new GroupEventMap();
+	// Time spent in each phase of the last tag toggle
+	private ToggleTagTiming toggleTiming = new ToggleTagTiming();
 	// Counter to create unique group IDs
 	private static int groupIdCounter = 0;
 	private static final String LabelTag = "Event/Label/";
@@ -124,12 +152,14 @@ public class Tagger {
 
 	// History of actions performed that can be undone
 	private TaggerHistory history;
+	private List<TaggerChangeListener> changeListeners = new ArrayList<TaggerChangeListener>();
 	private boolean isPrimary = true;
 	private int tagLevel = 0;
 	private boolean hedEdited = false;
 	private boolean editTags = false;
 	private String[] tsvHeader = { "Event code", "Event category", "Event label", "Event long name",
 			"Event description", "Other tags" };
+	private TabDelimitedEventWriter tsvWriter = new TabDelimitedEventWriter();
 
 	/**
 	 * Constructor creates the Tagger with no data loaded.
@@ -171,8 +201,8 @@ public class Tagger {
 		// Unmarshal XML String
 		TaggerDataXmlModel savedDataXmlModel = null;
 		try {
-			JAXBContext context = JAXBContext.newInstance(TaggerDataXmlModel.class);
-			savedDataXmlModel = (TaggerDataXmlModel) context.createUnmarshaller().unmarshal(new StringReader(xmlData));
+			savedDataXmlModel = (TaggerDataXmlModel) XmlContextRegistry.getUnmarshaller(TaggerDataXmlModel.class)
+					.unmarshal(new StringReader(xmlData));
 		} catch (JAXBException e) {
 			throw new RuntimeException("Unable to read XML data: " + e.getMessage());
 		}
@@ -203,13 +233,17 @@ public class Tagger {
 		history = new TaggerHistory(this);
 		editTags = loader.checkFlags(TaggerLoader.TAG_EDIT_ALL);
 		tagList = new TaggerSet<AbstractTagModel>();
-		taggedEventSet = new TaggerSet<TaggedEvent>();
+		setTaggedEventSet(new TaggerSet<TaggedEvent>());
+		clearTagIndex();
 		try {
-			HedXmlModel hedXmlModel = readHedXmlString(hedXmlString);
-			populateTagList(hedXmlModel);
+			populateTagList(hedXmlString);
 			if (loader.checkFlags(TaggerLoader.USE_JSON)) {
-				Set<EventJsonModel> eventJsonModels = readEventJsonString(egtString);
-				populateEventsFromJson(eventJsonModels);
+				JsonParser parser = JsonMapperRegistry.getFactory().createParser(egtString);
+				try {
+					populateEventsFromJson(parser);
+				} finally {
+					parser.close();
+				}
 			} else {
 				BufferedReader egtReader = new BufferedReader(new StringReader(egtString));
 				populateEventsFromTabDelimitedText(egtReader);
@@ -219,6 +253,17 @@ public class Tagger {
 		}
 	}
 
+	/**
+	 * Adds a listener that is notified after each change made to the events
+	 * or the tag hierarchy, including the changes made by undo and redo.
+	 * 
+	 * @param listener
+	 *            The listener to add.
+	 */
+	public void addChangeListener(TaggerChangeListener listener) {
+		changeListeners.add(listener);
+	}
+
 	/**
 	 * Adds an event to a particular index.
 	 * 
@@ -229,7 +274,11 @@ public class Tagger {
 	 * @return True if the event has been added, false if otherwise.
 	 */
 	public boolean addEventBase(int index, TaggedEvent event) {
-		return taggedEventSet.add(index, event);
+		if (!taggedEventSet.add(index, event)) {
+			return false;
+		}
+		groupEvents.putAll(event);
+		return true;
 	}
 
 	/**
@@ -241,7 +290,11 @@ public class Tagger {
 	 *         otherwise.
 	 */
 	public boolean addEventBase(TaggedEvent event) {
-		return taggedEventSet.add(event);
+		if (!taggedEventSet.add(event)) {
+			return false;
+		}
+		groupEvents.putAll(event);
+		return true;
 	}
 
 	/**
@@ -275,6 +328,20 @@ public class Tagger {
 		this.isPrimary = isPrimary;
 	}
 
+	/**
+	 * Replaces the events and rebuilds the index of their groups.
+	 * 
+	 * @param events
+	 *            The new events.
+	 */
+	private void setTaggedEventSet(TaggerSet<TaggedEvent> events) {
+		taggedEventSet = events;
+		groupEvents.clear();
+		for (TaggedEvent event : events) {
+			groupEvents.putAll(event);
+		}
+	}
+
 	/**
 	 * Sets to true if the HED XML has been modified, false if otherwise.
 	 * 
@@ -300,6 +367,7 @@ public class Tagger {
 		if (!taggedEvent.addGroup(groupId)) {
 			return false;
 		}
+		groupEvents.put(groupId, taggedEvent);
 		for (AbstractTagModel tag : tags) {
 			taggedEvent.addTagToGroup(groupId, tag);
 		}
@@ -331,6 +399,7 @@ public class Tagger {
 			historyItem.type = TaggerHistory.Type.EVENT_ADDED;
 			historyItem.event = taggedEvent;
 			history.add(historyItem);
+			fireChange(TaggerChangeEvent.Type.EVENT_ADDED, null, taggedEvent);
 		}
 		return taggedEvent;
 	}
@@ -345,12 +414,14 @@ public class Tagger {
 	public int addNewGroup(TaggedEvent taggedEvent) {
 		int groupId = groupIdCounter++;
 		if (taggedEvent.addGroup(groupId)) {
+			groupEvents.put(groupId, taggedEvent);
 			HistoryItem historyItem = new HistoryItem();
 			historyItem.type = TaggerHistory.Type.GROUP_ADDED;
 			historyItem.event = taggedEvent;
 			historyItem.groupId = groupId;
 			historyItem.tags = taggedEvent.getTagGroups().get(groupId);
 			history.add(historyItem);
+			fireChange(TaggerChangeEvent.Type.GROUP_ADDED, null, taggedEvent);
 		}
 		return groupId;
 	}
@@ -373,6 +444,7 @@ public class Tagger {
 					selectedEvents.add(event);
 					groupIdCounter++;
 					event.addGroup(groupIdCounter);
+					groupEvents.put(groupIdCounter, event);
 					newEventGroupIds.add(Integer.valueOf(groupIdCounter));
 					eventSelected = true;
 				}
@@ -385,6 +457,7 @@ public class Tagger {
 			historyItem.groupIds = newEventGroupIds;
 			historyItem.tags = tags;
 			history.add(historyItem);
+			fireChange(TaggerChangeEvent.Type.GROUP_ADDED, null, selectedEvents);
 		}
 		return newEventGroupIds;
 	}
@@ -424,6 +497,7 @@ public class Tagger {
 			historyItem.type = TaggerHistory.Type.TAG_ADDED;
 			historyItem.tagModel = newTag;
 			history.add(historyItem);
+			fireHierarchyEdited(newTag);
 			return newTag;
 		}
 		return null;
@@ -439,16 +513,15 @@ public class Tagger {
 	 */
 	public boolean addTagModelBase(AbstractTagModel newTagModel) {
 		if (newTagModel.getParentPath() == null) {
-			return tagList.add(newTagModel);
-		}
-		String parentPath = newTagModel.getParentPath();
-		int i = 0;
-		for (; i < tagList.size(); i++) {
-			AbstractTagModel tagModel = tagList.get(i);
-			if (tagModel.getPath().equals(parentPath)) {
-				break;
+			if (tagList.add(newTagModel)) {
+				indexTag(newTagModel);
+				return true;
 			}
+			return false;
 		}
+		String parentPath = newTagModel.getParentPath();
+		AbstractTagModel parentTag = tagPaths.get(parentPath);
+		int i = parentTag == null ? tagList.size() : tagList.indexOf(parentTag);
 		for (; i < tagList.size(); i++) {
 			AbstractTagModel tagModel = tagList.get(i);
 			if (!tagModel.getPath().startsWith(parentPath)) {
@@ -456,6 +529,7 @@ public class Tagger {
 			}
 		}
 		if (tagList.add(i, newTagModel)) {
+			indexTag(newTagModel);
 			updateTagLists();
 			sortRRTags();
 			return true;
@@ -465,6 +539,7 @@ public class Tagger {
 
 	public boolean addTagModelBase(int index, AbstractTagModel newTagModel) {
 		if (tagList.add(index, newTagModel)) {
+			indexTag(newTagModel);
 			updateTagLists();
 			sortRRTags();
 			return true;
@@ -488,6 +563,7 @@ public class Tagger {
 			historyItem.groupsIds = affectedGroups;
 			historyItem.tagModel = tagModel;
 			history.add(historyItem);
+			fireGroupsChanged(TaggerChangeEvent.Type.TAG_ADDED, tagModel, affectedGroups);
 		}
 	}
 
@@ -509,6 +585,7 @@ public class Tagger {
 			historyItem.groupsIds = affectedGroups;
 			historyItem.tagModel = tagModel;
 			history.add(historyItem);
+			fireGroupsChanged(TaggerChangeEvent.Type.TAG_ADDED, tagModel, affectedGroups);
 		}
 	}
 
@@ -529,6 +606,7 @@ public class Tagger {
 			historyItem.groupsIds = affectedGroups;
 			historyItem.tagModel = tagModel;
 			history.add(historyItem);
+			fireGroupsChanged(TaggerChangeEvent.Type.TAG_ADDED, tagModel, affectedGroups);
 		}
 	}
 
@@ -572,57 +650,6 @@ public class Tagger {
 		return affectedGroups;
 	}
 
-	/**
-	 * Builds the event JSON models from the current state of the egtSet.
-	 * 
-	 * @return <code>Set<EventJsonModel></code> constructed
-	 */
-	private Set<EventJsonModel> buildEventJsonModels() {
-		Set<EventJsonModel> result = new LinkedHashSet<EventJsonModel>();
-		for (TaggedEvent event : taggedEventSet) {
-			EventJsonModel jsonEvent = new EventJsonModel();
-			jsonEvent.setCode(event.getEventModel().getCode());
-			List<List<String>> tags = new ArrayList<List<String>>();
-			for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> entry : event.getTagGroups().entrySet()) {
-				if (entry.getKey() == event.getEventGroupId()) {
-					// Event level tags
-					for (AbstractTagModel tag : entry.getValue()) {
-						ArrayList<String> eventTags = new ArrayList<String>();
-						eventTags.add(tag.getPath());
-						tags.add(eventTags);
-					}
-				} else {
-					// Tag groups
-					ArrayList<String> groupTags = new ArrayList<String>();
-					for (AbstractTagModel tag : entry.getValue()) {
-						groupTags.add(tag.getPath());
-					}
-					tags.add(groupTags);
-				}
-			}
-			jsonEvent.setTags(tags);
-			result.add(jsonEvent);
-		}
-		return result;
-	}
-
-	/**
-	 * Builds the XML model of the data.
-	 * 
-	 * @return An XML model representing the data.
-	 */
-	private TaggerDataXmlModel buildSavedDataModel() {
-		TaggerDataXmlModel savedDataModel = new TaggerDataXmlModel();
-		savedDataModel.setEventSetXmlModel(eventToXmlModel());
-		HedXmlModel hedModel = new HedXmlModel();
-		TagXmlModel dummy = tagsToXmlModel();
-		hedModel.setTags(dummy.getTags());
-		hedModel.setVersion(version);
-		savedDataModel.setHedXmlModel(hedModel);
-		savedDataModel.getHedXmlModel().setUnitClasses(unitClassesToXmlModel());
-		return savedDataModel;
-	}
-
 	/**
 	 * Checks whether tags can be edited given the load options.
 	 * 
@@ -632,31 +659,6 @@ public class Tagger {
 		return editTags;
 	}
 
-	/**
-	 * Combines the columns represented in an array.
-	 * 
-	 * @param delimiter
-	 *            The delimiter used to separate the elements in the array.
-	 * @param cols
-	 *            The column values.
-	 * @param colNums
-	 *            The indecies used to combine the column values.
-	 * @return A string representing the column values combined.
-	 */
-	private String combineColumns(String delimiter, String[] cols, int[] colNums) {
-		String combinedCols = new String();
-		for (int i = 0; i < colNums.length; i++) {
-			try {
-				if (!cols[colNums[i] - 1].trim().isEmpty())
-					combinedCols += delimiter + cols[colNums[i] - 1].trim().replaceAll("~", ",~,");
-			} catch (Exception ex) {
-				continue;
-			}
-		}
-		combinedCols = combinedCols.replaceFirst(delimiter, "");
-		return combinedCols;
-	}
-
 	/**
 	 * Creates a new TaggedEvent with the given code. The event returned has its
 	 * code and tag groupID set.
@@ -684,6 +686,7 @@ public class Tagger {
 	private void createTagSetFromXml(Set<TagXmlModel> tagXmlModels) {
 		tagLevel = 0;
 		createTagSetRecursive(new String(), tagXmlModels, -1);
+		compileValueMatchers();
 		sortRRTags();
 	}
 
@@ -700,54 +703,81 @@ public class Tagger {
 	 *            The level of the tag.
 	 */
 	private int createTagSetRecursive(String path, Set<TagXmlModel> tagXmlModels, int level) {
-		tagLevel = Math.max(tagLevel, level);
 		level++;
-		Object[] highlights = Arrays.copyOfRange(GuiTagModel.Highlight.values(), 4,
-				GuiTagModel.Highlight.values().length);
-		AbstractTagModel parentTag = tagFound(path);
 		for (TagXmlModel tagXmlModel : tagXmlModels) {
-			AbstractTagModel tagModel = factory.createAbstractTagModel(this);
-			if (path.isEmpty())
-				tagModel.setPath(tagXmlModel.getName());
-			else
-				tagModel.setPath(path + "/" + tagXmlModel.getName());
-			tagModel.setDescription(tagXmlModel.getDescription());
-			tagModel.setChildRequired(tagXmlModel.isChildRequired());
-			tagModel.setTakesValue(tagXmlModel.takesValue());
-			tagModel.setExtensionAllowed(tagXmlModel.isExtensionAllowed());
-			tagModel.setRecommended(tagXmlModel.isRecommended());
-			tagModel.setRequired(tagXmlModel.isRequired());
-			tagModel.setUnique(tagXmlModel.isUnique());
-			if (parentTag != null && PredicateType.PROPERTYOF.equals(parentTag.getPredicateType())) {
-				tagModel.setPredicateType(PredicateType.PROPERTYOF);
-			} else {
-				tagModel.setPredicateType(PredicateType.valueOf(tagXmlModel.getPredicateType().toUpperCase()));
-			}
-			tagModel.setPosition(tagXmlModel.getPosition());
-			tagModel.setIsNumeric(tagXmlModel.isNumeric());
-			tagModel.setUnitClass(tagXmlModel.getUnitClass());
-			tagList.add(tagModel);
-			GuiTagModel guiTagModel = (GuiTagModel) tagModel;
-			guiTagModel.setHighlight((Highlight) highlights[level]);
-			if (tagModel.isRequired()) {
-				requiredTags.add(tagModel);
-			} else if (tagModel.isRecommended()) {
-				recommendedTags.add(tagModel);
-			}
-			if (tagModel.isUnique()) {
-				uniqueTags.add(tagModel);
-			}
-			if (tagModel.isExtensionAllowed()) {
-				extensionAllowedTags.add(tagModel);
-			}
-			if (path.isEmpty())
-				createTagSetRecursive(tagXmlModel.getName(), tagXmlModel.getTags(), level);
-			else
-				createTagSetRecursive(path + "/" + tagXmlModel.getName(), tagXmlModel.getTags(), level);
+			AbstractTagModel tagModel = createTagFromXml(path, tagXmlModel, level);
+			createTagSetRecursive(tagModel.getPath(), tagXmlModel.getTags(), level);
 		}
 		return level;
 	}
 
+	/**
+	 * Creates a tag from the given XML model and adds it to the tag set. It
+	 * also adds the tag to the lists of required, recommended, unique, and
+	 * extension allowed tags. The children of the XML model are not added.
+	 * 
+	 * @param parentPath
+	 *            The path of the parent tag, empty for a top-level tag.
+	 * @param tagXmlModel
+	 *            The TagXmlModel that represents the tag.
+	 * @param level
+	 *            The level of the tag.
+	 * @return The AbstractTagModel representing the tag.
+	 */
+	AbstractTagModel createTagFromXml(String parentPath, TagXmlModel tagXmlModel, int level) {
+		AbstractTagModel parentTag = tagFound(parentPath);
+		AbstractTagModel tagModel = factory.createAbstractTagModel(this);
+		if (parentPath.isEmpty())
+			tagModel.setPath(tagXmlModel.getName());
+		else
+			tagModel.setPath(parentPath + "/" + tagXmlModel.getName());
+		tagModel.setDescription(tagXmlModel.getDescription());
+		tagModel.setChildRequired(tagXmlModel.isChildRequired());
+		tagModel.setTakesValue(tagXmlModel.takesValue());
+		tagModel.setExtensionAllowed(tagXmlModel.isExtensionAllowed());
+		tagModel.setRecommended(tagXmlModel.isRecommended());
+		tagModel.setRequired(tagXmlModel.isRequired());
+		tagModel.setUnique(tagXmlModel.isUnique());
+		if (parentTag != null && PredicateType.PROPERTYOF.equals(parentTag.getPredicateType())) {
+			tagModel.setPredicateType(PredicateType.PROPERTYOF);
+		} else {
+			tagModel.setPredicateType(PredicateType.valueOf(tagXmlModel.getPredicateType().toUpperCase()));
+		}
+		tagModel.setPosition(tagXmlModel.getPosition());
+		tagModel.setIsNumeric(tagXmlModel.isNumeric());
+		tagModel.setUnitClass(tagXmlModel.getUnitClass());
+		addTagToHierarchy(tagModel, level);
+		return tagModel;
+	}
+
+	/**
+	 * Adds a tag that is being loaded to the tag set and to the lists of
+	 * required, recommended, unique, and extension allowed tags.
+	 * 
+	 * @param tagModel
+	 *            The AbstractTagModel representing the tag.
+	 * @param level
+	 *            The level of the tag.
+	 */
+	void addTagToHierarchy(AbstractTagModel tagModel, int level) {
+		tagLevel = Math.max(tagLevel, level);
+		tagList.add(tagModel);
+		indexTag(tagModel);
+		GuiTagModel guiTagModel = (GuiTagModel) tagModel;
+		guiTagModel.setHighlight(Highlight.values()[level + 4]);
+		if (tagModel.isRequired()) {
+			requiredTags.add(tagModel);
+		} else if (tagModel.isRecommended()) {
+			recommendedTags.add(tagModel);
+		}
+		if (tagModel.isUnique()) {
+			uniqueTags.add(tagModel);
+		}
+		if (tagModel.isExtensionAllowed()) {
+			extensionAllowedTags.add(tagModel);
+		}
+	}
+
 	/**
 	 * Creates a tag model that is an instance of a tag that takes values. It
 	 * sets the name according to the value string.
@@ -779,6 +809,293 @@ public class Tagger {
 		}
 	}
 
+	/**
+	 * Adds the tag to the child list of its parent, keeping the list in the
+	 * same order as the tag list.
+	 * 
+	 * @param tag
+	 *            The AbstractTagModel representing the tag.
+	 */
+	private void addChildTag(AbstractTagModel tag) {
+		List<AbstractTagModel> siblings = childTags.get(tag.getParentPath());
+		if (siblings == null) {
+			siblings = new ArrayList<AbstractTagModel>();
+			childTags.put(tag.getParentPath(), siblings);
+		}
+		valueMatchers.remove(tag.getParentPath());
+		int position = tagList.indexOf(tag);
+		int low = 0;
+		int high = siblings.size();
+		if (high > 0 && tagList.indexOf(siblings.get(high - 1)) < position) {
+			low = high;
+		}
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (tagList.indexOf(siblings.get(mid)) < position) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		siblings.add(low, tag);
+	}
+
+	/**
+	 * Checks if a tag model is used by any event other than the given event.
+	 * 
+	 * @param taggedEvent
+	 *            The TaggedEvent containing the tag.
+	 * @param tag
+	 *            The AbstractTagModel representing the tag.
+	 * @return True if another event has the same tag model, false otherwise.
+	 */
+	private boolean isTagShared(TaggedEvent taggedEvent, AbstractTagModel tag) {
+		for (TaggedEvent otherEvent : taggedEventSet) {
+			if (otherEvent == taggedEvent) {
+				continue;
+			}
+			for (TaggerSet<AbstractTagModel> tags : otherEvent.getTagGroups().values()) {
+				for (int i = 0; i < tags.size(); i++) {
+					if (tags.get(i) == tag) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Replaces a shared tag model that is not in the hierarchy with a copy used
+	 * only by the given event, so that the tag can be renamed or edited for
+	 * that event alone. A tag model that no other event uses is kept.
+	 * 
+	 * @param taggedEvent
+	 *            The TaggedEvent containing the tag.
+	 * @param tag
+	 *            The AbstractTagModel representing the tag.
+	 * @return The tag model now used by the event.
+	 */
+	public AbstractTagModel unshareTag(TaggedEvent taggedEvent, AbstractTagModel tag) {
+		if (findTagPath(tag.getPath()) == tag || !isTagShared(taggedEvent, tag)) {
+			return tag;
+		}
+		AbstractTagModel copy = factory.createAbstractTagModel(this);
+		copy.setPath(tag.getPath());
+		((GuiTagModel) copy).setMissing(((GuiTagModel) tag).isMissing());
+		for (TaggerSet<AbstractTagModel> tags : taggedEvent.getTagGroups().values()) {
+			for (int i = 0; i < tags.size(); i++) {
+				if (tags.get(i) == tag) {
+					tags.set(i, copy);
+				}
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Forgets the shared tag models for paths that are not in the hierarchy,
+	 * since whether they are missing may have changed. Tags already in events
+	 * keep their models.
+	 */
+	private void clearTransientTags() {
+		if (!transientTags.isEmpty()) {
+			transientTags.clear();
+		}
+	}
+
+	/**
+	 * Clears the path and child indexes of the tags in the hierarchy.
+	 */
+	private void clearTagIndex() {
+		tagPaths = new HashMap<String, AbstractTagModel>();
+		tagPathsUpper = new HashMap<String, AbstractTagModel>();
+		tagIndexEpoch = AbstractTagModel.getPathEpoch();
+		tagPathTable = null;
+		tagSearchIndex = new TagSearchIndex();
+		childTags = new HashMap<String, List<AbstractTagModel>>();
+		valueMatchers = new HashMap<String, TakesValueMatcher[]>();
+		transientTags.clear();
+	}
+
+	/**
+	 * Compiles the child tags that take values for every tag in the hierarchy.
+	 */
+	private void compileValueMatchers() {
+		for (String parentPath : childTags.keySet()) {
+			getValueMatchers(parentPath);
+		}
+	}
+
+	/**
+	 * Adds the descendants of the given tag to the result in hierarchy order.
+	 * 
+	 * @param tag
+	 *            The AbstractTagModel representing the tag.
+	 * @param result
+	 *            The set that the descendants are added to.
+	 */
+	private void collectDescendants(AbstractTagModel tag, TaggerSet<AbstractTagModel> result) {
+		List<AbstractTagModel> children = childTags.get(tag.getPath());
+		if (children == null) {
+			return;
+		}
+		for (AbstractTagModel child : children) {
+			result.add(child);
+			collectDescendants(child, result);
+		}
+	}
+
+	/**
+	 * Gets a read-only copy of the path index that the threads loading events
+	 * can look tags up in, copying the index if it has changed.
+	 * 
+	 * @return The path index as a TagPathTable.
+	 */
+	TagPathTable getTagPathTable() {
+		if (tagPathTable == null) {
+			tagPathTable = new TagPathTable(tagPaths);
+		}
+		return tagPathTable;
+	}
+
+	/**
+	 * Finds the tag in the hierarchy with exactly the given path. The path
+	 * indexes are rebuilt if the path of a tag was changed outside of the
+	 * Tagger, whether or not the lookup finds a tag.
+	 * 
+	 * @param tagPath
+	 *            The path of the tag.
+	 * @return The tag if found, null if otherwise.
+	 */
+	private AbstractTagModel findTagPath(String tagPath) {
+		AbstractTagModel tag = tagPaths.get(tagPath);
+		if (tag != null ? !tag.getPath().equals(tagPath) : tagIndexEpoch != AbstractTagModel.getPathEpoch()) {
+			// Path of a tag may have been changed outside of the Tagger
+			rebuildTagIndex();
+			tag = tagPaths.get(tagPath);
+		}
+		return tag;
+	}
+
+	/**
+	 * Gets the compiled child tags that take values for the given parent,
+	 * compiling them if the children have changed since they were last used.
+	 * 
+	 * @param parentPath
+	 *            The path of the parent tag, null for the top level.
+	 * @return The compiled child tags that take values.
+	 */
+	private TakesValueMatcher[] getValueMatchers(String parentPath) {
+		TakesValueMatcher[] matchers = valueMatchers.get(parentPath);
+		if (matchers == null) {
+			ArrayList<TakesValueMatcher> compiled = new ArrayList<TakesValueMatcher>();
+			List<AbstractTagModel> children = childTags.get(parentPath);
+			if (children != null) {
+				for (AbstractTagModel child : children) {
+					if (child.takesValue() && child.getName().indexOf('#') != -1) {
+						compiled.add(new TakesValueMatcher(child));
+					}
+				}
+			}
+			matchers = compiled.toArray(new TakesValueMatcher[compiled.size()]);
+			valueMatchers.put(parentPath, matchers);
+		}
+		return matchers;
+	}
+
+	/**
+	 * Adds the tag to the path and child indexes of the hierarchy. The tag
+	 * must already be in the tag list.
+	 * 
+	 * @param tag
+	 *            The AbstractTagModel representing the tag.
+	 */
+	private void indexTag(AbstractTagModel tag) {
+		clearTransientTags();
+		if (!tagPaths.containsKey(tag.getPath())) {
+			tagPaths.put(tag.getPath(), tag);
+			tagPathTable = null;
+			tagSearchIndex.add(tag);
+			addChildTag(tag);
+		}
+		String upperPath = tag.getPath().toUpperCase();
+		if (!tagPathsUpper.containsKey(upperPath)) {
+			tagPathsUpper.put(upperPath, tag);
+		}
+	}
+
+	/**
+	 * Rebuilds the path and child indexes from the current tag list.
+	 */
+	private void rebuildTagIndex() {
+		clearTagIndex();
+		for (AbstractTagModel tag : tagList) {
+			indexTag(tag);
+		}
+	}
+
+	/**
+	 * Sets the path of a tag and keeps the path and child indexes in sync if
+	 * the tag is in the hierarchy. The child list of the tag moves with it.
+	 * 
+	 * @param tag
+	 *            The AbstractTagModel representing the tag.
+	 * @param path
+	 *            The new path of the tag.
+	 */
+	private void setTagPath(AbstractTagModel tag, String path) {
+		boolean indexed = tag.getPath() != null && tagPaths.get(tag.getPath()) == tag;
+		boolean upToDate = tagIndexEpoch == AbstractTagModel.getPathEpoch();
+		List<AbstractTagModel> children = null;
+		if (indexed) {
+			unindexTag(tag);
+			children = childTags.remove(tag.getPath());
+			valueMatchers.remove(tag.getPath());
+		}
+		tag.setPath(path);
+		if (indexed) {
+			indexTag(tag);
+			if (children != null) {
+				childTags.put(path, children);
+			}
+		}
+		if (upToDate) {
+			// The indexes follow this change, so they are still up to date
+			tagIndexEpoch = AbstractTagModel.getPathEpoch();
+		}
+	}
+
+	/**
+	 * Removes the tag from the path indexes of the hierarchy and from the child
+	 * list of its parent.
+	 * 
+	 * @param tag
+	 *            The AbstractTagModel representing the tag.
+	 */
+	private void unindexTag(AbstractTagModel tag) {
+		clearTransientTags();
+		if (tagPaths.get(tag.getPath()) == tag) {
+			tagPaths.remove(tag.getPath());
+			tagPathTable = null;
+			tagSearchIndex.remove(tag);
+			valueMatchers.remove(tag.getParentPath());
+			List<AbstractTagModel> siblings = childTags.get(tag.getParentPath());
+			if (siblings != null) {
+				for (int i = 0; i < siblings.size(); i++) {
+					if (siblings.get(i) == tag) {
+						siblings.remove(i);
+						break;
+					}
+				}
+			}
+		}
+		String upperPath = tag.getPath().toUpperCase();
+		if (tagPathsUpper.get(upperPath) == tag) {
+			tagPathsUpper.remove(upperPath);
+		}
+	}
+
 	public IFactory getFactory() {
 		return factory;
 	}
@@ -799,6 +1116,7 @@ public class Tagger {
 		historyItem.tagModelPosition = tagPosition;
 		historyItem.tags = removedTags;
 		history.add(historyItem);
+		fireHierarchyEdited(tag);
 	}
 
 	/**
@@ -810,17 +1128,19 @@ public class Tagger {
 	 */
 	public TaggerSet<AbstractTagModel> deleteTagBase(AbstractTagModel tag) {
 		TaggerSet<AbstractTagModel> removedTags = new TaggerSet<AbstractTagModel>();
-		String path = tag.getPath();
-		tagList.remove(tag);
 		removedTags.add(tag);
-		String prefix = path + "/"; // Prefix for descendants
-		Iterator<AbstractTagModel> it = tagList.iterator();
-		while (it.hasNext()) {
-			AbstractTagModel currentTag = it.next();
-			if (currentTag.getPath().startsWith(prefix)) {
-				it.remove();
-				removedTags.add(currentTag);
+		AbstractTagModel hierarchyTag = findTagPath(tag.getPath());
+		if (hierarchyTag != null) {
+			collectDescendants(hierarchyTag, removedTags);
+		}
+		tagList.removeAll(new HashSet<AbstractTagModel>(removedTags));
+		for (AbstractTagModel removedTag : removedTags) {
+			if (removedTag != tag) {
+				unindexTag(removedTag);
+			} else if (hierarchyTag != null) {
+				unindexTag(hierarchyTag);
 			}
+			childTags.remove(removedTag.getPath());
 		}
 		updateTagLists();
 		return removedTags;
@@ -842,6 +1162,7 @@ public class Tagger {
 		historyItem.eventModel = event;
 		historyItem.eventModelCopy = copy;
 		history.add(historyItem);
+		fireEventEdited(event);
 	}
 
 	/**
@@ -881,9 +1202,10 @@ public class Tagger {
 		historyItem.eventModel = taggedEvent.getEventModel();
 		historyItem.eventModelCopy = copy;
 		if (tag != null && !label.trim().isEmpty()) {
+			tag = unshareTag(taggedEvent, tag);
 			historyItem.type = TaggerHistory.Type.EVENT_EDITED;
 			historyItem.tagModel = tag;
-			tag.setPath(LabelTag + label);
+			setTagPath(tag, LabelTag + label);
 			historyItem.tagModelCopy = (GuiTagModel) tag;
 			history.add(historyItem);
 		} else if (tag != null && label.trim().isEmpty()) {
@@ -898,6 +1220,7 @@ public class Tagger {
 				associate(historyItem, labelTag, tagGroups.keySet());
 			}
 		}
+		fireChange(TaggerChangeEvent.Type.EVENT_EDITED, null, taggedEvent);
 	}
 
 	/**
@@ -936,7 +1259,7 @@ public class Tagger {
 		historyItem.eventModel = event;
 		historyItem.eventModelCopy = copy;
 		history.add(historyItem);
-
+		fireEventEdited(event);
 	}
 
 	/**
@@ -994,6 +1317,7 @@ public class Tagger {
 			historyItem.tagModel = tag;
 			history.add(historyItem);
 		}
+		fireHierarchyEdited(tag);
 	}
 
 	/**
@@ -1052,6 +1376,8 @@ public class Tagger {
 		tag.setUnique(unique);
 		tag.setPosition(position);
 		tag.setPredicateType(predicateType);
+		valueMatchers.remove(tag.getParentPath());
+		clearTransientTags();
 		updateTagLists();
 		return copy;
 	}
@@ -1094,7 +1420,7 @@ public class Tagger {
 		copy.setRecommended(tag.isRecommended());
 		copy.setUnique(tag.isUnique());
 		copy.setPosition(tag.getPosition());
-		tag.setPath(path);
+		setTagPath(tag, path);
 		if (!name.isEmpty()) {
 			updateTagName(tag, name);
 		}
@@ -1108,6 +1434,8 @@ public class Tagger {
 		tag.setRecommended(recommended);
 		tag.setUnique(unique);
 		tag.setPosition(position);
+		valueMatchers.remove(tag.getParentPath());
+		clearTransientTags();
 		updateTagLists();
 		return copy;
 	}
@@ -1124,11 +1452,14 @@ public class Tagger {
 	 *            The tag path.
 	 */
 	public void editTagPath(TaggedEvent taggedEvent, GuiTagModel tag, String path) {
+		// Tags that are not in the hierarchy can be shared with other events,
+		// which must keep their paths
+		tag = (GuiTagModel) unshareTag(taggedEvent, tag);
 		HistoryItem historyItem = new HistoryItem();
 		historyItem.type = TaggerHistory.Type.TAG_PATH_EDITED;
 		historyItem.tagModelCopy = editTagPathBase(tag, path);
 		String[] paths = path.split("/");
-		tag.setPath(path);
+		setTagPath(tag, path);
 		historyItem.tagModel = tag;
 		if (path.startsWith("Event/Label/")) {
 			historyItem.eventModelCopy = taggedEvent.getEventModel();
@@ -1140,6 +1471,7 @@ public class Tagger {
 			historyItem.eventModel = taggedEvent.getEventModel();
 		}
 		history.add(historyItem);
+		fireHierarchyEdited(tag);
 	}
 
 	/**
@@ -1154,51 +1486,28 @@ public class Tagger {
 	public GuiTagModel editTagPathBase(GuiTagModel tag, String path) {
 		GuiTagModel copy = (GuiTagModel) factory.createAbstractTagModel(this);
 		copy.setPath(tag.getPath());
-		tag.setPath(path);
+		setTagPath(tag, path);
 		return copy;
 	}
 
 	/**
-	 * Creates all of the XML models needed to represent the data in XML format.
+	 * Finds the last event, in the order of the events, that contains any of
+	 * the given groups.
 	 * 
-	 * @return Complete XML model containing all of the Tagger data to save,
-	 *         ready to marshal with JAXB.
+	 * @param groupIds
+	 *            The group IDs.
+	 * @return The event found, or null if no event contains the groups.
 	 */
-	private EventSetXmlModel eventToXmlModel() {
-		EventSetXmlModel eventSetModel = new EventSetXmlModel();
-		EventXmlModel currentEvent = null;
-		GroupXmlModel currentGroup = null;
-		for (TaggedEvent currentEventModel : taggedEventSet) {
-			// Create event XML
-			currentEvent = new EventXmlModel();
-			currentEvent.setCode(currentEventModel.getEventModel().getCode());
-			eventSetModel.addEvent(currentEvent);
-			for (Entry<Integer, TaggerSet<AbstractTagModel>> tagGroup : currentEventModel.getTagGroups().entrySet()) {
-				if (tagGroup.getKey() == currentEventModel.getEventGroupId()) {
-					// Add event-level tags
-					for (AbstractTagModel tag : tagGroup.getValue()) {
-						currentEvent.addTag(tag.getPath());
-					}
-				} else {
-					// Add tag groups
-					currentGroup = new GroupXmlModel();
-					for (AbstractTagModel tag : tagGroup.getValue()) {
-						currentGroup.addTag(tag.getPath());
-					}
-					currentEvent.addGroup(currentGroup);
-				}
-			}
-		}
-		return eventSetModel;
-	}
-
 	public TaggedEvent findGroupInEvent(Set<Integer> groupIds) {
 		TaggedEvent foundEvent = null;
-		for (TaggedEvent event : taggedEventSet) {
-			Iterator<Integer> groupIdIterator = groupIds.iterator();
-			while (groupIdIterator.hasNext()) {
-				if (event.containsGroup(groupIdIterator.next())) {
+		int foundPosition = -1;
+		for (Integer groupId : groupIds) {
+			TaggedEvent event = findEventByGroupId(groupId);
+			if (event != null && event != foundEvent) {
+				int position = taggedEventSet.indexOf(event);
+				if (position > foundPosition) {
 					foundEvent = event;
+					foundPosition = position;
 				}
 			}
 		}
@@ -1242,26 +1551,6 @@ public class Tagger {
 		return result;
 	}
 
-	/**
-	 * Formats the tag path.
-	 * 
-	 * @param tags
-	 *            An array of tags.
-	 * @return An array of formatted tags.
-	 */
-	private String[] formatTags(String[] tags) {
-		List<String> tagsList = Arrays.asList(tags);
-		for (int i = 0; i < tagsList.size(); i++) {
-			if (tagsList.get(i) == null) {
-				tagsList.remove(i);
-			} else {
-				tagsList.set(i, tagsList.get(i).trim().replaceAll("^/", ""));
-				tagsList.set(i, tagsList.get(i).replaceAll("\"", ""));
-			}
-		}
-		return tagsList.toArray(new String[tagsList.size()]);
-	}
-
 	/**
 	 * Checks to see whether the given tag has only one child tag that takes
 	 * values, and returns this child tag. It does not return a tag is the child
@@ -1273,22 +1562,29 @@ public class Tagger {
 	 *         or null otherwise.
 	 */
 	public AbstractTagModel getChildValueTag(AbstractTagModel tagModel) {
-		int count = 0;
-		AbstractTagModel valueTag = null;
-		for (AbstractTagModel t : tagList) {
-			if (t.getDepth() > tagModel.getDepth() && t.getPath().startsWith(tagModel.getPath() + "/")) {
-				count++;
-				if (t.takesValue()) {
-					valueTag = t;
-				}
-			}
-		}
-		if (count == 1) {
-			return valueTag;
+		List<AbstractTagModel> children = getChildTags(tagModel);
+		if (children.size() == 1 && children.get(0).takesValue() && !hasChildTags(children.get(0))) {
+			return children.get(0);
 		}
 		return null;
 	}
 
+	/**
+	 * Gets the direct children of the given tag in the hierarchy.
+	 * 
+	 * @param tagModel
+	 *            The AbstractTagModel representing the tag.
+	 * @return An unmodifiable list of the child tags in hierarchy order, empty
+	 *         if the tag has no children.
+	 */
+	public List<AbstractTagModel> getChildTags(AbstractTagModel tagModel) {
+		List<AbstractTagModel> children = childTags.get(tagModel.getPath());
+		if (children == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(children);
+	}
+
 	public TaggerSet<TaggedEvent> getEgtSet() {
 		return taggedEventSet;
 	}
@@ -1300,15 +1596,9 @@ public class Tagger {
 	 */
 	public String getHedXmlString() {
 		StringWriter sw = new StringWriter();
-		HedXmlModel hedModel = new HedXmlModel();
-		TagXmlModel dummy = tagsToXmlModel();
-		hedModel.setTags(dummy.getTags());
 		try {
-			JAXBContext context = JAXBContext.newInstance(HedXmlModel.class);
-			Marshaller marshaller = context.createMarshaller();
-			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-			marshaller.marshal(hedModel, sw);
-		} catch (JAXBException e) {
+			new TaggerXmlStreamWriter(this).writeHed(sw, "", false);
+		} catch (Exception e) {
 			throw new RuntimeException("Unable to marshal HED XML String: " + e.getMessage());
 		}
 		return sw.toString();
@@ -1325,19 +1615,10 @@ public class Tagger {
 	 * @return A string containing the current event data in the Tagger.
 	 */
 	public String getJsonEventsString() {
-		Set<EventJsonModel> eventJsonModels = buildEventJsonModels();
 		StringWriter sw = new StringWriter();
-		ObjectMapper mapper = new ObjectMapper();
-		ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
 		try {
-			writer.writeValue(sw, eventJsonModels);
-		} catch (JsonGenerationException e) {
-			e.printStackTrace();
-			throw new RuntimeException(e.toString());
-		} catch (JsonMappingException e) {
-			e.printStackTrace();
-			throw new RuntimeException(e.toString());
-		} catch (IOException e) {
+			writeJsonEvents(JsonMapperRegistry.getFactory().createGenerator(sw));
+		} catch (IOException e) {
 			e.printStackTrace();
 			throw new RuntimeException(e.toString());
 		}
@@ -1377,22 +1658,52 @@ public class Tagger {
 	 * 
 	 * @param searchTextArg
 	 *            The search text.
-	 * @return A set of tag models matching the search parameter.
+	 * @return A set of tag models matching the search parameter, in hierarchy
+	 *         order.
 	 */
 	public TaggerSet<GuiTagModel> getSearchTags(String searchTextArg) {
 		TaggerSet<GuiTagModel> result = new TaggerSet<GuiTagModel>();
 		if (searchTextArg.isEmpty()) {
 			return null;
 		}
-		String searchText = searchTextArg.toLowerCase();
+		Set<AbstractTagModel> matches = Collections
+				.newSetFromMap(new IdentityHashMap<AbstractTagModel, Boolean>());
+		matches.addAll(tagSearchIndex.search(searchTextArg));
+		if (matches.isEmpty()) {
+			return result;
+		}
+		// Keeps the hierarchy order by going through the tag list once
 		for (AbstractTagModel tag : tagList) {
-			if (tag.getPath().toLowerCase().indexOf(searchText) != -1) {
+			if (matches.contains(tag)) {
 				result.add((GuiTagModel) tag);
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * Searches the tag set for the tags most relevant to the given search
+	 * text. Tags whose names contain the search text come first, followed by
+	 * tags that contain it earlier and by shallower tags.
+	 * 
+	 * @param searchTextArg
+	 *            The search text.
+	 * @param maxResults
+	 *            The largest number of tags returned.
+	 * @return A set of tag models matching the search parameter, most relevant
+	 *         first, or null if the search text is empty.
+	 */
+	public TaggerSet<GuiTagModel> getSearchTags(String searchTextArg, int maxResults) {
+		TaggerSet<GuiTagModel> result = new TaggerSet<GuiTagModel>();
+		if (searchTextArg.isEmpty()) {
+			return null;
+		}
+		for (AbstractTagModel tag : tagSearchIndex.searchRanked(searchTextArg, maxResults)) {
+			result.add((GuiTagModel) tag);
+		}
+		return result;
+	}
+
 	/**
 	 * Finds the set of tag models representing the sub-hierarchy based at the
 	 * given path.
@@ -1403,16 +1714,11 @@ public class Tagger {
 	 *         based at the given tag.
 	 */
 	public TaggerSet<AbstractTagModel> getSubHierarchy(String baseTagPath) {
-		AbstractTagModel atm = factory.createAbstractTagModel(this);
-		atm.setPath(baseTagPath);
-		int startIdx = tagList.indexOf(atm);
 		TaggerSet<AbstractTagModel> result = new TaggerSet<AbstractTagModel>();
-		for (int i = startIdx; i < tagList.size(); i++) {
-			AbstractTagModel currentTag = tagList.get(i);
-			if (!currentTag.getPath().startsWith(baseTagPath)) {
-				break;
-			}
-			result.add(currentTag);
+		AbstractTagModel baseTag = findTagPath(baseTagPath);
+		if (baseTag != null) {
+			result.add(baseTag);
+			collectDescendants(baseTag, result);
 		}
 		return result;
 	}
@@ -1425,12 +1731,11 @@ public class Tagger {
 	 * @return The TaggedEvent with the given group ID.
 	 */
 	public TaggedEvent getTaggedEventFromGroupId(int groupId) {
-		for (TaggedEvent tem : taggedEventSet) {
-			if (tem.containsGroup(groupId)) {
-				return tem;
-			}
+		TaggedEvent event = findEventByGroupId(groupId);
+		if (event == null) {
+			throw new RuntimeException("Unable to get event from groupid");
 		}
-		throw new RuntimeException("Unable to get event from groupid");
+		return event;
 	}
 
 	public int getTagLevel() {
@@ -1440,7 +1745,9 @@ public class Tagger {
 	/**
 	 * Finds and returns the tag model for the given path in the tag set. If
 	 * there is no such tag model, it creates a new tag model and marks it as
-	 * missing from the hierarchy.
+	 * missing from the hierarchy. Tag models that are not in the hierarchy
+	 * are shared by every caller asking for the same path until the hierarchy
+	 * changes.
 	 * 
 	 * @param path
 	 *            The path of the tag.
@@ -1449,30 +1756,39 @@ public class Tagger {
 	 */
 	public AbstractTagModel getTagModel(String path) {
 		AbstractTagModel valueTag = null;
+		AbstractTagModel tagModel = null;
 		if (!"~".equals(path)) {
 			List<String> pathAsList = splitPath(path);
 			if (pathAsList.size() > 0) {
 				// throw new RuntimeException("invalid path: " + path);
-				String parentPath = path.substring(0, path.lastIndexOf('/'));
-				for (AbstractTagModel tagModel : tagList) {
-					if (tagModel.getPath().equals(path)) {
-						return tagModel;
-					} else if (tagModel.takesValue() && tagModel.getParentPath().equals(parentPath)) {
-						if (matchTakesValueTag(tagModel.getName(), path.substring(path.lastIndexOf('/')))) {
-							valueTag = tagModel;
-							break;
-						}
-					}
+				AbstractTagModel exactTag = findTagPath(path);
+				if (exactTag != null) {
+					return exactTag;
 				}
+				WeakReference<AbstractTagModel> sharedTag = transientTags.get(path);
+				AbstractTagModel transientTag = sharedTag == null ? null : sharedTag.get();
+				if (transientTag != null && path.equals(transientTag.getPath())) {
+					return transientTag;
+				}
+				// The path of the new tag is interned with its parent path,
+				// which the child tags that take values are looked up by
+				tagModel = factory.createAbstractTagModel(this);
+				tagModel.setPath(path);
+				valueTag = matchTakesValueTag(tagModel.getParentPath(), path, path.lastIndexOf('/') + 1);
 			}
 		}
 		// Missing tag model
 		AbstractTagModel extensionAllowedAncestor = getExtensionAllowedAncestor(path);
-		AbstractTagModel tagModel = factory.createAbstractTagModel(this);
-		tagModel.setPath(path);
+		if (tagModel == null) {
+			tagModel = factory.createAbstractTagModel(this);
+			tagModel.setPath(path);
+		}
 		if (extensionAllowedAncestor == null && valueTag == null) {
 			((GuiTagModel) tagModel).setMissing(true);
 		}
+		if (!"~".equals(path)) {
+			transientTags.put(tagModel.getPath(), new WeakReference<AbstractTagModel>(tagModel));
+		}
 		return tagModel;
 	}
 
@@ -1493,16 +1809,9 @@ public class Tagger {
 	 * @throws IOException
 	 */
 	public String createTSVString() throws IOException {
-		StringWriter sw = new StringWriter();
-		BufferedWriter br = new BufferedWriter(sw);
-		writeTSVFile(br);
-		try {
-			br.close();
-		} catch (IOException e) {
-			System.err.println("Error writing events to string: " + e.getMessage());
-			return null;
-		}
-		return sw.toString();
+		StringBuilder sb = new StringBuilder();
+		tsvWriter.write(sb, tsvHeader, taggedEventSet);
+		return sb.toString();
 	}
 
 	/**
@@ -1548,13 +1857,9 @@ public class Tagger {
 	 */
 	public String getXmlDataString() {
 		StringWriter sw = new StringWriter();
-		TaggerDataXmlModel savedDataModel = buildSavedDataModel();
 		try {
-			JAXBContext context = JAXBContext.newInstance(TaggerDataXmlModel.class);
-			Marshaller marshaller = context.createMarshaller();
-			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-			marshaller.marshal(savedDataModel, sw);
-		} catch (JAXBException e) {
+			new TaggerXmlStreamWriter(this).writeTaggerData(sw, version);
+		} catch (Exception e) {
 			throw new RuntimeException("Unable to marshal XML data: " + e.getMessage());
 		}
 		return sw.toString();
@@ -1568,12 +1873,8 @@ public class Tagger {
 	 * @return True if the tag has at least one child tag, false otherwise.
 	 */
 	public boolean hasChildTags(AbstractTagModel tagModel) {
-		for (AbstractTagModel t : tagList) {
-			if (t.getDepth() > tagModel.getDepth() && t.getPath().startsWith(tagModel.getPath() + "/")) {
-				return true;
-			}
-		}
-		return false;
+		List<AbstractTagModel> children = childTags.get(tagModel.getPath());
+		return children != null && !children.isEmpty();
 	}
 
 	/**
@@ -1598,12 +1899,8 @@ public class Tagger {
 	 *         otherwise.
 	 */
 	public boolean isDuplicate(String tagPath, AbstractTagModel tagModel) {
-		for (AbstractTagModel tag : tagList) {
-			if (tag.getPath().equals(tagPath) && !tag.equals(tagModel)) {
-				return true;
-			}
-		}
-		return false;
+		AbstractTagModel tag = findTagPath(tagPath);
+		return tag != null && !tag.equals(tagModel);
 	}
 
 	/**
@@ -1642,8 +1939,8 @@ public class Tagger {
 		// Unmarshal saved data from file
 		TaggerDataXmlModel savedDataXmlModel = null;
 		try {
-			JAXBContext context = JAXBContext.newInstance(TaggerDataXmlModel.class);
-			savedDataXmlModel = (TaggerDataXmlModel) context.createUnmarshaller().unmarshal(savedData);
+			savedDataXmlModel = (TaggerDataXmlModel) XmlContextRegistry.getUnmarshaller(TaggerDataXmlModel.class)
+					.unmarshal(savedData);
 		} catch (Exception e) {
 			System.err.println("Unable to read XML file: " + e.getMessage());
 			return false;
@@ -1657,8 +1954,7 @@ public class Tagger {
 
 	public boolean loadHED(File hedFile) {
 		try {
-			HedXmlModel hedXmlModel = ReadHEDXml(hedFile);
-			populateTagList(hedXmlModel);
+			populateTagList(hedFile);
 		} catch (Exception e) {
 			System.err.println("Unable to load HED XML:\n" + e.getMessage());
 			return false;
@@ -1678,12 +1974,15 @@ public class Tagger {
 	 * @return True if the data loaded successfully, false if an error occurred.
 	 */
 	public boolean loadJSON(File egtFile, File hedFile) {
-		taggedEventSet = new TaggerSet<TaggedEvent>();
+		setTaggedEventSet(new TaggerSet<TaggedEvent>());
 		try {
-			Set<EventJsonModel> eventJsonModels = populateJSONList(egtFile);
-			populateEventsFromJson(eventJsonModels);
-			HedXmlModel hedXmlModel = ReadHEDXml(hedFile);
-			populateTagList(hedXmlModel);
+			JsonParser parser = JsonMapperRegistry.getFactory().createParser(egtFile);
+			try {
+				populateEventsFromJson(parser);
+			} finally {
+				parser.close();
+			}
+			populateTagList(hedFile);
 		} catch (Exception e) {
 			System.err.println("Unable to load JSON:\n" + e.getMessage());
 			return false;
@@ -1693,11 +1992,8 @@ public class Tagger {
 
 	public boolean loadTabDelimited(File egtFile, File hedFile, int header, int[] eventCodeColumn, int[] tagColumns) {
 		try {
-			BufferedReader egtReader = new BufferedReader(new FileReader(egtFile));
-			populateEventsFromTabDelimitedText(egtReader, header, eventCodeColumn, tagColumns);
-			egtReader.close();
-			HedXmlModel hedXmlModel = ReadHEDXml(hedFile);
-			populateTagList(hedXmlModel);
+			populateEventsFromTabDelimitedFile(egtFile, header, eventCodeColumn, tagColumns);
+			populateTagList(hedFile);
 		} catch (Exception e) {
 			System.err.println("Unable to read delimited file: " + egtFile.getPath() + ": " + e.getMessage());
 			return false;
@@ -1724,9 +2020,7 @@ public class Tagger {
 	 */
 	public boolean loadTabDelimitedEvents(File egtFile, int header, int[] eventCodeColumn, int[] tagColumns) {
 		try {
-			BufferedReader egtReader = new BufferedReader(new FileReader(egtFile));
-			populateEventsFromTabDelimitedText(egtReader, header, eventCodeColumn, tagColumns);
-			egtReader.close();
+			populateEventsFromTabDelimitedFile(egtFile, header, eventCodeColumn, tagColumns);
 		} catch (Exception e) {
 			System.err.println("Unable to read delimited file: " + egtFile.getPath() + ": " + e.getMessage());
 			return false;
@@ -1747,40 +2041,33 @@ public class Tagger {
 	 *         otherwise.
 	 */
 	private AbstractTagModel matchSubhierarchy(String parentPath, AbstractTagModel tag) {
-		TaggerSet<AbstractTagModel> takesValueTags = new TaggerSet<AbstractTagModel>();
-		for (AbstractTagModel childTag : getSubHierarchy(parentPath)) {
-			if (childTag.takesValue()) {
-				takesValueTags.add(childTag);
-				continue;
-			}
-			if (childTag.getPath().equals(tag.getPath())) {
-				return childTag;
-			}
-		}
-		for (AbstractTagModel takesValueTag : takesValueTags) {
-			if (matchTakesValueTag(takesValueTag.getName(), tag.getName())) {
-				return takesValueTag;
-			}
+		AbstractTagModel exactTag = findTagPath(tag.getPath());
+		if (exactTag != null && !exactTag.takesValue() && parentPath.equals(exactTag.getParentPath())) {
+			return exactTag;
 		}
-		return null;
+		String path = tag.getPath();
+		return matchTakesValueTag(parentPath, path, path.lastIndexOf('/') + 1);
 	}
 
 	/**
-	 * Checks if the given tag name matches a tag that takes values.
+	 * Finds the child tag of the given parent that takes values and matches
+	 * the given tag name.
 	 * 
-	 * @param valueString
-	 *            The name of a tag that takes values to check against.
-	 * @param tagName
-	 *            The name of the tag to check.
-	 * @return True if the tag name matches, false otherwise.
+	 * @param parentPath
+	 *            The path of the parent tag.
+	 * @param path
+	 *            The string containing the tag name to check.
+	 * @param nameStart
+	 *            The index in the string where the tag name starts.
+	 * @return The matching tag that takes values if found, null if otherwise.
 	 */
-	private boolean matchTakesValueTag(String valueString, String tagName) {
-		String before = valueString.substring(0, valueString.indexOf('#'));
-		String after = valueString.substring(valueString.indexOf('#') + 1, valueString.length());
-		if (tagName.startsWith(before) && tagName.endsWith(after)) {
-			return true;
+	private AbstractTagModel matchTakesValueTag(String parentPath, String path, int nameStart) {
+		for (TakesValueMatcher matcher : getValueMatchers(parentPath)) {
+			if (matcher.matches(path, nameStart)) {
+				return matcher.getTagModel();
+			}
 		}
-		return false;
+		return null;
 	}
 
 	/**
@@ -1838,61 +2125,126 @@ public class Tagger {
 
 	/**
 	 * Creates the event models (depending on the factory given) to be used in
-	 * the Tagger from the JSON models. Assumes the EGT set has been created and
-	 * is empty. If no code is available for the event, the event label is used.
-	 * 
-	 * @param eventJsonModels
-	 *            A set of events represented in JSON format.
+	 * the Tagger while reading a JSON array of events. Each event is added as
+	 * soon as its object has been read, so the events are never held in
+	 * another form. The tags are looked up in the hierarchy straight from the
+	 * parser's buffer.
+	 * 
+	 * @param parser
+	 *            The parser positioned before the array of events.
+	 * @return True if the events loaded successfully, false if an event has
+	 *         no code.
+	 * @throws IOException
+	 *             If the JSON cannot be read or is not an array of events.
 	 */
-	private boolean populateEventsFromJson(Set<EventJsonModel> eventJsonModels) {
+	private boolean populateEventsFromJson(JsonParser parser) throws IOException {
 		TaggerSet<TaggedEvent> taggerSetTemp = new TaggerSet<TaggedEvent>();
-		for (EventJsonModel eventJsonModel : eventJsonModels) {
-			// Create event model
-			TaggedEvent taggedEvent = createNewEvent(eventJsonModel.getCode());
-			// Add tags to event
-			int groupId;
-			if (eventJsonModel.getTags() != null) {
-				for (List<String> tagList : eventJsonModel.getTags()) {
-					if (tagList.size() > 1) {
-						// Add tag group
-						groupId = groupIdCounter++;
-						taggedEvent.addGroup(groupId);
-						for (String tag : tagList) {
-							AbstractTagModel tagModel = getTagModel(tag);
-							taggedEvent.addTagToGroup(groupId, tagModel);
-						}
-					} else if (tagList.size() == 1) {
-						// Add single tag
-						AbstractTagModel tagModel = getTagModel(tagList.get(0));
-						taggedEvent.addTag(tagModel);
-					}
-				}
+		TagPathTable pathTable = getTagPathTable();
+		if (parser.nextToken() != JsonToken.START_ARRAY) {
+			throw new JsonMappingException("Expected an array of events", parser.getCurrentLocation());
+		}
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+				throw new JsonMappingException("Expected an event object", parser.getCurrentLocation());
 			}
-			if (eventJsonModel.getCode() == null || eventJsonModel.getCode().isEmpty()) {
+			TaggedEvent taggedEvent = readJsonEvent(parser, pathTable);
+			String code = taggedEvent.getEventModel().getCode();
+			if (code == null || code.isEmpty()) {
 				return false;
 			}
-			// // Add tags given in JSON fields if not already present
-			// if (!eventJsonModel.getLabel().isEmpty()) {
-			// AbstractTagModel tagModel = getTagModel("/Event/Label/"
-			// + eventJsonModel.getLabel());
-			// taggedEvent.addTag(tagModel);
-			// }
-			// if (!eventJsonModel.getLongName().isEmpty()) {
-			// AbstractTagModel tagModel = getTagModel("/Event/Long name/"
-			// + eventJsonModel.getLongName());
-			// taggedEvent.addTag(tagModel);
-			// }
-			// if (!eventJsonModel.getDescription().isEmpty()) {
-			// AbstractTagModel tagModel = getTagModel("/Event/Description/"
-			// + eventJsonModel.getDescription());
-			// taggedEvent.addTag(tagModel);
-			// }
 			taggerSetTemp.add(taggedEvent);
 		}
-		taggedEventSet = taggerSetTemp;
+		setTaggedEventSet(taggerSetTemp);
 		return true;
 	}
 
+	/**
+	 * Reads an event object into a new TaggedEvent. A list of more than one
+	 * tag is added as a tag group and a list of one tag is added to the event
+	 * itself.
+	 * 
+	 * @param parser
+	 *            The parser positioned on the start of the event object.
+	 * @param pathTable
+	 *            The path index to look the tags up in.
+	 * @return The TaggedEvent read, with a null code if the object has none.
+	 * @throws IOException
+	 *             If the object is not an event.
+	 */
+	private TaggedEvent readJsonEvent(JsonParser parser, TagPathTable pathTable) throws IOException {
+		TaggedEvent taggedEvent = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			if ("code".equals(field)) {
+				String code = value == JsonToken.VALUE_NULL ? null : parser.getText();
+				if (taggedEvent == null) {
+					taggedEvent = createNewEvent(code);
+				} else {
+					taggedEvent.getEventModel().setCode(code);
+				}
+			} else if ("tags".equals(field)) {
+				// The code is set without reindexing if it comes after the tags
+				if (taggedEvent == null) {
+					taggedEvent = createNewEvent(null);
+				}
+				if (value != JsonToken.VALUE_NULL) {
+					readJsonTags(parser, taggedEvent, pathTable);
+				}
+			} else {
+				throw new JsonMappingException("Unrecognized field \"" + field + "\"", parser.getCurrentLocation());
+			}
+		}
+		return taggedEvent == null ? createNewEvent(null) : taggedEvent;
+	}
+
+	/**
+	 * Reads the tag lists of an event and adds them to the event.
+	 */
+	private void readJsonTags(JsonParser parser, TaggedEvent taggedEvent, TagPathTable pathTable)
+			throws IOException {
+		if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+			throw new JsonMappingException("Expected an array of tag lists", parser.getCurrentLocation());
+		}
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+				continue;
+			}
+			if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+				throw new JsonMappingException("Expected a list of tags", parser.getCurrentLocation());
+			}
+			if (parser.nextToken() == JsonToken.END_ARRAY) {
+				continue;
+			}
+			AbstractTagModel firstTag = readJsonTag(parser, pathTable);
+			if (parser.nextToken() == JsonToken.END_ARRAY) {
+				// Add single tag
+				taggedEvent.addTag(firstTag);
+				continue;
+			}
+			// Add tag group
+			int groupId = groupIdCounter++;
+			taggedEvent.addGroup(groupId);
+			taggedEvent.addTagToGroup(groupId, firstTag);
+			do {
+				taggedEvent.addTagToGroup(groupId, readJsonTag(parser, pathTable));
+			} while (parser.nextToken() != JsonToken.END_ARRAY);
+		}
+	}
+
+	/**
+	 * Gets the tag model for the tag the parser is on. Tags in the hierarchy
+	 * are found without copying the tag out of the parser.
+	 */
+	private AbstractTagModel readJsonTag(JsonParser parser, TagPathTable pathTable) throws IOException {
+		if (!parser.getCurrentToken().isScalarValue() || parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+			throw new JsonMappingException("Expected a tag", parser.getCurrentLocation());
+		}
+		int start = parser.getTextOffset();
+		AbstractTagModel tagModel = pathTable.get(parser.getTextCharacters(), start, start + parser.getTextLength());
+		return tagModel != null ? tagModel : getTagModel(parser.getText());
+	}
+
 	/**
 	 * Takes a String in the tab-delimited text format for events and loads the
 	 * data into the Tagger.
@@ -1902,7 +2254,7 @@ public class Tagger {
 	 * @return True if the data loaded successfully, false otherwise.
 	 */
 	private boolean populateEventsFromTabDelimitedText(BufferedReader egtReader) {
-		taggedEventSet = new TaggerSet<TaggedEvent>();
+		setTaggedEventSet(new TaggerSet<TaggedEvent>());
 		String line = null;
 		try {
 			while ((line = egtReader.readLine()) != null) {
@@ -1942,7 +2294,7 @@ public class Tagger {
 						groupId = event.getEventGroupId();
 					}
 				}
-				taggedEventSet.add(event);
+				addEventBase(event);
 			}
 		} catch (IOException e) {
 			return false;
@@ -1966,60 +2318,112 @@ public class Tagger {
 			int[] tagColumns) {
 		TaggerSet<TaggedEvent> taggerSetTemp = new TaggerSet<TaggedEvent>();
 		groupIdCounter = 0;
-		String line = null;
-		int lineCount = 0;
 		try {
-			while ((line = egtReader.readLine()) != null) {
-				lineCount++;
-				String[] cols = line.split("\\t");
-				// line check
-				if (line.trim().isEmpty() || lineCount <= header)
-					continue;
-				// combine columns
-				String eventCode = combineColumns(" ", cols, eventCodeColumns).trim();
-				// event check
-				if (eventCode.isEmpty())
-					continue;
-				// tag check
-				TaggedEvent event = createNewEvent(eventCode);
-				if (tagColumns[0] != 0) {
-					// Add tags to event
-					int groupId = event.getEventGroupId();
-					boolean endGroup;
-					String[] tags = formatTags(combineColumns(",", cols, tagColumns).split(","));
-					for (String tag : tags) {
-						if (tag.trim().isEmpty()) {
-							continue;
-						}
-						endGroup = false;
-						tag = tag.trim();
-						// Start new tag group
-						if (tag.startsWith("(")) {
-							groupId = groupIdCounter++;
-							event.addGroup(groupId);
-							tag = tag.substring(1);
-						}
-						// End tag group
-						if (tag.endsWith(")")) {
-							endGroup = true;
-							tag = tag.substring(0, tag.length() - 1);
-						}
-						AbstractTagModel tagModel = getTagModel(tag);
-						event.addTagToGroup(groupId, tagModel);
-						if (endGroup) {
-							groupId = event.getEventGroupId();
-						}
-					}
-				}
-				taggerSetTemp.add(event);
+			new TabDelimitedEventReader(this, header, eventCodeColumns, tagColumns).read(egtReader,
+					createRowHandler(taggerSetTemp));
+		} catch (IOException e) {
+			return false;
+		}
+		setTaggedEventSet(taggerSetTemp);
+		return true;
+	}
+
+	/**
+	 * Loads the events from a file in the tab-delimited text format. A file up
+	 * to the largest buffered size is read into memory at once, and only the
+	 * event code and tag columns of each line are decoded from UTF-8. A larger
+	 * file is read line by line instead.
+	 * 
+	 * @param egtFile
+	 *            The file containing the tab-delimited events.
+	 * @param header
+	 *            The number of header lines.
+	 * @param eventCodeColumns
+	 *            The event code column(s).
+	 * @param tagColumns
+	 *            The event tag column(s).
+	 * @return True if the data loaded successfully, false otherwise.
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 */
+	private boolean populateEventsFromTabDelimitedFile(File egtFile, int header, int[] eventCodeColumns,
+			int[] tagColumns) throws IOException {
+		if (!IndexedEventFile.canBuffer(egtFile)) {
+			BufferedReader egtReader = new BufferedReader(
+					new InputStreamReader(new FileInputStream(egtFile), "UTF-8"));
+			try {
+				return populateEventsFromTabDelimitedText(egtReader, header, eventCodeColumns, tagColumns);
+			} finally {
+				egtReader.close();
 			}
+		}
+		IndexedEventFile indexedFile = new IndexedEventFile(egtFile);
+		TaggerSet<TaggedEvent> taggerSetTemp = new TaggerSet<TaggedEvent>();
+		groupIdCounter = 0;
+		try {
+			new TabDelimitedEventReader(this, header, eventCodeColumns, tagColumns).read(indexedFile,
+					createRowHandler(taggerSetTemp));
 		} catch (IOException e) {
 			return false;
 		}
-		taggedEventSet = taggerSetTemp;
+		setTaggedEventSet(taggerSetTemp);
 		return true;
 	}
 
+	/**
+	 * Creates a handler that adds the rows read by a TabDelimitedEventReader
+	 * to the given set as events.
+	 * 
+	 * @param events
+	 *            The set the events are added to.
+	 * @return The RowHandler.
+	 */
+	private TabDelimitedEventReader.RowHandler createRowHandler(final TaggerSet<TaggedEvent> events) {
+		return new TabDelimitedEventReader.RowHandler() {
+			@Override
+			public void handleRow(TabDelimitedEventReader.EventRow row) {
+				events.add(createEventFromRow(row));
+			}
+		};
+	}
+
+	/**
+	 * Creates an event from a row read by a TabDelimitedEventReader. Rows must
+	 * be passed in file order so that the group IDs are the same as when the
+	 * file is read one line at a time. A nested group is added as a group of
+	 * its own, and the tags after it go back to the group it was opened in.
+	 * 
+	 * @param row
+	 *            The row containing the event code and tags.
+	 * @return The TaggedEvent for the row.
+	 */
+	private TaggedEvent createEventFromRow(TabDelimitedEventReader.EventRow row) {
+		TaggedEvent event = createNewEvent(row.getEventCode());
+		int groupId = event.getEventGroupId();
+		// Groups that a nested group was opened in
+		ArrayList<Integer> enclosingGroups = new ArrayList<Integer>();
+		for (int i = 0; i < row.getTagCount(); i++) {
+			// Start new tag groups
+			for (int j = 0; j < row.getOpenedGroups(i); j++) {
+				enclosingGroups.add(groupId);
+				groupId = groupIdCounter++;
+				event.addGroup(groupId);
+			}
+			if (row.hasTag(i)) {
+				AbstractTagModel tagModel = row.getHierarchyTag(i);
+				if (tagModel == null) {
+					tagModel = getTagModel(row.getTag(i));
+				}
+				event.addTagToGroup(groupId, tagModel);
+			}
+			// End tag groups
+			for (int j = 0; j < row.getClosedGroups(i); j++) {
+				groupId = enclosingGroups.remove(enclosingGroups.size() - 1);
+			}
+		}
+		return event;
+	}
+
 	/**
 	 * Creates the event models (depending on the factory given) to be used in
 	 * the Tagger from the XML model. Assumes the EGT set has been created and
@@ -2055,26 +2459,10 @@ public class Tagger {
 			}
 			taggerSetTemp.add(taggedEvent);
 		}
-		taggedEventSet = taggerSetTemp;
+		setTaggedEventSet(taggerSetTemp);
 		return true;
 	}
 
-	/**
-	 * Populates the events from a JSON file.
-	 * 
-	 * @param egtFile
-	 *            The JSON file.
-	 * @return A set of events represented in JSON format.
-	 * @throws Exception
-	 *             If an error occurs.
-	 */
-	private Set<EventJsonModel> populateJSONList(File egtFile) throws Exception {
-		Set<EventJsonModel> eventJsonModels = new ObjectMapper().readValue(egtFile,
-				new TypeReference<LinkedHashSet<EventJsonModel>>() {
-				});
-		return eventJsonModels;
-	}
-
 	/**
 	 * Populates the tags from a HED document.
 	 * 
@@ -2087,12 +2475,70 @@ public class Tagger {
 		uniqueTags = new TaggerSet<AbstractTagModel>();
 		extensionAllowedTags = new TaggerSet<AbstractTagModel>();
 		tagList = new TaggerSet<AbstractTagModel>();
+		clearTagIndex();
 		if (!hedXmlModel.getVersion().isEmpty())
 			version = hedXmlModel.getVersion();
 		createUnitClassHashMapFromXml(hedXmlModel.getUnitClasses());
 		createTagSetFromXml(hedXmlModel.getTags());
 	}
 
+	/**
+	 * Populates the tags from a HED file. A snapshot of the file is used if
+	 * there is one. Otherwise the file is streamed and a snapshot is saved,
+	 * unless the tags cannot be created in document order, in which case it is
+	 * unmarshalled.
+	 * 
+	 * @param hedFile
+	 *            The HED file.
+	 */
+	private void populateTagList(File hedFile) throws Exception {
+		final byte[] hedBytes = readFileBytes(hedFile);
+		String key = HedSchemaSnapshot.hash(hedBytes);
+		if (loadSnapshot(key)) {
+			return;
+		}
+		final HedSchemaStreamReader reader = new HedSchemaStreamReader(this);
+		boolean streamed = readTagList(new Callable<Boolean>() {
+			public Boolean call() throws Exception {
+				return reader.read(new ByteArrayInputStream(hedBytes));
+			}
+		});
+		if (streamed) {
+			applySchemaProperties(reader.getVersion(), reader.getUnitClasses(), reader.getUnitClassDefaults());
+			saveSnapshot(key, reader);
+		} else {
+			populateTagList(ReadHEDXml(hedFile));
+		}
+	}
+
+	/**
+	 * Populates the tags from a HED XML string. A snapshot of the string is
+	 * used if there is one. Otherwise the string is streamed and a snapshot is
+	 * saved, unless the tags cannot be created in document order, in which case
+	 * it is unmarshalled.
+	 * 
+	 * @param hedXmlString
+	 *            XML representation of the HED hierarchy.
+	 */
+	private void populateTagList(final String hedXmlString) throws Exception {
+		String key = HedSchemaSnapshot.hash(hedXmlString.getBytes("UTF-8"));
+		if (loadSnapshot(key)) {
+			return;
+		}
+		final HedSchemaStreamReader reader = new HedSchemaStreamReader(this);
+		boolean streamed = readTagList(new Callable<Boolean>() {
+			public Boolean call() throws Exception {
+				return reader.read(new StringReader(hedXmlString));
+			}
+		});
+		if (streamed) {
+			applySchemaProperties(reader.getVersion(), reader.getUnitClasses(), reader.getUnitClassDefaults());
+			saveSnapshot(key, reader);
+		} else {
+			populateTagList(readHedXmlString(hedXmlString));
+		}
+	}
+
 	/**
 	 * Creates or resets the tag list and EGT set along with lists of required,
 	 * recommended, and unique tags given the XML model.
@@ -2106,6 +2552,7 @@ public class Tagger {
 		if (populateEventsFromXml(xmlData.getEgtSetXmlModel())) {
 			// Create tagSet from HED XML
 			tagList = new TaggerSet<AbstractTagModel>();
+			clearTagIndex();
 			requiredTags = new TaggerSet<AbstractTagModel>();
 			recommendedTags = new TaggerSet<AbstractTagModel>();
 			uniqueTags = new TaggerSet<AbstractTagModel>();
@@ -2118,17 +2565,133 @@ public class Tagger {
 	}
 
 	/**
-	 * Reads the given JSON event string into a JSON model.
+	 * Reads the tags into a new tag list. The previous tags are kept if the
+	 * tags cannot be read.
 	 * 
-	 * @param egtString
-	 *            JSON string containing events and associated tags.
-	 * @return Set<EventJsonModel> containing a model for each event read.
+	 * @param read
+	 *            Reads the tags and returns true if they were read, false if
+	 *            they must be read another way.
+	 * @return True if the tags were read, false otherwise.
+	 */
+	private boolean readTagList(Callable<Boolean> read) throws Exception {
+		TaggerSet<AbstractTagModel> oldTagList = tagList;
+		TaggerSet<AbstractTagModel> oldRequiredTags = requiredTags;
+		TaggerSet<AbstractTagModel> oldRecommendedTags = recommendedTags;
+		TaggerSet<AbstractTagModel> oldUniqueTags = uniqueTags;
+		TaggerSet<AbstractTagModel> oldExtensionAllowedTags = extensionAllowedTags;
+		int oldTagLevel = tagLevel;
+		requiredTags = new TaggerSet<AbstractTagModel>();
+		recommendedTags = new TaggerSet<AbstractTagModel>();
+		uniqueTags = new TaggerSet<AbstractTagModel>();
+		extensionAllowedTags = new TaggerSet<AbstractTagModel>();
+		tagList = new TaggerSet<AbstractTagModel>();
+		clearTagIndex();
+		tagLevel = 0;
+		boolean tagsRead = false;
+		try {
+			tagsRead = read.call();
+		} finally {
+			if (!tagsRead) {
+				tagList = oldTagList;
+				requiredTags = oldRequiredTags;
+				recommendedTags = oldRecommendedTags;
+				uniqueTags = oldUniqueTags;
+				extensionAllowedTags = oldExtensionAllowedTags;
+				tagLevel = oldTagLevel;
+				rebuildTagIndex();
+			}
+		}
+		if (tagsRead) {
+			compileValueMatchers();
+			sortRRTags();
+		}
+		return tagsRead;
+	}
+
+	/**
+	 * Applies the version and unit classes of a HED document that was read
+	 * without unmarshalling it.
+	 * 
+	 * @param hedVersion
+	 *            The version of the HED document, empty if it has none.
+	 * @param hedUnitClasses
+	 *            The units keyed by unit class name.
+	 * @param hedUnitClassDefaults
+	 *            The default units keyed by unit class name.
+	 */
+	private void applySchemaProperties(String hedVersion, Map<String, String> hedUnitClasses,
+			Map<String, String> hedUnitClassDefaults) {
+		if (!hedVersion.isEmpty())
+			version = hedVersion;
+		unitClasses.putAll(hedUnitClasses);
+		unitClassDefaults.putAll(hedUnitClassDefaults);
+	}
+
+	/**
+	 * Loads the tags from the snapshot with the given key.
+	 * 
+	 * @param key
+	 *            The hash of the HED XML.
+	 * @return True if the tags were loaded, false if there is no usable
+	 *         snapshot.
+	 */
+	private boolean loadSnapshot(final String key) {
+		final HedSchemaSnapshot snapshot = new HedSchemaSnapshot(this);
+		try {
+			boolean loaded = readTagList(new Callable<Boolean>() {
+				public Boolean call() throws Exception {
+					return snapshot.read(key);
+				}
+			});
+			if (loaded) {
+				applySchemaProperties(snapshot.getVersion(), snapshot.getUnitClasses(),
+						snapshot.getUnitClassDefaults());
+			}
+			return loaded;
+		} catch (Exception e) {
+			System.err.println("Unable to read HED snapshot: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Saves a snapshot of the tags that were just streamed. A snapshot that
+	 * cannot be saved is only reported, since the tags have been loaded.
+	 * 
+	 * @param key
+	 *            The hash of the HED XML.
+	 * @param reader
+	 *            The reader that streamed the tags.
+	 */
+	private void saveSnapshot(String key, HedSchemaStreamReader reader) {
+		try {
+			HedSchemaSnapshot.write(key, reader.getVersion(), reader.getUnitClasses(),
+					reader.getUnitClassDefaults(), tagList);
+		} catch (IOException e) {
+			System.err.println("Unable to save HED snapshot: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads all of the bytes in the given file.
+	 * 
+	 * @param file
+	 *            The file to read.
+	 * @return The contents of the file.
 	 */
-	private Set<EventJsonModel> readEventJsonString(String egtString) throws Exception {
-		Set<EventJsonModel> eventJsonModels = new ObjectMapper().readValue(egtString,
-				new TypeReference<LinkedHashSet<EventJsonModel>>() {
-				});
-		return eventJsonModels;
+	private static byte[] readFileBytes(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+			byte[] buffer = new byte[8192];
+			int count;
+			while ((count = in.read(buffer)) != -1) {
+				out.write(buffer, 0, count);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
 	}
 
 	/**
@@ -2141,8 +2704,7 @@ public class Tagger {
 	 *             If an error occurs.
 	 */
 	private HedXmlModel ReadHEDXml(File hedFile) throws Exception {
-		JAXBContext context = JAXBContext.newInstance(HedXmlModel.class);
-		HedXmlModel hedXmlModel = (HedXmlModel) context.createUnmarshaller().unmarshal(hedFile);
+		HedXmlModel hedXmlModel = (HedXmlModel) XmlContextRegistry.getUnmarshaller(HedXmlModel.class).unmarshal(hedFile);
 		return hedXmlModel;
 	}
 
@@ -2155,8 +2717,7 @@ public class Tagger {
 	 */
 	private HedXmlModel readHedXmlString(String hedXmlString) throws Exception {
 		StringReader hedStringReader = new StringReader(hedXmlString);
-		JAXBContext context = JAXBContext.newInstance(HedXmlModel.class);
-		HedXmlModel hedXmlModel = (HedXmlModel) context.createUnmarshaller().unmarshal(hedStringReader);
+		HedXmlModel hedXmlModel = (HedXmlModel) XmlContextRegistry.getUnmarshaller(HedXmlModel.class).unmarshal(hedStringReader);
 		return hedXmlModel;
 	}
 
@@ -2164,7 +2725,19 @@ public class Tagger {
 	 * Redo the last action that was undone.
 	 */
 	public HistoryItem redo() {
-		return history.redo();
+		HistoryItem item = history.redo();
+		fireHistoryChange(item, false);
+		return item;
+	}
+
+	/**
+	 * Removes a listener added with addChangeListener.
+	 * 
+	 * @param listener
+	 *            The listener to remove.
+	 */
+	public void removeChangeListener(TaggerChangeListener listener) {
+		changeListeners.remove(listener);
 	}
 
 	/**
@@ -2181,6 +2754,7 @@ public class Tagger {
 			historyItem.type = TaggerHistory.Type.EVENT_REMOVED;
 			historyItem.event = event;
 			history.add(historyItem);
+			fireChange(TaggerChangeEvent.Type.EVENT_REMOVED, null, event);
 		}
 	}
 
@@ -2192,7 +2766,11 @@ public class Tagger {
 	 * @return True if the event is removed, false if otherwise.
 	 */
 	public boolean removeEventBase(TaggedEvent eventModel) {
-		return taggedEventSet.remove(eventModel);
+		if (!taggedEventSet.remove(eventModel)) {
+			return false;
+		}
+		groupEvents.removeAll(eventModel);
+		return true;
 	}
 
 	/**
@@ -2211,6 +2789,7 @@ public class Tagger {
 			historyItem.groupId = groupId;
 			historyItem.tags = tagsRemoved;
 			history.add(historyItem);
+			fireChange(TaggerChangeEvent.Type.GROUP_REMOVED, null, taggedEvent);
 		}
 	}
 
@@ -2224,7 +2803,9 @@ public class Tagger {
 	 * @return The set of tags in the group removed from the event
 	 */
 	public TaggerSet<AbstractTagModel> removeGroupBase(TaggedEvent event, Integer groupId) {
-		return event.removeGroup(groupId);
+		TaggerSet<AbstractTagModel> tags = event.removeGroup(groupId);
+		groupEvents.remove(groupId, event);
+		return tags;
 	}
 
 	/**
@@ -2241,12 +2822,13 @@ public class Tagger {
 	public boolean save(File egtFile, File hedFile, boolean json) {
 		if (json) {
 			// Save JSON to file
-			Set<EventJsonModel> eventJsonModels = buildEventJsonModels();
-			ObjectMapper mapper = new ObjectMapper();
-			ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
 			try {
-				FileWriter fw = new FileWriter(egtFile);
-				writer.writeValue(fw, eventJsonModels);
+				OutputStream out = new BufferedOutputStream(new FileOutputStream(egtFile));
+				try {
+					writeJsonEvents(out);
+				} finally {
+					out.close();
+				}
 			} catch (Exception ex) {
 				System.err.println(
 						"Unable to save event JSON data to file " + egtFile.getPath() + ": " + ex.getMessage());
@@ -2254,26 +2836,19 @@ public class Tagger {
 			}
 		} else {
 			// Save tab-delimited text to file
-			try {
-				BufferedWriter egtWriter = new BufferedWriter(new FileWriter(egtFile));
-				writeTSVFile(egtWriter);
-				egtWriter.close();
-			} catch (IOException e) {
-				System.err.println("Error writing tab-delimited text to file: " + e.getMessage());
+			if (!saveTSVFile(egtFile)) {
 				return false;
 			}
 		}
 		// Save XML to file
-		HedXmlModel hedModel = new HedXmlModel();
-		TagXmlModel dummy = tagsToXmlModel();
-		hedModel.setTags(dummy.getTags());
-		hedModel.setUnitClasses(unitClassesToXmlModel());
 		try {
-			JAXBContext context = JAXBContext.newInstance(HedXmlModel.class);
-			Marshaller marshaller = context.createMarshaller();
-			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-			marshaller.marshal(hedModel, hedFile);
-		} catch (JAXBException e) {
+			OutputStream out = new BufferedOutputStream(new FileOutputStream(hedFile));
+			try {
+				new TaggerXmlStreamWriter(this).writeHed(out, "", true);
+			} finally {
+				out.close();
+			}
+		} catch (Exception e) {
 			System.err.println("Unable to save HED XML data to file " + hedFile.getPath() + ": " + e.getMessage());
 			return false;
 		}
@@ -2289,13 +2864,14 @@ public class Tagger {
 	 * @return True if the data was saved successfully, false otherwise.
 	 */
 	public boolean saveEventsAndHED(File savedData) {
-		TaggerDataXmlModel savedDataModel = buildSavedDataModel();
 		try {
-			JAXBContext context = JAXBContext.newInstance(TaggerDataXmlModel.class);
-			Marshaller marshaller = context.createMarshaller();
-			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-			marshaller.marshal(savedDataModel, savedData);
-		} catch (JAXBException e) {
+			OutputStream out = new BufferedOutputStream(new FileOutputStream(savedData));
+			try {
+				writeXmlData(out);
+			} finally {
+				out.close();
+			}
+		} catch (Exception e) {
 			System.err.println("Unable to save to file " + savedData.getPath() + ": " + e.getMessage());
 			return false;
 		}
@@ -2303,17 +2879,14 @@ public class Tagger {
 	}
 
 	public boolean saveHED(File hedFile) {
-		HedXmlModel hedModel = new HedXmlModel();
-		TagXmlModel dummy = tagsToXmlModel();
-		hedModel.setTags(dummy.getTags());
-		hedModel.setUnitClasses(unitClassesToXmlModel());
-		hedModel.setVersion(version);
 		try {
-			JAXBContext context = JAXBContext.newInstance(HedXmlModel.class);
-			Marshaller marshaller = context.createMarshaller();
-			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-			marshaller.marshal(hedModel, hedFile);
-		} catch (JAXBException e) {
+			OutputStream out = new BufferedOutputStream(new FileOutputStream(hedFile));
+			try {
+				writeHedXml(out);
+			} finally {
+				out.close();
+			}
+		} catch (Exception e) {
 			System.err.println("Unable to save HED XML data to file " + hedFile.getPath() + ": " + e.getMessage());
 			return false;
 		}
@@ -2322,9 +2895,12 @@ public class Tagger {
 
 	public boolean saveTSVFile(File tsvFile) {
 		try {
-			BufferedWriter egtWriter = new BufferedWriter(new FileWriter(tsvFile));
-			writeTSVFile(egtWriter);
-			egtWriter.close();
+			FileChannel channel = new FileOutputStream(tsvFile).getChannel();
+			try {
+				tsvWriter.write(channel, tsvHeader, taggedEventSet);
+			} finally {
+				channel.close();
+			}
 		} catch (IOException e) {
 			System.err.println("Error writing tab-delimited text to file: " + e.getMessage());
 			return false;
@@ -2378,13 +2954,16 @@ public class Tagger {
 	 * @return The tag if found, null if otherwise.
 	 */
 	public AbstractTagModel tagFound(String tagPath) {
-		for (AbstractTagModel tag : tagList) {
-			if (tagPath != null) {
-				if (tag.getPath().toUpperCase().equals(tagPath.toUpperCase()))
-					return tag;
-			}
+		if (tagPath == null) {
+			return null;
 		}
-		return null;
+		AbstractTagModel tag = tagPathsUpper.get(tagPath.toUpperCase());
+		if (tag != null ? !tag.getPath().equalsIgnoreCase(tagPath)
+				: tagIndexEpoch != AbstractTagModel.getPathEpoch()) {
+			rebuildTagIndex();
+			tag = tagPathsUpper.get(tagPath.toUpperCase());
+		}
+		return tag;
 	}
 
 	/**
@@ -2424,52 +3003,7 @@ public class Tagger {
 	 * @return True if the tag path exists, false if otherwise.
 	 */
 	public boolean tagPathFound(String tagPath) {
-		for (AbstractTagModel tag : tagList) {
-			if (tag.getPath().toUpperCase().equals(tagPath.toUpperCase())) {
-				return true;
-			}
-		}
-		return false;
-	}
-
-	/**
-	 * Creates the XML model of the tag set.
-	 * 
-	 * @return Complete XML model containing HED hierarchy tags
-	 */
-	private TagXmlModel tagsToXmlModel() {
-		Iterator<AbstractTagModel> iter = tagList.iterator();
-		TagXmlModel dummy = new TagXmlModel();
-		tagsToXmlModelHelper(new String(), dummy, iter);
-		return dummy;
-	}
-
-	/**
-	 * Helper method to build hierarchical tag structure recursively.
-	 */
-	private AbstractTagModel tagsToXmlModelHelper(String prefix, TagXmlModel parent, Iterator<AbstractTagModel> iter) {
-		if (!iter.hasNext()) {
-			return null;
-		}
-		AbstractTagModel next = iter.next(); // Potential child node
-		while (next != null && next.getPath().startsWith(prefix)) {
-			// Create child XML model and link to parent
-			TagXmlModel child = new TagXmlModel();
-			child.setName(next.getName());
-			child.setDescription(next.getDescription());
-			child.setChildRequired(next.isChildRequired());
-			child.setExtensionAllowed(next.isExtensionAllowed());
-			child.setTakesValue(next.takesValue());
-			child.setPredicateType(next.getPredicateType().toString());
-			child.setRequired(next.isRequired());
-			child.setRecommended(next.isRecommended());
-			child.setUnique(next.isUnique());
-			child.setPosition(next.getPosition());
-			parent.addChild(child);
-			// Process child node and get potential next child node
-			next = tagsToXmlModelHelper(next.getPath(), child, iter);
-		}
-		return next; // Prefix does not match
+		return tagFound(tagPath) != null;
 	}
 
 	/**
@@ -2489,26 +3023,101 @@ public class Tagger {
 	 *         prefix option is set to true.
 	 */
 	public ToggleTagMessage toggleTag(AbstractTagModel tagModel, Set<Integer> groupIds) {
+		toggleTiming.start(groupIds.size());
+		ResolvedGroups targets = resolveGroups(groupIds);
+		toggleTiming.mark(ToggleTagTiming.Phase.RESOLVE);
 		AbstractTagModel uniqueKey = getUniqueKey(tagModel);
 		if (!loader.checkFlags(TaggerLoader.PRESERVE_PREFIX) || uniqueKey != null || tagModel.isRecommended()
 				|| tagModel.isRequired()) {
-			return toggleTagReplacePrefix(tagModel, groupIds, uniqueKey);
+			return toggleTagReplacePrefix(tagModel, targets, groupIds, uniqueKey);
 		}
-		boolean found;
-		for (Integer groupId : groupIds) {
-			found = false;
-			for (TaggedEvent currentTaggedEvent : taggedEventSet) {
-				if (currentTaggedEvent.containsTagInGroup(groupId, tagModel)) {
-					found = true;
-					break;
+		boolean missingTag = targets.size < groupIds.size() || "~".equals(tagModel.getName());
+		for (int i = 0; i < targets.size && !missingTag; i++) {
+			missingTag = !targets.events[i].containsTagInGroup(targets.groupIds[i], tagModel);
+		}
+		toggleTiming.mark(ToggleTagTiming.Phase.CONFLICTS);
+		applyToggle(tagModel, targets, missingTag);
+		return null;
+	}
+
+	/**
+	 * Gets the time spent in each phase of the last call to toggleTag or
+	 * replaceAncestors.
+	 * 
+	 * @return The timing of the last toggle.
+	 */
+	public ToggleTagTiming getToggleTiming() {
+		return toggleTiming;
+	}
+
+	/**
+	 * Replaces the ancestors of a tag with the tag in all of the groups of a
+	 * message returned by toggleTag. The ancestors are removed and the tag is
+	 * added as a single action with one entry in the history. If a group
+	 * contains a descendant of the tag or another value of its unique key,
+	 * nothing is changed.
+	 * 
+	 * @param message
+	 *            The message returned by toggleTag with the ancestors found.
+	 * @return A <code>ToggleTagMessage</code> containing the descendant and
+	 *         unique tags found in the groups, or null if the ancestors were
+	 *         replaced.
+	 */
+	public ToggleTagMessage replaceAncestors(ToggleTagMessage message) {
+		AbstractTagModel tagModel = message.tagModel;
+		toggleTiming.start(message.groupIds.size());
+		ResolvedGroups targets = resolveGroups(message.groupIds);
+		toggleTiming.mark(ToggleTagTiming.Phase.RESOLVE);
+		AbstractTagModel uniqueKey = getUniqueKey(tagModel);
+		ToggleTagMessage result = new ToggleTagMessage(tagModel, message.groupIds);
+		result.uniqueKey = uniqueKey;
+		String path = tagModel.getPath();
+		String uniquePath = uniqueKey != null ? uniqueKey.getPath() : null;
+		List<EventModel> replacedTags = new ArrayList<EventModel>();
+		for (int i = 0; i < targets.size; i++) {
+			TaggedEvent event = targets.events[i];
+			int groupId = targets.groupIds[i];
+			for (AbstractTagModel tag : event.getTagGroups().get(groupId)) {
+				String tagPath = tag.getPath();
+				if (isAncestorPath(tagPath, path)) {
+					replacedTags.add(new EventModel(event, groupId, tag));
+				} else if (isAncestorPath(path, tagPath)) {
+					result.addDescendant(event, groupId, tag);
+				} else if (uniquePath != null && !tagPath.equals(path)
+						&& (tagPath.equals(uniquePath) || isAncestorPath(uniquePath, tagPath))) {
+					result.addUniqueValue(event, groupId, tag);
 				}
 			}
-			if (!found || "~".equals(tagModel.getName())) {
-				associate(tagModel, groupIds);
-				return null;
+		}
+		toggleTiming.mark(ToggleTagTiming.Phase.CONFLICTS);
+		if (result.descendants.size() > 0 || result.uniqueValues.size() > 0) {
+			return result;
+		}
+		for (EventModel replaced : replacedTags) {
+			replaced.getTaggedEvent().removeTagFromGroup(replaced.getGroupId(), replaced.getTagModel());
+		}
+		boolean tilde = "~".equals(tagModel.getName());
+		Set<Integer> affectedGroups = new HashSet<Integer>();
+		for (int i = 0; i < targets.size; i++) {
+			TaggedEvent event = targets.events[i];
+			int groupId = targets.groupIds[i];
+			if ((tilde || !event.containsTagInGroup(groupId, tagModel)) && event.addTagToGroup(groupId, tagModel)) {
+				affectedGroups.add(groupId);
 			}
 		}
-		unassociate(tagModel, groupIds);
+		toggleTiming.mark(ToggleTagTiming.Phase.APPLY);
+		if (!replacedTags.isEmpty() || !affectedGroups.isEmpty()) {
+			HistoryItem historyItem = new HistoryItem();
+			historyItem.type = TaggerHistory.Type.REPLACED;
+			historyItem.groupsIds = affectedGroups;
+			historyItem.tagModel = tagModel;
+			historyItem.replacedTags = replacedTags;
+			history.add(historyItem);
+		}
+		toggleTiming.mark(ToggleTagTiming.Phase.HISTORY);
+		if (!replacedTags.isEmpty() || !affectedGroups.isEmpty()) {
+			fireChange(TaggerChangeEvent.Type.TAG_ADDED, tagModel, getChangedEvents(affectedGroups, replacedTags));
+		}
 		return null;
 	}
 
@@ -2520,11 +3129,33 @@ public class Tagger {
 	 * @return A TaggedEvent that contains the group id.
 	 */
 	public TaggedEvent getEventByGroupId(Integer groupId) {
+		return findEventByGroupId(groupId);
+	}
+
+	/**
+	 * Finds the event containing the group through the group index. The events
+	 * are only scanned if the index does not know the group, which happens
+	 * when the group was added or removed outside of the Tagger.
+	 * 
+	 * @param groupId
+	 *            The group id
+	 * @return The TaggedEvent that contains the group id, or null if no event
+	 *         contains it.
+	 */
+	private TaggedEvent findEventByGroupId(int groupId) {
+		TaggedEvent event = groupEvents.get(groupId);
+		if (event != null && event.containsGroup(groupId)) {
+			return event;
+		}
 		for (TaggedEvent currentEventModel : taggedEventSet) {
 			if (currentEventModel.containsGroup(groupId)) {
+				groupEvents.put(groupId, currentEventModel);
 				return currentEventModel;
 			}
 		}
+		if (event != null) {
+			groupEvents.remove(groupId, event);
+		}
 		return null;
 	}
 
@@ -2533,67 +3164,282 @@ public class Tagger {
 	 * groupIds before performing the association to make sure that none already
 	 * contain ancestors or descendants of the tag to add. If an ancestor,
 	 * descendant, or conflicting unique tag is found in a tag group, it is
-	 * added to the <code>ToggleTagMessage</code> to be returned.
+	 * added to the <code>ToggleTagMessage</code> to be returned. The conflicts
+	 * of each group are found through the path index of the group.
 	 * 
 	 * @param tagModel
+	 * @param targets
+	 *            The groups and the events containing them.
 	 * @param groupIds
 	 * @return A <code>ToggleTagMessage</code> containing the ancestor and
 	 *         descendant tags found in the desired tag groups. Returns null if
 	 *         no ancestor or descendant tags were found.
 	 */
-	private ToggleTagMessage toggleTagReplacePrefix(AbstractTagModel tagModel, Set<Integer> groupIds,
-			AbstractTagModel uniqueKey) {
+	private ToggleTagMessage toggleTagReplacePrefix(AbstractTagModel tagModel, ResolvedGroups targets,
+			Set<Integer> groupIds, AbstractTagModel uniqueKey) {
 		ToggleTagMessage result = new ToggleTagMessage(tagModel, groupIds);
+		result.uniqueKey = uniqueKey;
 		boolean missingTag = false;
 		boolean rrTag = isRRValue(tagModel);
-		for (Integer groupId : groupIds) {
-			for (TaggedEvent currentEventModel : taggedEventSet) {
-				if (currentEventModel.containsGroup(groupId)) {
-					if (rrTag && (groupId != currentEventModel.getEventGroupId())) {
-						// Attempt to add required/recommended tag to group
-						result.rrError = true;
-						return result;
-					}
-					AbstractTagModel tagFound = currentEventModel.findTagSharedPath(groupId, tagModel);
-					AbstractTagModel uniqueFound = null;
-					if (uniqueKey != null) {
-						uniqueFound = currentEventModel.findDescendant(groupId, uniqueKey);
-						result.uniqueKey = uniqueKey;
-					}
-					if (tagFound != null || uniqueFound != null) {
-						// Conflicting tags found
-						if (tagFound != null) {
-							String tagPathFound = tagFound.getPath();
-							if (tagPathFound.compareTo(tagModel.getPath()) > 0) {
-								// Descendant tag found in tag group
-								result.addDescendant(currentEventModel, groupId, tagFound);
-							} else if (tagPathFound.compareTo(tagModel.getPath()) < 0) {
-								// Parent tag found in tag group
-								result.addAncestor(currentEventModel, groupId, tagFound);
-							}
-						}
-						if (uniqueFound != null && !uniqueFound.getPath().equals(tagModel.getPath())
-								&& uniqueFound != tagFound) {
-							result.addUniqueValue(currentEventModel, groupId, uniqueFound);
-						}
-					} else {
-						// Group does not contain any conflicting tags
-						missingTag = true;
+		String path = tagModel.getPath();
+		for (int i = 0; i < targets.size; i++) {
+			TaggedEvent currentEventModel = targets.events[i];
+			int groupId = targets.groupIds[i];
+			if (rrTag && (groupId != currentEventModel.getEventGroupId())) {
+				// Attempt to add required/recommended tag to group
+				result.rrError = true;
+				return result;
+			}
+			AbstractTagModel tagFound = currentEventModel.findTagSharedPath(groupId, tagModel);
+			AbstractTagModel uniqueFound = null;
+			if (uniqueKey != null) {
+				uniqueFound = currentEventModel.findDescendant(groupId, uniqueKey);
+			}
+			if (tagFound != null || uniqueFound != null) {
+				// Conflicting tags found
+				if (tagFound != null) {
+					String tagPathFound = tagFound.getPath();
+					if (tagPathFound.compareTo(path) > 0) {
+						// Descendant tag found in tag group
+						result.addDescendant(currentEventModel, groupId, tagFound);
+					} else if (tagPathFound.compareTo(path) < 0) {
+						// Parent tag found in tag group
+						result.addAncestor(currentEventModel, groupId, tagFound);
 					}
 				}
+				if (uniqueFound != null && !uniqueFound.getPath().equals(path) && uniqueFound != tagFound) {
+					result.addUniqueValue(currentEventModel, groupId, uniqueFound);
+				}
+			} else {
+				// Group does not contain any conflicting tags
+				missingTag = true;
 			}
 		}
+		toggleTiming.mark(ToggleTagTiming.Phase.CONFLICTS);
 		if (result.ancestors.size() > 0 || result.descendants.size() > 0 || result.uniqueValues.size() > 0) {
 			return result;
 		}
-		if (missingTag || "~".equals(tagModel.getName())) {
-			associate(tagModel, groupIds);
-			return null;
-		}
-		unassociate(tagModel, groupIds);
+		applyToggle(tagModel, targets, missingTag || "~".equals(tagModel.getName()));
 		return null;
 	}
 
+	/**
+	 * Associates the tag to all of the groups or unassociates it from all of
+	 * them, adding a single entry in the history.
+	 */
+	private void applyToggle(AbstractTagModel tagModel, ResolvedGroups targets, boolean associate) {
+		Set<Integer> affectedGroups = new HashSet<Integer>();
+		for (int i = 0; i < targets.size; i++) {
+			int groupId = targets.groupIds[i];
+			boolean changed = associate ? targets.events[i].addTagToGroup(groupId, tagModel)
+					: targets.events[i].removeTagFromGroup(groupId, tagModel);
+			if (changed) {
+				affectedGroups.add(groupId);
+			}
+		}
+		toggleTiming.mark(ToggleTagTiming.Phase.APPLY);
+		if (!affectedGroups.isEmpty()) {
+			HistoryItem historyItem = new HistoryItem();
+			historyItem.type = associate ? TaggerHistory.Type.ASSOCIATED : TaggerHistory.Type.UNASSOCIATED;
+			historyItem.groupsIds = affectedGroups;
+			historyItem.tagModel = tagModel;
+			history.add(historyItem);
+		}
+		toggleTiming.mark(ToggleTagTiming.Phase.HISTORY);
+		fireGroupsChanged(associate ? TaggerChangeEvent.Type.TAG_ADDED : TaggerChangeEvent.Type.TAG_REMOVED, tagModel,
+				affectedGroups);
+	}
+
+	/**
+	 * Checks whether a path is a strict ancestor of another path without
+	 * building the ancestor path with a trailing slash.
+	 */
+	private static boolean isAncestorPath(String ancestorPath, String path) {
+		int length = ancestorPath.length();
+		return path.length() > length && path.charAt(length) == '/' && path.startsWith(ancestorPath);
+	}
+
+	/**
+	 * Notifies the listeners of a change to a single event.
+	 */
+	private void fireChange(TaggerChangeEvent.Type type, AbstractTagModel tagModel, TaggedEvent event) {
+		if (changeListeners.isEmpty()) {
+			return;
+		}
+		Set<TaggedEvent> events = newEventSet();
+		events.add(event);
+		fireChange(new TaggerChangeEvent(this, type, tagModel, events));
+	}
+
+	/**
+	 * Notifies the listeners of a change to the given events.
+	 */
+	private void fireChange(TaggerChangeEvent.Type type, AbstractTagModel tagModel, Collection<TaggedEvent> events) {
+		if (changeListeners.isEmpty() || events.isEmpty()) {
+			return;
+		}
+		Set<TaggedEvent> changedEvents = newEventSet();
+		changedEvents.addAll(events);
+		fireChange(new TaggerChangeEvent(this, type, tagModel, changedEvents));
+	}
+
+	private void fireChange(TaggerChangeEvent e) {
+		// A listener may remove itself when it is notified
+		for (TaggerChangeListener listener : changeListeners
+				.toArray(new TaggerChangeListener[changeListeners.size()])) {
+			listener.taggerChanged(e);
+		}
+	}
+
+	/**
+	 * Notifies the listeners of an edit to the code or label of an event.
+	 */
+	private void fireEventEdited(AbstractEventModel eventModel) {
+		if (changeListeners.isEmpty()) {
+			return;
+		}
+		for (TaggedEvent taggedEvent : taggedEventSet) {
+			if (taggedEvent.getEventModel() == eventModel) {
+				fireChange(TaggerChangeEvent.Type.EVENT_EDITED, null, taggedEvent);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Notifies the listeners of a change to the events containing the given
+	 * groups.
+	 */
+	private void fireGroupsChanged(TaggerChangeEvent.Type type, AbstractTagModel tagModel, Set<Integer> groupIds) {
+		if (changeListeners.isEmpty() || groupIds.isEmpty()) {
+			return;
+		}
+		fireChange(type, tagModel, getChangedEvents(groupIds, null));
+	}
+
+	private void fireHierarchyEdited(AbstractTagModel tagModel) {
+		if (!changeListeners.isEmpty()) {
+			fireChange(new TaggerChangeEvent(this, TaggerChangeEvent.Type.HIERARCHY_EDITED, tagModel, newEventSet()));
+		}
+	}
+
+	/**
+	 * Notifies the listeners of the change made by undoing or redoing an item
+	 * of the history.
+	 * 
+	 * @param item
+	 *            The item that was undone or redone, or null if there was
+	 *            nothing to undo or redo.
+	 * @param undone
+	 *            True if the item was undone, false if it was redone.
+	 */
+	private void fireHistoryChange(HistoryItem item, boolean undone) {
+		if (item == null || changeListeners.isEmpty()) {
+			return;
+		}
+		switch (item.type) {
+		case ASSOCIATED:
+		case REPLACED:
+			fireChange(undone ? TaggerChangeEvent.Type.TAG_REMOVED : TaggerChangeEvent.Type.TAG_ADDED, item.tagModel,
+					getChangedEvents(item.groupsIds, item.replacedTags));
+			break;
+		case UNASSOCIATED:
+			fireChange(undone ? TaggerChangeEvent.Type.TAG_ADDED : TaggerChangeEvent.Type.TAG_REMOVED, item.tagModel,
+					getChangedEvents(item.groupsIds, null));
+			break;
+		case EVENT_ADDED:
+			fireChange(undone ? TaggerChangeEvent.Type.EVENT_REMOVED : TaggerChangeEvent.Type.EVENT_ADDED, null,
+					item.event);
+			break;
+		case EVENT_REMOVED:
+			fireChange(undone ? TaggerChangeEvent.Type.EVENT_ADDED : TaggerChangeEvent.Type.EVENT_REMOVED, null,
+					item.event);
+			break;
+		case GROUP_ADDED:
+			fireChange(undone ? TaggerChangeEvent.Type.GROUP_REMOVED : TaggerChangeEvent.Type.GROUP_ADDED, null,
+					item.event);
+			break;
+		case GROUPS_ADDED:
+			fireChange(undone ? TaggerChangeEvent.Type.GROUP_REMOVED : TaggerChangeEvent.Type.GROUP_ADDED, null,
+					item.events);
+			break;
+		case GROUP_REMOVED:
+			fireChange(undone ? TaggerChangeEvent.Type.GROUP_ADDED : TaggerChangeEvent.Type.GROUP_REMOVED, null,
+					item.event);
+			break;
+		case EVENT_EDITED:
+			if (item.event != null) {
+				fireChange(TaggerChangeEvent.Type.EVENT_EDITED, null, item.event);
+			} else {
+				fireEventEdited(item.eventModel);
+			}
+			break;
+		default:
+			fireHierarchyEdited(item.tagModel);
+			break;
+		}
+	}
+
+	/**
+	 * Gets the events containing the given groups and the events that the
+	 * given replaced tags were removed from.
+	 */
+	private Set<TaggedEvent> getChangedEvents(Set<Integer> groupIds, List<EventModel> replacedTags) {
+		Set<TaggedEvent> events = newEventSet();
+		if (groupIds != null) {
+			for (Integer groupId : groupIds) {
+				TaggedEvent event = findEventByGroupId(groupId);
+				if (event != null) {
+					events.add(event);
+				}
+			}
+		}
+		if (replacedTags != null) {
+			for (EventModel replaced : replacedTags) {
+				events.add(replaced.getTaggedEvent());
+			}
+		}
+		return events;
+	}
+
+	/**
+	 * Creates a set of events that are compared by identity, as events with
+	 * the same code are equal.
+	 */
+	private static Set<TaggedEvent> newEventSet() {
+		return Collections.newSetFromMap(new IdentityHashMap<TaggedEvent, Boolean>());
+	}
+
+	/**
+	 * Finds the events containing the given groups through the group index.
+	 * Groups that are not in any event are left out.
+	 */
+	private ResolvedGroups resolveGroups(Set<Integer> groupIds) {
+		ResolvedGroups targets = new ResolvedGroups(groupIds.size());
+		for (Integer groupId : groupIds) {
+			TaggedEvent event = findEventByGroupId(groupId);
+			if (event != null) {
+				targets.groupIds[targets.size] = groupId;
+				targets.events[targets.size++] = event;
+			}
+		}
+		return targets;
+	}
+
+	/**
+	 * Group IDs and the events containing them, in the order of the selection.
+	 */
+	private static class ResolvedGroups {
+		final int[] groupIds;
+		final TaggedEvent[] events;
+		int size;
+
+		ResolvedGroups(int capacity) {
+			groupIds = new int[capacity];
+			events = new TaggedEvent[capacity];
+		}
+	}
+
 	/**
 	 * Unassociates the tag from the group ids. Adds an entry in the history.
 	 * 
@@ -2610,6 +3456,7 @@ public class Tagger {
 			historyItem.groupsIds = affectedGroups;
 			historyItem.tagModel = tagModel;
 			history.add(historyItem);
+			fireGroupsChanged(TaggerChangeEvent.Type.TAG_REMOVED, tagModel, affectedGroups);
 		}
 	}
 
@@ -2632,6 +3479,7 @@ public class Tagger {
 			historyItem.tagModel = tagModel;
 			historyItem.eventModel = eventModel;
 			history.add(historyItem);
+			fireGroupsChanged(TaggerChangeEvent.Type.TAG_REMOVED, tagModel, affectedGroups);
 		}
 	}
 
@@ -2652,6 +3500,7 @@ public class Tagger {
 			historyItem.groupsIds = affectedGroups;
 			historyItem.tagModel = tagModel;
 			history.add(historyItem);
+			fireGroupsChanged(TaggerChangeEvent.Type.TAG_REMOVED, tagModel, affectedGroups);
 		}
 	}
 
@@ -2667,13 +3516,9 @@ public class Tagger {
 	public Set<Integer> unassociateBase(AbstractTagModel tagModel, Set<Integer> groupIds) {
 		Set<Integer> affectedGroups = new HashSet<Integer>();
 		for (Integer groupId : groupIds) {
-			for (TaggedEvent currentTaggedEvent : taggedEventSet) {
-				if (currentTaggedEvent.removeTagFromGroup(groupId, tagModel)) {
-					affectedGroups.add(groupId);
-					if (tagModel.getPath().startsWith("Event/label")) {
-
-					}
-				}
+			TaggedEvent taggedEvent = findEventByGroupId(groupId);
+			if (taggedEvent != null && taggedEvent.removeTagFromGroup(groupId, tagModel)) {
+				affectedGroups.add(groupId);
 			}
 		}
 		return affectedGroups;
@@ -2683,27 +3528,9 @@ public class Tagger {
 	 * Undo the most recent action.
 	 */
 	public HistoryItem undo() {
-		return history.undo();
-	}
-
-	/**
-	 * Creates the XML model of the EGT set. This includes events, tag groups,
-	 * and tag paths.
-	 * 
-	 * @return Complete XML model containing EGT set information.
-	 */
-	private UnitClassesXmlModel unitClassesToXmlModel() {
-		UnitClassesXmlModel unitClassesXml = new UnitClassesXmlModel();
-		Iterator<String> unitClassKeys = unitClasses.keySet().iterator();
-		while (unitClassKeys.hasNext()) {
-			String key = unitClassKeys.next();
-			UnitClassXmlModel unitClassXml = new UnitClassXmlModel();
-			unitClassXml.setName(key);
-			unitClassXml.setUnits(unitClasses.get(key));
-			unitClassXml.setDefault(unitClassDefaults.get(key));
-			unitClassesXml.addUnitClass(unitClassXml);
-		}
-		return unitClassesXml;
+		HistoryItem item = history.undo();
+		fireHistoryChange(item, true);
+		return item;
 	}
 
 	/**
@@ -2719,24 +3546,16 @@ public class Tagger {
 			return;
 		}
 		String searchPath = tag.getParentPath();
-		for (AbstractTagModel currentTag : tagList) {
-			if (currentTag.getPath().equals(tag.getPath())) {
+		if (findTagPath(tag.getPath()) != null) {
+			tag.setMissing(false);
+			return;
+		}
+		if (searchPath != null) {
+			String path = tag.getPath();
+			if (matchTakesValueTag(searchPath, path, path.lastIndexOf('/') + 1) != null) {
 				tag.setMissing(false);
 				return;
 			}
-			if (currentTag.getPath().equals(searchPath)) {
-				TaggerSet<AbstractTagModel> childTags = getSubHierarchy(searchPath);
-				for (AbstractTagModel childTag : childTags) {
-					if (childTag.getPath().equals(tag.getPath())) {
-						tag.setMissing(false);
-						return;
-					}
-					if (childTag.takesValue() && matchTakesValueTag(childTag.getName(), tag.getName())) {
-						tag.setMissing(false);
-						return;
-					}
-				}
-			}
 		}
 		tag.setMissing(true);
 	}
@@ -2795,14 +3614,14 @@ public class Tagger {
 		String newPath = tagModel.getParentPath() + "/" + name;
 		String newPrefix = newPath + "/";
 		// Update this tag
-		tagModel.setPath(newPath);
+		setTagPath(tagModel, newPath);
 		// Update any descendants
 		for (int i = tagList.indexOf(tagModel) + 1; i < tagList.size(); i++) {
 			AbstractTagModel currentTag = tagList.get(i);
 			String currentPath = currentTag.getPath();
 			if (currentPath.startsWith(prefix)) {
 				String updatedPath = currentPath.replaceFirst(prefix, newPrefix);
-				currentTag.setPath(updatedPath);
+				setTagPath(currentTag, updatedPath);
 			} else {
 				break;
 			}
@@ -2822,381 +3641,89 @@ public class Tagger {
 	}
 
 	/**
-	 * Writes the tab-delimited text representing the current events in the
-	 * tagger to the given BufferedWriter
+	 * Writes the HED hierarchy and unit classes in the HED XML format to the
+	 * given stream in UTF-8, straight from the tags of the Tagger. The stream
+	 * is flushed but not closed.
 	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events
-	 * @return True if the write completed without errors, false otherwise
-	 */
-	private boolean writeHeader(BufferedWriter eventWriter) {
-		try {
-			eventWriter.write(tsvHeader[0]);
-			for (int i = 1; i < tsvHeader.length; i++) {
-				eventWriter.write("\t" + tsvHeader[i]);
-			}
-			eventWriter.newLine();
-		} catch (IOException e) {
-			System.err.println("Error writing tab-delimited text: " + e.getMessage());
-			return false;
-		}
-		return true;
-	}
-
-	/**
-	 * Writes the tab-delimited text representing the current events in the
-	 * tagger to the given BufferedWriter
-	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events
-	 * @return True if the write completed without errors, false otherwise
+	 * @param out
+	 *            The stream to write to.
 	 * @throws IOException
+	 *             If the stream cannot be written to.
+	 * @throws XMLStreamException
+	 *             If the XML cannot be written.
 	 */
-	private boolean writeTSVFile(BufferedWriter eventWriter) throws IOException {
-		writeHeader(eventWriter);
-		for (TaggedEvent event : taggedEventSet) {
-			writeEventCode(eventWriter, event);
-			writeEventCategory(eventWriter, event);
-			writeEventLabel(eventWriter, event);
-			writeEventLongName(eventWriter, event);
-			writeEventDescription(eventWriter, event);
-			writeOtherTags(eventWriter, event);
-		}
-		return true;
+	public void writeHedXml(OutputStream out) throws IOException, XMLStreamException {
+		new TaggerXmlStreamWriter(this).writeHed(out, version, true);
 	}
 
 	/**
-	 * Writes all of the tags belonging to an event to a tab-delimited file.
+	 * Writes the tagged events in JSON format to the given stream in UTF-8,
+	 * straight from the events of the Tagger. The stream is flushed but not
+	 * closed.
 	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events.
-	 * @param event
-	 *            The event that the tag belongs to.
-	 * @return True if the write completed without errors, false otherwise.
+	 * @param out
+	 *            The stream to write to.
 	 * @throws IOException
+	 *             If the stream cannot be written to.
 	 */
-	private boolean writeOtherTags(BufferedWriter eventWriter, TaggedEvent event) throws IOException {
-		boolean previous = false;
-		for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> entry : event.getTagGroups().entrySet()) {
-			if (previous)
-				eventWriter.append(',');
-			if (entry.getKey() == event.getEventGroupId())
-				previous = writeEventLevelTags(eventWriter, entry);
-			else
-				previous = writeGroupTags(eventWriter, entry);
-		}
-		writeNewLine(eventWriter, event);
-		return true;
-	}
-
-	/**
-	 * Writes a new line to the tab-delimited file.
-	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events.
-	 * @param event
-	 *            The event that the tag belongs to.
-	 */
-	private void writeNewLine(BufferedWriter eventWriter, TaggedEvent event) {
-		try {
-			eventWriter.newLine();
-		} catch (IOException e) {
-			System.err
-					.println("Could not write new line for event: " + event.getEventModel().getCode() + e.getMessage());
-		}
-	}
-
-	/**
-	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events to a file.
-	 * @param entry
-	 *            TaggerSet entry.
-	 * @return The path of the tag written to the tab-delimited file.
-	 * @throws IOException
-	 */
-	private boolean writeEventLevelTags(BufferedWriter eventWriter,
-			Map.Entry<Integer, TaggerSet<AbstractTagModel>> entry) throws IOException {
-		boolean previous = false;
-		boolean nonHeaderTags = false;
-		if (!entry.getValue().isEmpty()) {
-			if (!isHeaderTag(entry.getValue().get(0))) {
-				eventWriter.write(entry.getValue().get(0).getPath());
-				previous = true;
-				nonHeaderTags = true;
-			}
-			for (int i = 1; i < entry.getValue().size(); i++) {
-				if (!isHeaderTag(entry.getValue().get(i))) {
-					writeEventTag(eventWriter, entry.getValue().get(i), previous);
-					previous = true;
-					nonHeaderTags = true;
-				}
-			}
-		}
-		return nonHeaderTags;
-	}
-
-	/**
-	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events to a file.
-	 * @param entry
-	 *            TaggerSet entry.
-	 * @return The path of the tag written to the tab-delimited file.
-	 * @throws IOException
-	 */
-	private boolean writeGroupTags(BufferedWriter eventWriter, Map.Entry<Integer, TaggerSet<AbstractTagModel>> entry)
-			throws IOException {
-		if (!entry.getValue().isEmpty()) {
-			eventWriter.append('(');
-			eventWriter.write(entry.getValue().get(0).getPath());
-			for (int i = 1; i < entry.getValue().size(); i++) {
-				if (!isHeaderTag(entry.getValue().get(i))) {
-					writeEventTag(eventWriter, entry.getValue().get(i), true);
-				}
-			}
-			eventWriter.append(')');
-		}
-		return true;
-	}
-
-	/**
-	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events.
-	 * @param tag
-	 *            The tag that is written to the tab-delimited events.
-	 * @return The path of the tag.
-	 * @throws IOException
-	 *             An exception that occurs because the tag cannot be written.
-	 */
-	private void writeEventTag(BufferedWriter eventWriter, AbstractTagModel tag, boolean previous) throws IOException {
-		String tagPath = tag.getPath();
-		try {
-			if (previous)
-				eventWriter.append(',');
-			eventWriter.write(tag.getPath());
-		} catch (IOException e) {
-			System.err.println("Error writing tag: " + tagPath + e.getMessage());
-		}
-	}
-
-	/**
-	 * Writes the code belonging to an event.
-	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events
-	 * @param event
-	 *            The event that the code belongs to.
-	 * @return True if the write completed without errors, false otherwise
-	 */
-	private boolean writeEventCode(BufferedWriter eventWriter, TaggedEvent event) {
-		try {
-			eventWriter.write(event.getEventModel().getCode() + "\t");
-		} catch (IOException e) {
-			System.err.println("Error writing event code: " + event.getEventModel().getCode() + e.getMessage());
-			return false;
-		}
-		return true;
-	}
-
-	/**
-	 * Writes the label belonging to an event.
-	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events
-	 * @param event
-	 *            The event that the label belongs to.
-	 * @return True if the write completed without errors, false otherwise
-	 */
-	private boolean writeEventLabel(BufferedWriter eventWriter, TaggedEvent event) {
-		AbstractTagModel labelTag = getEventLabelTag(event);
-		try {
-			if (labelTag.getPath() == null)
-				eventWriter.write("\t");
-			else
-				eventWriter.write(labelTag.getPath() + "\t");
-		} catch (IOException e) {
-			System.err.println("Error writing event label: " + labelTag.getPath() + e.getMessage());
-			return false;
-		}
-		return true;
+	public void writeJsonEvents(OutputStream out) throws IOException {
+		JsonGenerator generator = JsonMapperRegistry.getFactory().createGenerator(out, JsonEncoding.UTF8);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		writeJsonEvents(generator);
 	}
 
 	/**
-	 * Writes the description belonging to an event.
-	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events
-	 * @param event
-	 *            The event that the description belongs to.
-	 * @return True if the write completed without errors, false otherwise
+	 * Writes each event as an object with its code and tags, and closes the
+	 * generator. Each event-level tag is written as a list of its own and each
+	 * tag group as a list of its tags, in the order of the groups.
 	 */
-	private boolean writeEventDescription(BufferedWriter eventWriter, TaggedEvent event) {
-		AbstractTagModel descriptionTag = getEventDescriptionTag(event);
+	private void writeJsonEvents(JsonGenerator generator) throws IOException {
 		try {
-			if (descriptionTag.getPath() == null)
-				eventWriter.write("\t");
-			else
-				eventWriter.write(descriptionTag.getPath() + "\t");
-		} catch (IOException e) {
-			System.err.println("Error writing event description: " + descriptionTag.getPath() + e.getMessage());
-			return false;
-		}
-		return true;
-	}
-
-	/**
-	 * Writes the long name belonging to an event.
-	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events
-	 * @param event
-	 *            The event that the long name belongs to.
-	 * @return True if the write completed without errors, false otherwise
-	 */
-	private boolean writeEventLongName(BufferedWriter eventWriter, TaggedEvent event) {
-		AbstractTagModel longNameTag = getEventLongNameTag(event);
-		try {
-			if (longNameTag.getPath() == null)
-				eventWriter.write("\t");
-			else
-				eventWriter.write(longNameTag.getPath() + "\t");
-		} catch (IOException e) {
-			System.err.println("Error writing event long name: " + longNameTag.getPath() + e.getMessage());
-			return false;
-		}
-		return true;
-	}
-
-	/**
-	 * Returns the description tag in the event if found.
-	 * 
-	 * @param event
-	 *            The event that the tag belongs to.
-	 * @return The description tag if found, null if not found.
-	 */
-	private AbstractTagModel getEventDescriptionTag(TaggedEvent event) {
-		AbstractTagModel defaultTagModel = factory.createAbstractTagModel(this);
-		for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> entry : event.getTagGroups().entrySet()) {
-			if (entry.getKey() == event.getEventGroupId()) {
-				for (AbstractTagModel tag : entry.getValue()) {
-					if (tag.getPath().toLowerCase().startsWith("event/description")) {
-						return tag;
-					}
-				}
-			}
-		}
-		return defaultTagModel;
-	}
-
-	/**
-	 * Returns the long name tag in the event if found.
-	 * 
-	 * @param event
-	 *            The event that the tag belongs to.
-	 * @return The long name tag if found, null if not found.
-	 */
-	private AbstractTagModel getEventLongNameTag(TaggedEvent event) {
-		AbstractTagModel defaultTagModel = factory.createAbstractTagModel(this);
-		for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> entry : event.getTagGroups().entrySet()) {
-			if (entry.getKey() == event.getEventGroupId()) {
-				for (AbstractTagModel tag : entry.getValue()) {
-					if (tag.getPath().toLowerCase().startsWith("event/long name")) {
-						return tag;
-					}
-				}
-			}
-		}
-		return defaultTagModel;
-	}
-
-	/**
-	 * Returns the label tag in the event if found.
-	 * 
-	 * @param event
-	 *            The event that the tag belongs to.
-	 * @return The label tag if found, null if not found.
-	 */
-	private AbstractTagModel getEventLabelTag(TaggedEvent event) {
-		AbstractTagModel defaultTagModel = factory.createAbstractTagModel(this);
-		for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> entry : event.getTagGroups().entrySet()) {
-			if (entry.getKey() == event.getEventGroupId()) {
-				for (AbstractTagModel tag : entry.getValue()) {
-					if (tag.getPath().toLowerCase().startsWith("event/label")) {
-						return tag;
-					}
-				}
-			}
-		}
-		return defaultTagModel;
-	}
-
-	/**
-	 * Returns the category tags in the event if found.
-	 * 
-	 * @param event
-	 *            The event that the tags belongs to.
-	 * @return The category tags if found, null if not found.
-	 */
-	private List<AbstractTagModel> getEventCategoryTags(TaggedEvent event) {
-		List<AbstractTagModel> categoryTags = new ArrayList<AbstractTagModel>();
-		for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> entry : event.getTagGroups().entrySet()) {
-			if (entry.getKey() == event.getEventGroupId()) {
-				for (AbstractTagModel tag : entry.getValue()) {
-					if (tag.getPath().toLowerCase().startsWith("event/category")) {
-						categoryTags.add(tag);
+			generator.setPrettyPrinter(new DefaultPrettyPrinter());
+			generator.writeStartArray();
+			for (TaggedEvent event : taggedEventSet) {
+				generator.writeStartObject();
+				generator.writeStringField("code", event.getEventModel().getCode());
+				generator.writeArrayFieldStart("tags");
+				for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> entry : event.getTagGroups().entrySet()) {
+					if (entry.getKey() == event.getEventGroupId()) {
+						// Event level tags
+						for (AbstractTagModel tag : entry.getValue()) {
+							generator.writeStartArray();
+							generator.writeString(tag.getPath());
+							generator.writeEndArray();
+						}
+					} else {
+						// Tag groups
+						generator.writeStartArray();
+						for (AbstractTagModel tag : entry.getValue()) {
+							generator.writeString(tag.getPath());
+						}
+						generator.writeEndArray();
 					}
 				}
+				generator.writeEndArray();
+				generator.writeEndObject();
 			}
+			generator.writeEndArray();
+		} finally {
+			generator.close();
 		}
-		return categoryTags;
-	}
-
-	/**
-	 * Checks to see if the tag is a header tag.
-	 * 
-	 * @param tag
-	 *            The event tag.
-	 * @return True if the tag is a header tag, False if otherwise.
-	 */
-	private boolean isHeaderTag(AbstractTagModel tag) {
-		if (tag.getPath().toLowerCase().startsWith("event/category")
-				|| tag.getPath().toLowerCase().startsWith("event/label")
-				|| tag.getPath().toLowerCase().startsWith("event/long name")
-				|| tag.getPath().toLowerCase().startsWith("event/description")) {
-			return true;
-		}
-		return false;
 	}
 
 	/**
-	 * Writes the long name belonging to an event.
+	 * Writes the tagged events and HED hierarchy in the TaggerData XML format
+	 * to the given stream in UTF-8, straight from the events and tags of the
+	 * Tagger. The stream is flushed but not closed.
 	 * 
-	 * @param eventWriter
-	 *            BufferedWriter used to write tab-delimited events
-	 * @param event
-	 *            The event that the category name belongs to.
-	 * @return True if the write completed without errors, false otherwise
+	 * @param out
+	 *            The stream to write to.
+	 * @throws IOException
+	 *             If the stream cannot be written to.
+	 * @throws XMLStreamException
+	 *             If the XML cannot be written.
 	 */
-	private boolean writeEventCategory(BufferedWriter eventWriter, TaggedEvent event) {
-		String tagPath = new String();
-		List<AbstractTagModel> categoryTags = getEventCategoryTags(event);
-		try {
-			if (!categoryTags.isEmpty()) {
-				tagPath = categoryTags.get(0).getPath();
-				eventWriter.write(categoryTags.get(0).getPath());
-				for (int i = 1; i < categoryTags.size(); i++) {
-					tagPath = categoryTags.get(i).getPath();
-					eventWriter.write("," + categoryTags.get(i).getPath());
-				}
-			}
-			eventWriter.write("\t");
-		} catch (IOException e) {
-			System.err.println("Error writing event category: " + tagPath + e.getMessage());
-			return false;
-		}
-
-		return true;
+	public void writeXmlData(OutputStream out) throws IOException, XMLStreamException {
+		new TaggerXmlStreamWriter(this).writeTaggerData(out, version);
 	}
 }
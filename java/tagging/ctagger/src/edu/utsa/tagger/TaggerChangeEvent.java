@@ -0,0 +1,60 @@
+package edu.utsa.tagger;
+
+import java.util.Set;
+
+/**
+ * This class describes a change made to the events or the tag hierarchy of a
+ * Tagger. A change is published once an operation, or the undo or redo of an
+ * operation, is complete, with the events whose tags, groups, code or label
+ * changed. Changes to the hierarchy have no events, as they can affect any of
+ * the events.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class TaggerChangeEvent {
+
+	// Type of change
+	public enum Type {
+		TAG_ADDED, TAG_REMOVED, GROUP_ADDED, GROUP_REMOVED, EVENT_ADDED, EVENT_REMOVED, EVENT_EDITED, HIERARCHY_EDITED
+	};
+
+	private Tagger tagger;
+	private Type type;
+	private AbstractTagModel tagModel;
+	private Set<TaggedEvent> events;
+
+	public TaggerChangeEvent(Tagger tagger, Type type, AbstractTagModel tagModel, Set<TaggedEvent> events) {
+		this.tagger = tagger;
+		this.type = type;
+		this.tagModel = tagModel;
+		this.events = events;
+	}
+
+	/**
+	 * Gets the events that changed.
+	 *
+	 * @return The events that changed, which are empty for changes to the
+	 *         hierarchy.
+	 */
+	public Set<TaggedEvent> getEvents() {
+		return events;
+	}
+
+	/**
+	 * Gets the tag that was added, removed or edited.
+	 *
+	 * @return The tag, or null if the change is not about a single tag.
+	 */
+	public AbstractTagModel getTagModel() {
+		return tagModel;
+	}
+
+	public Tagger getTagger() {
+		return tagger;
+	}
+
+	public Type getType() {
+		return type;
+	}
+}
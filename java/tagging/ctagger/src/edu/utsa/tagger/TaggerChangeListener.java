@@ -0,0 +1,19 @@
+package edu.utsa.tagger;
+
+/**
+ * This interface is implemented by the classes that are notified of the
+ * changes made to a Tagger.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public interface TaggerChangeListener {
+
+	/**
+	 * Called after a change is made to the events or the tag hierarchy.
+	 *
+	 * @param e
+	 *            The change.
+	 */
+	public void taggerChanged(TaggerChangeEvent e);
+}
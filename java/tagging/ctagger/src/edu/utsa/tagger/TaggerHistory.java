@@ -16,7 +16,7 @@ public class TaggerHistory {
 
 	// Type of undoable action
 	public enum Type {
-		TAG_ADDED, TAG_REMOVED, EVENT_ADDED, EVENT_REMOVED, GROUP_ADDED, GROUPS_ADDED, GROUP_REMOVED, TAG_EDITED, TAG_PATH_EDITED, EVENT_EDITED, ASSOCIATED, UNASSOCIATED
+		TAG_ADDED, TAG_REMOVED, EVENT_ADDED, EVENT_REMOVED, GROUP_ADDED, GROUPS_ADDED, GROUP_REMOVED, TAG_EDITED, TAG_PATH_EDITED, EVENT_EDITED, ASSOCIATED, UNASSOCIATED, REPLACED
 	};
 
 	private Tagger tagger;
@@ -101,6 +101,8 @@ public class TaggerHistory {
 			return "tag event(s)";
 		case UNASSOCIATED:
 			return "untag event(s)";
+		case REPLACED:
+			return "replace tag(s)";
 		}
 		return "";
 	}
@@ -202,6 +204,9 @@ public class TaggerHistory {
 		case UNASSOCIATED:
 			redoUnassociate(item);
 			break;
+		case REPLACED:
+			redoReplace(item);
+			break;
 		}
 		return item;
 	}
@@ -285,6 +290,16 @@ public class TaggerHistory {
 		}
 	}
 
+	private void redoReplace(HistoryItem item) {
+		if (item.tagModel != null && item.groupsIds != null && item.replacedTags != null) {
+			for (EventModel replaced : item.replacedTags) {
+				replaced.getTaggedEvent().removeTagFromGroup(replaced.getGroupId(), replaced.getTagModel());
+			}
+			tagger.associateBase(item.tagModel, item.groupsIds);
+			addToUndo(item);
+		}
+	}
+
 	private void redoTagEdited(HistoryItem item) {
 		if (item.tagModelCopy != null && item.tagModel != null) {
 			GuiTagModel original = item.tagModelCopy;
@@ -365,6 +380,9 @@ public class TaggerHistory {
 		case UNASSOCIATED:
 			undoUnassociate(item);
 			break;
+		case REPLACED:
+			undoReplace(item);
+			break;
 		}
 		return item;
 	}
@@ -452,6 +470,16 @@ public class TaggerHistory {
 		}
 	}
 
+	private void undoReplace(HistoryItem item) {
+		if (item.tagModel != null && item.groupsIds != null && item.replacedTags != null) {
+			tagger.unassociateBase(item.tagModel, item.groupsIds);
+			for (EventModel replaced : item.replacedTags) {
+				replaced.getTaggedEvent().addTagToGroup(replaced.getGroupId(), replaced.getTagModel());
+			}
+			addToRedo(item);
+		}
+	}
+
 	private void undoTagEdited(HistoryItem item) {
 		if (item.tagModelCopy != null && item.tagModel != null) {
 			GuiTagModel original = item.tagModelCopy;
@@ -1,39 +1,88 @@
 package edu.utsa.tagger;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
 import java.util.NoSuchElementException;
 import java.util.SortedSet;
 
 /**
  * This class represents an ordered set with order that can be changed
  * dynamically; can used for tags and events.
- * 
+ *
+ * The elements are kept in an array in their insertion (or sorted) order, and
+ * a hash index maps each element to the position of its first occurrence, so
+ * that membership tests, positional access and index lookups take constant
+ * time. The index relies on the hash codes of the elements. Elements whose
+ * hash codes change while they are in a set (a tag whose path is edited or an
+ * event whose code is edited) must report the change through
+ * <code>keysChanged</code> so that the index is rebuilt on the next lookup.
+ *
  * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
  *         Robbins
  */
 public class TaggerSet<E extends Comparable<? super E>> implements SortedSet<E> {
 
-	private LinkedList<E> set;
+	private static final int DEFAULT_CAPACITY = 10;
+	// Incremented whenever the hash key of an element already in a set changes
+	private static volatile int keyEpoch = 0;
+
+	private Object[] elements;
+	private int size;
+	// Maps each element to the position of its first occurrence
+	private HashMap<Object, Integer> index;
+	private int indexEpoch;
+	private int modCount;
 
 	public TaggerSet() {
-		set = new LinkedList<E>();
+		elements = new Object[DEFAULT_CAPACITY];
+		index = new HashMap<Object, Integer>();
+		indexEpoch = keyEpoch;
+	}
+
+	private TaggerSet(Object[] data, int from, int to) {
+		elements = Arrays.copyOfRange(data, from, Math.max(to, from + DEFAULT_CAPACITY));
+		size = to - from;
+		index = new HashMap<Object, Integer>();
+		rebuildIndex();
 	}
 
-	private TaggerSet(List<E> data) {
-		set = new LinkedList<E>();
-		set.addAll(data);
+	/**
+	 * Notifies all sets that the hash key of an element that may be contained
+	 * in a set has changed. Each set rebuilds its index the next time it is
+	 * queried.
+	 */
+	static void keysChanged() {
+		keyEpoch++;
+	}
+
+	/**
+	 * Gets the number of times the hash key of an element in a set changed.
+	 * Like the index, structures built from the elements of a set are out of
+	 * date once this number changes.
+	 *
+	 * @return The current key epoch.
+	 */
+	static int getKeyEpoch() {
+		return keyEpoch;
+	}
+
+	/**
+	 * Gets the number of times this set has been changed.
+	 *
+	 * @return The modification count of the set.
+	 */
+	int getModCount() {
+		return modCount;
 	}
 
 	/**
 	 * Appends the specified element to the end of this ordered set if it was
 	 * not already contained in the set.
-	 * 
+	 *
 	 * @param element
 	 *            The element to append to the set.
 	 * @return True if the element was added to the end of the ordered set,
@@ -41,8 +90,9 @@ public class TaggerSet<E extends Comparable<? super E>> implements SortedSet<E>
 	 */
 	@Override
 	public boolean add(E elem) {
-		if (!set.contains(elem)) {
-			return set.add(elem);
+		if (!contains(elem)) {
+			append(elem);
+			return true;
 		}
 		return false;
 	}
@@ -50,7 +100,7 @@ public class TaggerSet<E extends Comparable<? super E>> implements SortedSet<E>
 	/**
 	 * Appends the specified element to the end of this ordered set. If
 	 * allowDuplicate is true, a duplicate element can be added.
-	 * 
+	 *
 	 * @param elem
 	 *            The element to add.
 	 * @param allowDuplicate
@@ -58,8 +108,9 @@ public class TaggerSet<E extends Comparable<? super E>> implements SortedSet<E>
 	 * @return
 	 */
 	public boolean add(E elem, boolean allowDuplicate) {
-		if (!set.contains(elem) || allowDuplicate) {
-			return set.add(elem);
+		if (!contains(elem) || allowDuplicate) {
+			append(elem);
+			return true;
 		}
 		return false;
 	}
@@ -67,7 +118,7 @@ public class TaggerSet<E extends Comparable<? super E>> implements SortedSet<E>
 	/**
 	 * Inserts the element at the specified position in this ordered set if the
 	 * element was not already in the set.
-	 * 
+	 *
 	 * @param index
 	 *            Index at which to add element
 	 * @param element
@@ -76,9 +127,8 @@ public class TaggerSet<E extends Comparable<? super E>> implements SortedSet<E>
 	 *         false otherwise (if the element was already part of the set)
 	 */
 	public boolean add(int index, E element) {
-		if (!set.contains(element)) {
-			ListIterator<E> it = set.listIterator(index);
-			it.add(element);
+		if (!contains(element)) {
+			insert(index, element);
 			return true;
 		}
 		return false;
@@ -87,7 +137,7 @@ public class TaggerSet<E extends Comparable<? super E>> implements SortedSet<E>
 	/**
 	 * Inserts the element at the specified position in this ordered set if the
 	 * element was not already in the set.
-	 * 
+	 *
 	 * @param index
 	 *            Index at which to add element
 	 * @param element
@@ -98,9 +148,8 @@ public class TaggerSet<E extends Comparable<? super E>> implements SortedSet<E>
 	 *         false otherwise (if the element was already part of the set)
 	 */
 	public boolean add(int index, E element, boolean allowDuplicate) {
-		if (!set.contains(element) || allowDuplicate) {
-			ListIterator<E> it = set.listIterator(index);
-			it.add(element);
+		if (!contains(element) || allowDuplicate) {
+			insert(index, element);
 			return true;
 		}
 		return false;
@@ -110,29 +159,51 @@ public class TaggerSet<E extends Comparable<? super E>> implements SortedSet<E>
 	 * Attempts to add all items in the passed collection to this sorted set. If
 	 * any items from the collection are already in the set, the add fails and
 	 * none of the items are added.
-	 * 
+	 *
 	 * @param c
 	 *            Collection of elements to add to the sorted set
 	 * @return True if the elements were successfully added to the list; false
 	 *         otherwise (if any of the elements were already part of the set)
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@SuppressWarnings("rawtypes")
 	@Override
 	public boolean addAll(Collection c) {
 		for (Object o : c) {
-			if (set.contains(o)) {
+			if (contains(o)) {
 				return false;
 			}
 		}
 		for (Object o : c) {
-			set.add((E) o);
+			append(o);
 		}
 		return true;
 	}
 
+	/**
+	 * Appends the element to the end of the array and records its position if
+	 * it is the first occurrence.
+	 *
+	 * @param elem
+	 *            The element to append.
+	 */
+	private void append(Object elem) {
+		ensureIndex();
+		ensureCapacity(size + 1);
+		elements[size] = elem;
+		if (!index.containsKey(elem)) {
+			index.put(elem, size);
+		}
+		size++;
+		modCount++;
+	}
+
 	@Override
 	public void clear() {
-		set.clear();
+		Arrays.fill(elements, 0, size, null);
+		size = 0;
+		index.clear();
+		indexEpoch = keyEpoch;
+		modCount++;
 	}
 
 	@Override
@@ -142,112 +213,360 @@ public class TaggerSet<E extends Comparable<? super E>> implements SortedSet<E>
 
 	@Override
 	public boolean contains(Object o) {
-		return set.contains(o);
+		return positionOf(o) != -1;
 	}
 
 	@SuppressWarnings("rawtypes")
 	@Override
 	public boolean containsAll(Collection c) {
-		return set.containsAll(c);
+		for (Object o : c) {
+			if (!contains(o)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Grows the backing array so that it can hold at least the given number
+	 * of elements.
+	 *
+	 * @param capacity
+	 *            The minimum capacity needed.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > elements.length) {
+			int newCapacity = Math.max(capacity, elements.length + (elements.length >> 1) + 1);
+			elements = Arrays.copyOf(elements, newCapacity);
+		}
+	}
+
+	/**
+	 * Rebuilds the index if the hash key of any element changed since it was
+	 * last built.
+	 */
+	private void ensureIndex() {
+		if (indexEpoch != keyEpoch) {
+			rebuildIndex();
+		}
 	}
 
 	@Override
 	public E first() throws NoSuchElementException {
-		if (set.size() > 0) {
-			return set.get(0);
+		if (size > 0) {
+			return elementAt(0);
 		} else {
 			throw new NoSuchElementException();
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private E elementAt(int i) {
+		return (E) elements[i];
+	}
+
 	public E get(int index) {
-		return set.get(index);
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return elementAt(index);
 	}
 
 	/**
 	 * Returns all elements that come before the given parameter in this sorted
 	 * set
-	 * 
+	 *
 	 * @param toElement
 	 *            The high endpoint (exclusive) of the returned set
 	 * @return a sorted set containing all elements before the passed parameter
 	 */
 	@Override
 	public SortedSet<E> headSet(E toElement) {
-		List<E> data = set.subList(0, set.indexOf((toElement)));
-		return new TaggerSet<E>(data);
+		return range(0, positionOf(toElement));
 	}
 
 	public int indexOf(E element) {
-		return set.indexOf(element);
+		return positionOf(element);
+	}
+
+	/**
+	 * Inserts the element at the given position, shifting the elements after
+	 * it to the right.
+	 *
+	 * @param i
+	 *            The position to insert at.
+	 * @param element
+	 *            The element to insert.
+	 */
+	private void insert(int i, E element) {
+		if (i < 0 || i > size) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+		ensureIndex();
+		ensureCapacity(size + 1);
+		System.arraycopy(elements, i, elements, i + 1, size - i);
+		elements[i] = element;
+		size++;
+		modCount++;
+		reindexFrom(i);
 	}
 
 	@Override
 	public boolean isEmpty() {
-		return set.isEmpty();
+		return size == 0;
 	}
 
 	@Override
 	public Iterator<E> iterator() {
-		return set.iterator();
+		return new Itr();
 	}
 
 	@Override
 	public E last() {
-		if (set.size() > 0) {
-			return set.get(set.size() - 1);
+		if (size > 0) {
+			return elementAt(size - 1);
 		} else {
 			throw new NoSuchElementException();
 		}
 	}
 
+	/**
+	 * Finds the position of the first occurrence of the given object.
+	 *
+	 * @param o
+	 *            The object to look for.
+	 * @return The position of the object, or -1 if it is not in the set.
+	 */
+	private int positionOf(Object o) {
+		ensureIndex();
+		Integer position = index.get(o);
+		return position == null ? -1 : position.intValue();
+	}
+
+	/**
+	 * Creates a new set containing the elements in the given range.
+	 *
+	 * @param from
+	 *            The low endpoint (inclusive).
+	 * @param to
+	 *            The high endpoint (exclusive).
+	 * @return A new set with the elements in the range.
+	 */
+	private TaggerSet<E> range(int from, int to) {
+		if (from < 0 || to > size) {
+			throw new IndexOutOfBoundsException("fromIndex = " + from + ", toIndex = " + to);
+		}
+		if (from > to) {
+			throw new IllegalArgumentException("fromIndex(" + from + ") > toIndex(" + to + ")");
+		}
+		return new TaggerSet<E>(elements, from, to);
+	}
+
+	/**
+	 * Rebuilds the whole index from the backing array.
+	 */
+	private void rebuildIndex() {
+		index.clear();
+		for (int i = 0; i < size; i++) {
+			if (!index.containsKey(elements[i])) {
+				index.put(elements[i], i);
+			}
+		}
+		indexEpoch = keyEpoch;
+	}
+
+	/**
+	 * Updates the positions of the elements from the given position to the
+	 * end after elements have been shifted. Elements whose first occurrence is
+	 * before <code>from</code> keep their position.
+	 *
+	 * @param from
+	 *            The first position that was shifted.
+	 */
+	private void reindexFrom(int from) {
+		for (int i = from; i < size; i++) {
+			Integer position = index.get(elements[i]);
+			if (position != null && position.intValue() >= from) {
+				index.remove(elements[i]);
+			}
+		}
+		for (int i = from; i < size; i++) {
+			if (!index.containsKey(elements[i])) {
+				index.put(elements[i], i);
+			}
+		}
+	}
+
 	@Override
 	public boolean remove(Object o) {
-		return set.remove(o);
+		int position = positionOf(o);
+		if (position == -1) {
+			return false;
+		}
+		removeAt(position);
+		return true;
 	}
 
 	@SuppressWarnings("rawtypes")
 	@Override
 	public boolean removeAll(Collection c) {
-		return set.removeAll(c);
+		return retain(c, false);
+	}
+
+	/**
+	 * Removes the element at the given position, shifting the elements after
+	 * it to the left.
+	 *
+	 * @param i
+	 *            The position of the element to remove.
+	 */
+	private void removeAt(int i) {
+		ensureIndex();
+		Object removed = elements[i];
+		Integer position = index.get(removed);
+		if (position != null && position.intValue() == i) {
+			index.remove(removed);
+		}
+		System.arraycopy(elements, i + 1, elements, i, size - i - 1);
+		elements[--size] = null;
+		modCount++;
+		reindexFrom(i);
+	}
+
+	/**
+	 * Keeps or removes the elements contained in the given collection.
+	 *
+	 * @param c
+	 *            The collection of elements.
+	 * @param keep
+	 *            True to keep the elements in the collection, false to remove
+	 *            them.
+	 * @return True if the set changed, false otherwise.
+	 */
+	@SuppressWarnings("rawtypes")
+	private boolean retain(Collection c, boolean keep) {
+		int newSize = 0;
+		for (int i = 0; i < size; i++) {
+			if (c.contains(elements[i]) == keep) {
+				elements[newSize++] = elements[i];
+			}
+		}
+		if (newSize == size) {
+			return false;
+		}
+		Arrays.fill(elements, newSize, size, null);
+		size = newSize;
+		modCount++;
+		rebuildIndex();
+		return true;
 	}
 
 	@SuppressWarnings("rawtypes")
 	@Override
 	public boolean retainAll(Collection c) {
-		return set.retainAll(c);
+		return retain(c, true);
+	}
+
+	/**
+	 * Replaces the element at the specified position in this ordered set.
+	 *
+	 * @param i
+	 *            Index of the element to replace
+	 * @param element
+	 *            Element to store at the given position
+	 * @return The element that was previously at the given position
+	 */
+	public E set(int i, E element) {
+		E replaced = get(i);
+		ensureIndex();
+		Integer position = index.get(replaced);
+		if (position != null && position.intValue() == i) {
+			index.remove(replaced);
+		}
+		elements[i] = element;
+		modCount++;
+		reindexFrom(i);
+		return replaced;
 	}
 
 	@Override
 	public int size() {
-		return set.size();
+		return size;
 	}
 
+	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public void sort(Comparator<E> comparator) {
-		Collections.sort(set, comparator);
+		Arrays.sort(elements, 0, size, (Comparator) comparator);
+		modCount++;
+		rebuildIndex();
 	}
 
 	@Override
 	public SortedSet<E> subSet(E fromElement, E toElement) {
-		List<E> data = set.subList(set.indexOf(fromElement),
-				set.indexOf(toElement));
-		return new TaggerSet<E>(data);
+		return range(positionOf(fromElement), positionOf(toElement));
 	}
 
 	@Override
 	public SortedSet<E> tailSet(E fromElement) {
-		List<E> data = set.subList(set.indexOf(fromElement), set.size());
-		return new TaggerSet<E>(data);
+		return range(positionOf(fromElement), size);
 	}
 
 	@Override
 	public Object[] toArray() {
-		return set.toArray();
+		return Arrays.copyOf(elements, size);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Object[] toArray(Object[] a) {
-		return set.toArray(a);
+		if (a.length < size) {
+			return Arrays.copyOf(elements, size, a.getClass());
+		}
+		System.arraycopy(elements, 0, a, 0, size);
+		if (a.length > size) {
+			a[size] = null;
+		}
+		return a;
+	}
+
+	/**
+	 * Iterator over the backing array that supports removal.
+	 */
+	private class Itr implements Iterator<E> {
+		private int cursor;
+		private int lastReturned = -1;
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return cursor < size;
+		}
+
+		@Override
+		public E next() {
+			checkForComodification();
+			if (cursor >= size) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor++;
+			return elementAt(lastReturned);
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			removeAt(lastReturned);
+			cursor = lastReturned;
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
 	}
 }
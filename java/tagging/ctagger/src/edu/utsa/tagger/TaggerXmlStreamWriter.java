@@ -0,0 +1,367 @@
+package edu.utsa.tagger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * This class writes the TaggerData and HED hierarchy XML formats with StAX
+ * straight from the events and tags of a Tagger. Unlike marshalling a
+ * TaggerDataXmlModel or HedXmlModel, no XML model of the data is built, so the
+ * memory used does not grow with the number of events or tags. The output is
+ * laid out the same way as the formatted output of the JAXB marshaller. Like
+ * the marshaller, output to a stream is indented by the depth modulo eight, so
+ * elements deeper than eight levels start again at the first column, while
+ * output to a writer keeps indenting.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class TaggerXmlStreamWriter {
+
+	private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+	private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+	private static final String INDENT = "    ";
+	// Depth after which the indent of stream output starts again
+	private static final int STREAM_INDENT_WRAP = 8;
+
+	private final Tagger tagger;
+	private final Set<String> writtenPaths = new HashSet<String>();
+	private XMLStreamWriter writer;
+	private int depth;
+	private boolean wrapIndent;
+
+	public TaggerXmlStreamWriter(Tagger tagger) {
+		this.tagger = tagger;
+	}
+
+	/**
+	 * Writes the events and HED hierarchy in the TaggerData XML format to the
+	 * given stream in UTF-8. The stream is flushed but not closed.
+	 *
+	 * @param out
+	 *            The stream to write to.
+	 * @param version
+	 *            The HED version, or null to leave it out.
+	 * @throws IOException
+	 *             If the stream cannot be written to.
+	 * @throws XMLStreamException
+	 *             If the XML cannot be written.
+	 */
+	public void writeTaggerData(OutputStream out, String version) throws IOException, XMLStreamException {
+		out.write(HEADER.getBytes("UTF-8"));
+		start(outputFactory.createXMLStreamWriter(out, "UTF-8"), true);
+		writeTaggerData(version);
+		finish();
+		out.flush();
+	}
+
+	/**
+	 * Writes the events and HED hierarchy in the TaggerData XML format to the
+	 * given writer. The writer is flushed but not closed.
+	 *
+	 * @param out
+	 *            The writer to write to.
+	 * @param version
+	 *            The HED version, or null to leave it out.
+	 * @throws IOException
+	 *             If the writer cannot be written to.
+	 * @throws XMLStreamException
+	 *             If the XML cannot be written.
+	 */
+	public void writeTaggerData(Writer out, String version) throws IOException, XMLStreamException {
+		out.write(HEADER);
+		start(outputFactory.createXMLStreamWriter(out), false);
+		writeTaggerData(version);
+		finish();
+		out.flush();
+	}
+
+	/**
+	 * Writes the HED hierarchy in the HED XML format to the given stream in
+	 * UTF-8. The stream is flushed but not closed.
+	 *
+	 * @param out
+	 *            The stream to write to.
+	 * @param version
+	 *            The HED version, or null to leave it out.
+	 * @param unitClasses
+	 *            True if the unit classes of the Tagger are written, false if
+	 *            the unit classes are left empty.
+	 * @throws IOException
+	 *             If the stream cannot be written to.
+	 * @throws XMLStreamException
+	 *             If the XML cannot be written.
+	 */
+	public void writeHed(OutputStream out, String version, boolean unitClasses)
+			throws IOException, XMLStreamException {
+		out.write(HEADER.getBytes("UTF-8"));
+		start(outputFactory.createXMLStreamWriter(out, "UTF-8"), true);
+		writeHed(version, unitClasses);
+		finish();
+		out.flush();
+	}
+
+	/**
+	 * Writes the HED hierarchy in the HED XML format to the given writer. The
+	 * writer is flushed but not closed.
+	 *
+	 * @param out
+	 *            The writer to write to.
+	 * @param version
+	 *            The HED version, or null to leave it out.
+	 * @param unitClasses
+	 *            True if the unit classes of the Tagger are written, false if
+	 *            the unit classes are left empty.
+	 * @throws IOException
+	 *             If the writer cannot be written to.
+	 * @throws XMLStreamException
+	 *             If the XML cannot be written.
+	 */
+	public void writeHed(Writer out, String version, boolean unitClasses) throws IOException, XMLStreamException {
+		out.write(HEADER);
+		start(outputFactory.createXMLStreamWriter(out), false);
+		writeHed(version, unitClasses);
+		finish();
+		out.flush();
+	}
+
+	private void start(XMLStreamWriter writer, boolean wrapIndent) {
+		this.writer = writer;
+		this.wrapIndent = wrapIndent;
+		depth = 0;
+	}
+
+	private void finish() throws XMLStreamException {
+		writer.writeCharacters("\n");
+		writer.flush();
+		writer.close();
+		writer = null;
+	}
+
+	private void writeTaggerData(String version) throws XMLStreamException {
+		startElement("TaggerData");
+		writeEvents();
+		writeHed(version, true);
+		endElement();
+	}
+
+	private void writeEvents() throws XMLStreamException {
+		TaggerSet<TaggedEvent> events = tagger.getEgtSet();
+		if (events.isEmpty()) {
+			emptyElement("eventSet");
+			return;
+		}
+		startElement("eventSet");
+		for (TaggedEvent event : events) {
+			writeEvent(event);
+		}
+		endElement();
+	}
+
+	/**
+	 * Writes an event with its tag groups first and its event-level tags
+	 * after them, the order of the elements in an EventXmlModel.
+	 */
+	private void writeEvent(TaggedEvent event) throws XMLStreamException {
+		String code = event.getEventModel().getCode();
+		Map<Integer, TaggerSet<AbstractTagModel>> tagGroups = event.getTagGroups();
+		int eventGroupId = event.getEventGroupId();
+		if (code == null && !hasTags(tagGroups, eventGroupId)) {
+			emptyElement("event");
+			return;
+		}
+		startElement("event");
+		if (code != null) {
+			textElement("code", code);
+		}
+		for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> tagGroup : tagGroups.entrySet()) {
+			if (tagGroup.getKey() != eventGroupId) {
+				if (tagGroup.getValue().isEmpty()) {
+					emptyElement("tagGroup");
+				} else {
+					startElement("tagGroup");
+					writeTags(tagGroup.getValue());
+					endElement();
+				}
+			}
+		}
+		TaggerSet<AbstractTagModel> eventTags = tagGroups.get(eventGroupId);
+		if (eventTags != null) {
+			writeTags(eventTags);
+		}
+		endElement();
+	}
+
+	private static boolean hasTags(Map<Integer, TaggerSet<AbstractTagModel>> tagGroups, int eventGroupId) {
+		for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> tagGroup : tagGroups.entrySet()) {
+			if (tagGroup.getKey() != eventGroupId || !tagGroup.getValue().isEmpty()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the paths of the given tags, each path only once like the tag set
+	 * of the XML models.
+	 */
+	private void writeTags(TaggerSet<AbstractTagModel> tags) throws XMLStreamException {
+		writtenPaths.clear();
+		for (AbstractTagModel tag : tags) {
+			String path = tag.getPath();
+			if (writtenPaths.add(path)) {
+				textElement("tag", path);
+			}
+		}
+	}
+
+	private void writeHed(String version, boolean unitClasses) throws XMLStreamException {
+		startElement("HED");
+		if (version != null) {
+			writer.writeAttribute("version", version);
+		}
+		Iterator<AbstractTagModel> iter = tagger.getTagSet().iterator();
+		AbstractTagModel next = iter.hasNext() ? iter.next() : null;
+		while (next != null) {
+			next = writeNode(next, iter);
+		}
+		if (unitClasses) {
+			writeUnitClasses();
+		} else {
+			emptyElement("unitClasses");
+		}
+		endElement();
+	}
+
+	/**
+	 * Writes a tag and the tags after it that are its descendants, which are
+	 * the tags whose paths start with its path.
+	 *
+	 * @return The first tag after the descendants, or null if there are no
+	 *         more tags.
+	 */
+	private AbstractTagModel writeNode(AbstractTagModel tag, Iterator<AbstractTagModel> iter)
+			throws XMLStreamException {
+		String prefix = tag.getPath();
+		AbstractTagModel next = iter.hasNext() ? iter.next() : null;
+		boolean hasChildren = next != null && next.getPath().startsWith(prefix);
+		String name = tag.getName();
+		String description = tag.getDescription();
+		if (name == null && description == null && !hasChildren) {
+			writer.writeCharacters("\n");
+			writeIndent();
+			writer.writeEmptyElement("node");
+			writeNodeAttributes(tag);
+			return next;
+		}
+		startElement("node");
+		writeNodeAttributes(tag);
+		if (name != null) {
+			textElement("name", name);
+		}
+		if (description != null) {
+			textElement("description", description);
+		}
+		while (next != null && next.getPath().startsWith(prefix)) {
+			next = writeNode(next, iter);
+		}
+		endElement();
+		return next;
+	}
+
+	/**
+	 * Writes the attributes of a node in the order of the fields of a
+	 * TagXmlModel. The unit class and numeric attributes are not kept by the
+	 * tag models and are always written with their defaults.
+	 */
+	private void writeNodeAttributes(AbstractTagModel tag) throws XMLStreamException {
+		writer.writeAttribute("requireChild", Boolean.toString(tag.isChildRequired()));
+		writer.writeAttribute("extensionAllowed", Boolean.toString(tag.isExtensionAllowed()));
+		writer.writeAttribute("takesValue", Boolean.toString(tag.takesValue()));
+		writer.writeAttribute("required", Boolean.toString(tag.isRequired()));
+		writer.writeAttribute("recommended", Boolean.toString(tag.isRecommended()));
+		writer.writeAttribute("position", Integer.toString(tag.getPosition()));
+		writer.writeAttribute("unique", Boolean.toString(tag.isUnique()));
+		writer.writeAttribute("isNumeric", "false");
+		writer.writeAttribute("predicateType", tag.getPredicateType().toString());
+		writer.writeAttribute("unitClass", "");
+	}
+
+	private void writeUnitClasses() throws XMLStreamException {
+		if (tagger.unitClasses.isEmpty()) {
+			emptyElement("unitClasses");
+			return;
+		}
+		startElement("unitClasses");
+		for (Map.Entry<String, String> unitClass : tagger.unitClasses.entrySet()) {
+			String defaultUnit = tagger.unitClassDefaults.get(unitClass.getKey());
+			startElement("unitClass");
+			if (defaultUnit != null) {
+				writer.writeAttribute("default", defaultUnit);
+			}
+			textElement("name", unitClass.getKey());
+			if (unitClass.getValue() != null) {
+				textElement("units", unitClass.getValue());
+			}
+			endElement();
+		}
+		endElement();
+	}
+
+	/**
+	 * Writes an element with no content on a new line.
+	 */
+	private void emptyElement(String name) throws XMLStreamException {
+		writer.writeCharacters("\n");
+		writeIndent();
+		writer.writeEmptyElement(name);
+	}
+
+	/**
+	 * Starts an element that has child elements on a new line. Its children
+	 * are indented one more level.
+	 */
+	private void startElement(String name) throws XMLStreamException {
+		writer.writeCharacters("\n");
+		writeIndent();
+		writer.writeStartElement(name);
+		depth++;
+	}
+
+	/**
+	 * Ends an element started by startElement on a new line.
+	 */
+	private void endElement() throws XMLStreamException {
+		depth--;
+		writer.writeCharacters("\n");
+		writeIndent();
+		writer.writeEndElement();
+	}
+
+	/**
+	 * Writes an element containing only text on a new line.
+	 */
+	private void textElement(String name, String text) throws XMLStreamException {
+		writer.writeCharacters("\n");
+		writeIndent();
+		writer.writeStartElement(name);
+		writer.writeCharacters(text);
+		writer.writeEndElement();
+	}
+
+	private void writeIndent() throws XMLStreamException {
+		int levels = wrapIndent ? depth % STREAM_INDENT_WRAP : depth;
+		for (int i = 0; i < levels; i++) {
+			writer.writeCharacters(INDENT);
+		}
+	}
+}
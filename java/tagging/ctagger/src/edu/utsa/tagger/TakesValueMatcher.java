@@ -0,0 +1,42 @@
+package edu.utsa.tagger;
+
+/**
+ * This class represents a compiled tag that takes values. The literal text
+ * before and after the '#' in the tag name is split out once so that a tag
+ * name can be matched without creating any strings.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class TakesValueMatcher {
+	private final AbstractTagModel tagModel;
+	private final String prefix;
+	private final String suffix;
+
+	public TakesValueMatcher(AbstractTagModel tagModel) {
+		String name = tagModel.getName();
+		int valueIndex = name.indexOf('#');
+		this.tagModel = tagModel;
+		this.prefix = name.substring(0, valueIndex);
+		this.suffix = name.substring(valueIndex + 1);
+	}
+
+	public AbstractTagModel getTagModel() {
+		return tagModel;
+	}
+
+	/**
+	 * Checks if the tag name in the given string matches this tag.
+	 *
+	 * @param path
+	 *            The string containing the tag name.
+	 * @param nameStart
+	 *            The index in the string where the tag name starts.
+	 * @return True if the tag name matches, false otherwise.
+	 */
+	public boolean matches(String path, int nameStart) {
+		int nameLength = path.length() - nameStart;
+		return nameLength >= prefix.length() + suffix.length()
+				&& path.startsWith(prefix, nameStart) && path.endsWith(suffix);
+	}
+}
@@ -0,0 +1,92 @@
+package edu.utsa.tagger;
+
+/**
+ * This class contains the time spent in each phase of the last tag toggle or
+ * tag replacement, so the cost of tagging a large selection of events can be
+ * followed phase by phase.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class ToggleTagTiming {
+
+	// Phases of a toggle in the order they run
+	public enum Phase {
+		RESOLVE, CONFLICTS, APPLY, HISTORY
+	};
+
+	private final long[] phaseNanos = new long[Phase.values().length];
+	private int groupCount;
+	private long last;
+
+	/**
+	 * Gets the number of groups of the last toggle.
+	 *
+	 * @return The number of group IDs given to the toggle.
+	 */
+	public int getGroupCount() {
+		return groupCount;
+	}
+
+	/**
+	 * Gets the time spent in a phase of the last toggle.
+	 *
+	 * @param phase
+	 *            The phase.
+	 * @return The time in nanoseconds, or 0 if the phase did not run.
+	 */
+	public long getNanos(Phase phase) {
+		return phaseNanos[phase.ordinal()];
+	}
+
+	/**
+	 * Gets the time spent in all of the phases of the last toggle.
+	 *
+	 * @return The time in nanoseconds.
+	 */
+	public long getTotalNanos() {
+		long total = 0;
+		for (long nanos : phaseNanos) {
+			total += nanos;
+		}
+		return total;
+	}
+
+	/**
+	 * Ends the current phase, adding the time since the previous phase ended.
+	 *
+	 * @param phase
+	 *            The phase that ended.
+	 */
+	void mark(Phase phase) {
+		long now = System.nanoTime();
+		phaseNanos[phase.ordinal()] += now - last;
+		last = now;
+	}
+
+	/**
+	 * Clears the times and starts timing a new toggle.
+	 *
+	 * @param groupCount
+	 *            The number of group IDs given to the toggle.
+	 */
+	void start(int groupCount) {
+		this.groupCount = groupCount;
+		for (int i = 0; i < phaseNanos.length; i++) {
+			phaseNanos[i] = 0;
+		}
+		last = System.nanoTime();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(groupCount).append(" groups:");
+		for (Phase phase : Phase.values()) {
+			sb.append(' ').append(phase.name().toLowerCase()).append(' ');
+			sb.append(phaseNanos[phase.ordinal()] / 1000).append(" us,");
+		}
+		sb.append(" total ").append(getTotalNanos() / 1000).append(" us");
+		return sb.toString();
+	}
+}
@@ -0,0 +1,72 @@
+package edu.utsa.tagger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * This class holds the JAXB contexts used to read and write the Tagger XML
+ * models. Each context is built the first time it is needed and shared by all
+ * taggers in the JVM. Unmarshallers are not thread safe, so each thread keeps
+ * its own.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class XmlContextRegistry {
+
+	private static final Map<Class<?>, JAXBContext> contexts = new HashMap<Class<?>, JAXBContext>();
+
+	private static final ThreadLocal<Map<Class<?>, Unmarshaller>> unmarshallers = new ThreadLocal<Map<Class<?>, Unmarshaller>>() {
+		@Override
+		protected Map<Class<?>, Unmarshaller> initialValue() {
+			return new HashMap<Class<?>, Unmarshaller>();
+		}
+	};
+
+	private XmlContextRegistry() {
+	}
+
+	/**
+	 * Gets the shared JAXB context for the given model class, building it if
+	 * this is the first use.
+	 *
+	 * @param modelClass
+	 *            The class of the root XML model.
+	 * @return The JAXB context for the model class.
+	 * @throws JAXBException
+	 *             If the context cannot be built.
+	 */
+	public static JAXBContext getContext(Class<?> modelClass) throws JAXBException {
+		synchronized (contexts) {
+			JAXBContext context = contexts.get(modelClass);
+			if (context == null) {
+				context = JAXBContext.newInstance(modelClass);
+				contexts.put(modelClass, context);
+			}
+			return context;
+		}
+	}
+
+	/**
+	 * Gets the unmarshaller of the current thread for the given model class.
+	 *
+	 * @param modelClass
+	 *            The class of the root XML model.
+	 * @return The unmarshaller for the model class.
+	 * @throws JAXBException
+	 *             If the unmarshaller cannot be created.
+	 */
+	public static Unmarshaller getUnmarshaller(Class<?> modelClass) throws JAXBException {
+		Map<Class<?>, Unmarshaller> threadUnmarshallers = unmarshallers.get();
+		Unmarshaller unmarshaller = threadUnmarshallers.get(modelClass);
+		if (unmarshaller == null) {
+			unmarshaller = getContext(modelClass).createUnmarshaller();
+			threadUnmarshallers.put(modelClass, unmarshaller);
+		}
+		return unmarshaller;
+	}
+}
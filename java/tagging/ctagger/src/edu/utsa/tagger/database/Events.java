@@ -9,9 +9,9 @@ import java.util.List;
 import java.util.Set;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import edu.utsa.tagger.EventJsonModel;
+import edu.utsa.tagger.JsonMapperRegistry;
 
 /**
  * This class provides methods to update the database with new tags and event
@@ -213,8 +213,7 @@ public class Events {
 		Set<EventJsonModel> events;
 		try {
 			if (useJson) {
-				ObjectMapper mapper = new ObjectMapper();
-				events = mapper.readValue(eventString,
+				events = JsonMapperRegistry.getMapper().readValue(eventString,
 						new TypeReference<LinkedHashSet<EventJsonModel>>() {
 						});
 			} else
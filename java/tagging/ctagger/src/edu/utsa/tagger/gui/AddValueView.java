@@ -387,7 +387,6 @@ public class AddValueView extends ConstraintContainer {
 			} else {
 				gtm.requestToggleTag();
 				appView.updateTags();
-				appView.updateEventsPanel();
 			}
 			appView.scrollToEventTag((GuiTagModel) newTag);
 		}
@@ -0,0 +1,351 @@
+package edu.utsa.tagger.gui;
+
+import java.awt.Component;
+
+import edu.utsa.tagger.AbstractTagModel;
+import edu.utsa.tagger.TaggedEvent;
+
+/**
+ * This class contains the rows of the events panel. The position and height of
+ * every row is computed from the tagged events without creating any views, so
+ * the events panel only needs views for the rows that are scrolled into sight.
+ * The view of a row is kept once it is created, until the rows are cleared.
+ * Positions and heights are unscaled, like the constraints of the panel.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class EventRows {
+
+	public static final int EVENT = 0;
+	public static final int EVENT_EDIT = 1;
+	public static final int RR_TAG = 2;
+	public static final int SEPARATOR = 3;
+	public static final int GROUP = 4;
+	public static final int TAG = 5;
+	public static final int TAG_EDIT = 6;
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private int size;
+	// Position after the rows of the last event, where another event would
+	// start
+	private int nextTop;
+	private int[] types;
+	private int[] tops;
+	private int[] heights;
+	// Largest bottom of a row up to each row, as group rows span their tags
+	private int[] maxBottoms;
+	private TaggedEvent[] events;
+	private int[] groupIds;
+	private AbstractTagModel[] tags;
+	private Component[] views;
+
+	public EventRows() {
+		allocate(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Adds a row after the last row. Rows are added in the order of their
+	 * positions.
+	 *
+	 * @param type
+	 *            The type of the row.
+	 * @param event
+	 *            The event the row belongs to.
+	 * @param groupId
+	 *            The group ID of the row, or the event group ID for rows that
+	 *            are not in a tag group.
+	 * @param tag
+	 *            The tag shown in the row, or null if the row has no tag.
+	 * @param top
+	 *            The position of the row.
+	 * @param height
+	 *            The height of the row.
+	 * @return The index of the row.
+	 */
+	public int add(int type, TaggedEvent event, int groupId, AbstractTagModel tag, int top, int height) {
+		if (size == types.length) {
+			grow();
+		}
+		types[size] = type;
+		events[size] = event;
+		groupIds[size] = groupId;
+		tags[size] = tag;
+		tops[size] = top;
+		heights[size] = height;
+		int bottom = top + height;
+		maxBottoms[size] = size > 0 && maxBottoms[size - 1] > bottom ? maxBottoms[size - 1] : bottom;
+		return size++;
+	}
+
+	/**
+	 * Adds a range of rows from other rows after the last row, keeping their
+	 * views. The rows are moved down by the given offset.
+	 *
+	 * @param rows
+	 *            The rows to copy from.
+	 * @param from
+	 *            The index of the first row to copy.
+	 * @param to
+	 *            The index after the last row to copy.
+	 * @param offset
+	 *            The distance to move the rows by.
+	 */
+	public void add(EventRows rows, int from, int to, int offset) {
+		for (int i = from; i < to; i++) {
+			int row = add(rows.types[i], rows.events[i], rows.groupIds[i], rows.tags[i], rows.tops[i] + offset,
+					rows.heights[i]);
+			views[row] = rows.views[i];
+		}
+	}
+
+	/**
+	 * Removes all of the rows and their views.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			events[i] = null;
+			tags[i] = null;
+			views[i] = null;
+		}
+		size = 0;
+		nextTop = 0;
+	}
+
+	/**
+	 * Finds the end of the rows of the event that a row belongs to.
+	 *
+	 * @param row
+	 *            The index of a row of the event.
+	 * @return The index after the last row of the event.
+	 */
+	public int findEventEnd(int row) {
+		TaggedEvent event = events[row];
+		int end = row + 1;
+		while (end < size && events[end] == event) {
+			end++;
+		}
+		return end;
+	}
+
+	/**
+	 * Finds the row of an event.
+	 *
+	 * @param event
+	 *            The event.
+	 * @return The index of the row, or -1 if there is no row for the event.
+	 */
+	public int findEvent(TaggedEvent event) {
+		for (int i = 0; i < size; i++) {
+			if (types[i] == EVENT && events[i] == event) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the first row whose bottom is below the given position. Every row
+	 * before it ends at or above the position.
+	 *
+	 * @param y
+	 *            The position.
+	 * @return The index of the row, or the number of rows if no row ends below
+	 *         the position.
+	 */
+	public int findFirstBelow(int y) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (maxBottoms[mid] <= y) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Finds the first row that starts at or below the given position.
+	 *
+	 * @param y
+	 *            The position.
+	 * @return The index of the row, or the number of rows if no row starts at
+	 *         or below the position.
+	 */
+	public int findFirstStarting(int y) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (tops[mid] < y) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Finds the row of a tag group.
+	 *
+	 * @param groupId
+	 *            The group ID.
+	 * @return The index of the row, or -1 if there is no row for the group.
+	 */
+	public int findGroup(int groupId) {
+		for (int i = 0; i < size; i++) {
+			if (types[i] == GROUP && groupIds[i] == groupId) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the row of the required/recommended tag of an event that the given
+	 * tag is shown under.
+	 *
+	 * @param event
+	 *            The event.
+	 * @param tag
+	 *            The tag.
+	 * @return The index of the row, or -1 if the tag is not shown under a
+	 *         required/recommended tag of the event.
+	 */
+	public int findRRTag(TaggedEvent event, AbstractTagModel tag) {
+		String path = tag.getPath();
+		for (int i = 0; i < size; i++) {
+			if (types[i] == RR_TAG && events[i] == event && path.startsWith(tags[i].getPath())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the row of a tag in a tag group.
+	 *
+	 * @param groupId
+	 *            The group ID.
+	 * @param tag
+	 *            The tag.
+	 * @return The index of the row, or -1 if the tag has no row in the group.
+	 */
+	public int findTag(int groupId, AbstractTagModel tag) {
+		for (int i = 0; i < size; i++) {
+			if (types[i] == TAG && groupIds[i] == groupId && tags[i] == tag) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public TaggedEvent getEvent(int row) {
+		return events[row];
+	}
+
+	public int getGroupId(int row) {
+		return groupIds[row];
+	}
+
+	public int getHeight(int row) {
+		return heights[row];
+	}
+
+	/**
+	 * Gets the position where the rows of the event following a row start.
+	 *
+	 * @param end
+	 *            The index after the last row of an event.
+	 * @return The position after the rows of the event.
+	 */
+	public int getNextTop(int end) {
+		return end < size ? tops[end] : nextTop;
+	}
+
+	/**
+	 * Gets the height of all of the rows.
+	 *
+	 * @return The largest bottom of a row, or 0 if there are no rows.
+	 */
+	public int getTotalHeight() {
+		return size == 0 ? 0 : maxBottoms[size - 1];
+	}
+
+	public AbstractTagModel getTag(int row) {
+		return tags[row];
+	}
+
+	public int getTop(int row) {
+		return tops[row];
+	}
+
+	public int getType(int row) {
+		return types[row];
+	}
+
+	/**
+	 * Gets the view of a row.
+	 *
+	 * @param row
+	 *            The index of the row.
+	 * @return The view, or null if no view was created for the row.
+	 */
+	public Component getView(int row) {
+		return views[row];
+	}
+
+	/**
+	 * Sets the position after the rows of the last event.
+	 *
+	 * @param top
+	 *            The position.
+	 */
+	public void setNextTop(int top) {
+		nextTop = top;
+	}
+
+	public void setView(int row, Component view) {
+		views[row] = view;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private void allocate(int capacity) {
+		types = new int[capacity];
+		tops = new int[capacity];
+		heights = new int[capacity];
+		maxBottoms = new int[capacity];
+		events = new TaggedEvent[capacity];
+		groupIds = new int[capacity];
+		tags = new AbstractTagModel[capacity];
+		views = new Component[capacity];
+	}
+
+	private void grow() {
+		int[] oldTypes = types;
+		int[] oldTops = tops;
+		int[] oldHeights = heights;
+		int[] oldMaxBottoms = maxBottoms;
+		TaggedEvent[] oldEvents = events;
+		int[] oldGroupIds = groupIds;
+		AbstractTagModel[] oldTags = tags;
+		Component[] oldViews = views;
+		allocate(types.length * 2);
+		System.arraycopy(oldTypes, 0, types, 0, size);
+		System.arraycopy(oldTops, 0, tops, 0, size);
+		System.arraycopy(oldHeights, 0, heights, 0, size);
+		System.arraycopy(oldMaxBottoms, 0, maxBottoms, 0, size);
+		System.arraycopy(oldEvents, 0, events, 0, size);
+		System.arraycopy(oldGroupIds, 0, groupIds, 0, size);
+		System.arraycopy(oldTags, 0, tags, 0, size);
+		System.arraycopy(oldViews, 0, views, 0, size);
+	}
+}
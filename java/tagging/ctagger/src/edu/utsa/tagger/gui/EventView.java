@@ -134,7 +134,6 @@ public class EventView extends JComponent implements MouseListener {
 				@Override
 				public void doAction() {
 					int groupId = tagger.addNewGroup(taggedEvent);
-					appView.updateEventsPanel();
 					appView.scrollToNewGroup(taggedEvent, groupId);
 				}
 			});
@@ -168,7 +167,6 @@ public class EventView extends JComponent implements MouseListener {
 				@Override
 				public void doAction() {
 					tagger.removeEvent(taggedEvent);
-					appView.updateEventsPanel();
 				}
 			});
 			appView.showContextMenu(map, 205);
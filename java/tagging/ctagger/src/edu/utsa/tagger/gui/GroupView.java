@@ -134,7 +134,6 @@ public class GroupView extends JComponent implements MouseListener,
 				@Override
 				public void doAction() {
 					tagger.removeGroup(groupId);
-					appView.updateEventsPanel();
 				}
 			});
 			appView.showContextMenu(map, 105);
@@ -155,7 +154,6 @@ public class GroupView extends JComponent implements MouseListener,
 			Set<Integer> groupSet = new HashSet<Integer>();
 			groupSet.add(groupId);
 			tagger.associate(newTag, index, groupSet);
-			appView.updateEventsPanel();
 			appView.scrollToEventTag(newTag);
 		} else {
 			appView.showTaggerMessageDialog(MessageConstants.TILDE_ERROR,
@@ -23,7 +23,6 @@ public class GuiTagModel extends AbstractTagModel {
 
 	private final Tagger tagger;
 	private TaggerView appView;
-	private TagView tagView;
 	private TagEditView tagEditView;
 	private TagChooserView tagChooserView;
 
@@ -118,18 +117,6 @@ public class GuiTagModel extends AbstractTagModel {
 		return new TagSearchView(tagger, appView, this);
 	}
 
-	/**
-	 * Gets the basic tag view for the GUI.
-	 * 
-	 * @return
-	 */
-	public TagView getTagView() {
-		if (tagView == null) {
-			tagView = new TagView(tagger, appView, this);
-		}
-		return tagView;
-	}
-
 	public boolean isCollapsable() {
 		return collapsable;
 	}
@@ -191,8 +178,6 @@ public class GuiTagModel extends AbstractTagModel {
 				appView.showAncestorDialog(message);
 			}
 		}
-		// appView.updateTags();
-		appView.updateEventsPanel();
 	}
 
 	public void setAppView(TaggerView appView) {
@@ -217,6 +202,10 @@ public class GuiTagModel extends AbstractTagModel {
 
 	public void setInEdit(boolean inEdit) {
 		this.inEdit = inEdit;
+		if (!inEdit) {
+			// The edit view is only kept while the tag is edited
+			tagEditView = null;
+		}
 	}
 
 	public void setFirstEdit(boolean firstEdit) {
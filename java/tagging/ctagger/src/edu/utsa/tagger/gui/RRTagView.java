@@ -397,6 +397,31 @@ public class RRTagView extends JComponent {
 		return BASE_SIZE + TAG_SIZE * numTags + TagEventEditView.HEIGHT * numEditTags;
 	}
 
+	/**
+	 * Computes the height of the view of a required/recommended tag from the
+	 * tags of the event, without creating the view.
+	 *
+	 * @param taggedEvent
+	 *            The event the view belongs to
+	 * @param key
+	 *            The required/recommended tag
+	 * @return The height the view would have.
+	 */
+	public static int getConstraintHeight(TaggedEvent taggedEvent, AbstractTagModel key) {
+		int numTags = 0;
+		int numEditTags = 0;
+		TaggerSet<AbstractTagModel> values = taggedEvent.getRRValue(key);
+		if (!key.isUnique() && values != null) {
+			numTags = values.size();
+			for (AbstractTagModel valueTag : values) {
+				if (((GuiTagModel) valueTag).isInEdit()) {
+					numEditTags++;
+				}
+			}
+		}
+		return BASE_SIZE + TAG_SIZE * numTags + TagEventEditView.HEIGHT * numEditTags;
+	}
+
 	public AbstractTagModel getKey() {
 		return key;
 	}
@@ -99,7 +99,11 @@ public class TagEventView extends JComponent implements MouseListener {
 			if (model.isMissing()) {
 				map.put("edit", new ContextMenuAction() {
 					public void doAction() {
-						model.setInEdit(true);
+						// Edits a copy if other events share the tag model
+						TaggedEvent taggedEvent = tagger.getEventByGroupId(groupId);
+						GuiTagModel editModel = (GuiTagModel) tagger.unshareTag(taggedEvent, model);
+						editModel.setAppView(appView);
+						editModel.setInEdit(true);
 						appView.updateEventsPanel();
 					}
 				});
@@ -120,7 +124,6 @@ public class TagEventView extends JComponent implements MouseListener {
 						groupIds.add(groupId);
 						tagger.unassociate(model, groupIds);
 					}
-					appView.updateEventsPanel();
 				}
 			});
 			appView.showContextMenu(map);
@@ -140,7 +143,6 @@ public class TagEventView extends JComponent implements MouseListener {
 			Set<Integer> groupSet = new HashSet<Integer>();
 			groupSet.add(groupId);
 			tagger.associate(newTag, index, groupSet);
-			appView.updateEventsPanel();
 			appView.scrollToEventTag(newTag);
 		} else {
 			appView.showTaggerMessageDialog(MessageConstants.TILDE_ERROR, "Okay", null, null);
@@ -0,0 +1,264 @@
+package edu.utsa.tagger.gui;
+
+import java.awt.Component;
+
+import edu.utsa.tagger.guisupport.ConstraintLayout;
+
+/**
+ * This class contains the visible rows of the tag hierarchy, flattened in the
+ * order they are shown in the tags panel. Each tag that is not hidden by a
+ * collapsed ancestor has a row, followed by rows for its edit and add value
+ * views when they are open. Rows can be inserted and removed when a tag is
+ * expanded or collapsed, without going over the rest of the hierarchy.
+ *
+ * Positions are in pixels, in the same way the list layout of the tags panel
+ * places its components, and are computed again when the rows or the scale
+ * change.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class TagRows {
+
+	public static final int TAG = 0;
+	public static final int TAG_EDIT = 1;
+	public static final int ADD_VALUE = 2;
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private int size;
+	private int[] types;
+	private GuiTagModel[] tags;
+	private Component[] views;
+	private int[] tops;
+	private int totalHeight;
+	private boolean laidOut;
+	private double scale;
+
+	public TagRows() {
+		allocate(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Adds a row after the last row.
+	 *
+	 * @param type
+	 *            The type of the row.
+	 * @param tag
+	 *            The tag of the row.
+	 * @param view
+	 *            The view of the row, which is required for edit and add value
+	 *            rows, as their heights come from their views.
+	 */
+	public void add(int type, GuiTagModel tag, Component view) {
+		ensureCapacity(size + 1);
+		types[size] = type;
+		tags[size] = tag;
+		views[size] = view;
+		size++;
+		laidOut = false;
+	}
+
+	/**
+	 * Removes all of the rows.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			tags[i] = null;
+			views[i] = null;
+		}
+		size = 0;
+		laidOut = false;
+	}
+
+	/**
+	 * Finds the row of a tag.
+	 *
+	 * @param tag
+	 *            The tag.
+	 * @return The index of the row, or -1 if the tag has no row.
+	 */
+	public int find(GuiTagModel tag) {
+		for (int i = 0; i < size; i++) {
+			if (types[i] == TAG && tags[i] == tag) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the first row whose bottom is below the given position.
+	 *
+	 * @param y
+	 *            The position.
+	 * @return The index of the row, or the number of rows if no row ends below
+	 *         the position.
+	 */
+	public int findFirstBelow(int y) {
+		layout();
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (tops[mid] + getHeight(mid) <= y) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Finds the first row that starts at or below the given position.
+	 *
+	 * @param y
+	 *            The position.
+	 * @return The index of the row, or the number of rows if no row starts at
+	 *         or below the position.
+	 */
+	public int findFirstStarting(int y) {
+		layout();
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (tops[mid] < y) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Gets the height of a row at the current scale.
+	 *
+	 * @param row
+	 *            The index of the row.
+	 * @return The height in pixels.
+	 */
+	public int getHeight(int row) {
+		if (types[row] == TAG) {
+			return TagView.getPreferredHeight();
+		}
+		return views[row].getPreferredSize().height;
+	}
+
+	public GuiTagModel getTag(int row) {
+		return tags[row];
+	}
+
+	public int getTop(int row) {
+		layout();
+		return tops[row];
+	}
+
+	/**
+	 * Gets the height of all of the rows, including the gap before each row.
+	 *
+	 * @return The height in pixels.
+	 */
+	public int getTotalHeight() {
+		layout();
+		return totalHeight;
+	}
+
+	public int getType(int row) {
+		return types[row];
+	}
+
+	public Component getView(int row) {
+		return views[row];
+	}
+
+	/**
+	 * Inserts rows before the given row.
+	 *
+	 * @param row
+	 *            The index of the row to insert before.
+	 * @param rows
+	 *            The rows to insert, which are left unchanged.
+	 */
+	public void insert(int row, TagRows rows) {
+		ensureCapacity(size + rows.size);
+		int moved = size - row;
+		System.arraycopy(types, row, types, row + rows.size, moved);
+		System.arraycopy(tags, row, tags, row + rows.size, moved);
+		System.arraycopy(views, row, views, row + rows.size, moved);
+		System.arraycopy(rows.types, 0, types, row, rows.size);
+		System.arraycopy(rows.tags, 0, tags, row, rows.size);
+		System.arraycopy(rows.views, 0, views, row, rows.size);
+		size += rows.size;
+		laidOut = false;
+	}
+
+	/**
+	 * Removes a range of rows.
+	 *
+	 * @param from
+	 *            The index of the first row to remove.
+	 * @param to
+	 *            The index after the last row to remove.
+	 */
+	public void remove(int from, int to) {
+		System.arraycopy(types, to, types, from, size - to);
+		System.arraycopy(tags, to, tags, from, size - to);
+		System.arraycopy(views, to, views, from, size - to);
+		for (int i = size - (to - from); i < size; i++) {
+			tags[i] = null;
+			views[i] = null;
+		}
+		size -= to - from;
+		laidOut = false;
+	}
+
+	public void setView(int row, Component view) {
+		views[row] = view;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private void allocate(int capacity) {
+		types = new int[capacity];
+		tags = new GuiTagModel[capacity];
+		views = new Component[capacity];
+		tops = new int[capacity];
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= types.length) {
+			return;
+		}
+		int[] oldTypes = types;
+		GuiTagModel[] oldTags = tags;
+		Component[] oldViews = views;
+		allocate(Math.max(capacity, types.length * 2));
+		System.arraycopy(oldTypes, 0, types, 0, size);
+		System.arraycopy(oldTags, 0, tags, 0, size);
+		System.arraycopy(oldViews, 0, views, 0, size);
+	}
+
+	/**
+	 * Computes the position of each row, leaving a one pixel gap before each
+	 * row like the list layout of the tags panel.
+	 */
+	private void layout() {
+		if (laidOut && scale == ConstraintLayout.scale) {
+			return;
+		}
+		int top = 0;
+		for (int i = 0; i < size; i++) {
+			top += 1;
+			tops[i] = top;
+			top += getHeight(i);
+		}
+		totalHeight = top;
+		scale = ConstraintLayout.scale;
+		laidOut = true;
+	}
+}
@@ -0,0 +1,230 @@
+package edu.utsa.tagger.gui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import edu.utsa.tagger.Tagger;
+
+/**
+ * This class runs the tag searches typed in the search bar on a background
+ * thread. A search only starts once no key has been typed for the debounce
+ * delay, and each new search text makes the searches for older texts stale:
+ * a stale search that has not started is skipped, and the result of a stale
+ * search that has finished is dropped, so only the result for the latest text
+ * is published to the event dispatch thread.
+ *
+ * The time each search takes is kept for the most recent searches, so the
+ * latency percentiles can be used to tune the delay and the number of
+ * results.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class TagSearchExecutor {
+
+	/**
+	 * This interface is implemented by the classes that show the results of
+	 * the searches.
+	 */
+	public interface SearchListener {
+
+		/**
+		 * Called on the event dispatch thread with the result of the latest
+		 * search.
+		 *
+		 * @param searchText
+		 *            The search text.
+		 * @param tags
+		 *            The matching tags, most relevant first, or null if the
+		 *            search text is empty.
+		 */
+		public void searchCompleted(String searchText, Set<GuiTagModel> tags);
+	}
+
+	public static final int DEFAULT_DELAY = 150;
+	private static final int LATENCY_SAMPLES = 1024;
+
+	// Thread shared by the searches of all of the views
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "Tag search");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final Tagger tagger;
+	private final int maxResults;
+	private final SearchListener listener;
+	private final Timer timer;
+	// Number of the latest search text, which older searches compare against
+	// to find out that they are stale
+	private final AtomicInteger latest = new AtomicInteger();
+	private String pendingText;
+	private Future<?> running;
+
+	private final long[] latencies = new long[LATENCY_SAMPLES];
+	private int latencyCount;
+	private long requestCount;
+	private long executedCount;
+	private long staleCount;
+	private long publishedCount;
+
+	/**
+	 * Creates an executor for the searches of a tagger.
+	 *
+	 * @param tagger
+	 *            The tagger whose tags are searched.
+	 * @param maxResults
+	 *            The largest number of tags in a result.
+	 * @param delay
+	 *            The time in milliseconds without a new search text after
+	 *            which the search starts.
+	 * @param listener
+	 *            The listener that the results are published to.
+	 */
+	public TagSearchExecutor(Tagger tagger, int maxResults, int delay, SearchListener listener) {
+		this.tagger = tagger;
+		this.maxResults = maxResults;
+		this.listener = listener;
+		timer = new Timer(delay, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				submit(pendingText, latest.get());
+			}
+		});
+		timer.setRepeats(false);
+	}
+
+	/**
+	 * Cancels the pending and running searches, so that none of their results
+	 * are published.
+	 */
+	public void cancel() {
+		latest.incrementAndGet();
+		timer.stop();
+		if (running != null) {
+			running.cancel(false);
+			running = null;
+		}
+	}
+
+	public synchronized long getExecutedCount() {
+		return executedCount;
+	}
+
+	/**
+	 * Gets a percentile of the time taken by the most recent searches.
+	 *
+	 * @param percentile
+	 *            The percentile, from 0 to 100.
+	 * @return The time in milliseconds, or 0 if no search has run.
+	 */
+	public double getLatencyPercentile(double percentile) {
+		long[] samples;
+		synchronized (this) {
+			samples = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_SAMPLES));
+		}
+		if (samples.length == 0) {
+			return 0;
+		}
+		Arrays.sort(samples);
+		int rank = (int) Math.ceil(percentile / 100 * samples.length);
+		return samples[Math.min(Math.max(rank, 1), samples.length) - 1] / 1e6;
+	}
+
+	public synchronized long getPublishedCount() {
+		return publishedCount;
+	}
+
+	public synchronized long getRequestCount() {
+		return requestCount;
+	}
+
+	public synchronized long getStaleCount() {
+		return staleCount;
+	}
+
+	public synchronized void resetCounts() {
+		latencyCount = 0;
+		requestCount = 0;
+		executedCount = 0;
+		staleCount = 0;
+		publishedCount = 0;
+	}
+
+	/**
+	 * Searches for the given text once no new text is given for the delay.
+	 * An empty text is published at once with no result. This must be called
+	 * on the event dispatch thread.
+	 *
+	 * @param searchText
+	 *            The search text.
+	 */
+	public void search(String searchText) {
+		synchronized (this) {
+			requestCount++;
+		}
+		cancel();
+		if (searchText.isEmpty()) {
+			listener.searchCompleted(searchText, null);
+			return;
+		}
+		pendingText = searchText;
+		timer.restart();
+	}
+
+	private synchronized void countStale() {
+		staleCount++;
+	}
+
+	private synchronized void recordLatency(long nanos) {
+		executedCount++;
+		latencies[latencyCount % LATENCY_SAMPLES] = nanos;
+		latencyCount++;
+	}
+
+	/**
+	 * Runs the search on the background thread and publishes the result if
+	 * no newer text was given in the meantime.
+	 */
+	private void submit(final String searchText, final int number) {
+		running = executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				if (number != latest.get()) {
+					countStale();
+					return;
+				}
+				long start = System.nanoTime();
+				final Set<GuiTagModel> tags = tagger.getSearchTags(searchText, maxResults);
+				recordLatency(System.nanoTime() - start);
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (number != latest.get()) {
+							countStale();
+							return;
+						}
+						running = null;
+						synchronized (TagSearchExecutor.this) {
+							publishedCount++;
+						}
+						listener.searchCompleted(searchText, tags);
+					}
+				});
+			}
+		});
+	}
+}
@@ -40,7 +40,7 @@ public class TagView extends JComponent implements MouseListener {
 
 	private final Tagger tagger;
 	private final TaggerView appView;
-	private final GuiTagModel model;
+	private GuiTagModel model;
 	private boolean highlight = false;
 
 	private boolean hover = false;
@@ -72,6 +72,8 @@ public class TagView extends JComponent implements MouseListener {
 	 * @param e
 	 */
 	private void displayContextMenu(MouseEvent e) {
+		// The view can be given another tag when the tags panel is updated
+		final GuiTagModel model = this.model;
 		Map<String, ContextMenuAction> map = new LinkedHashMap<String, ContextMenuAction>();
 		if (tagger.canEditTags()) {
 			map.put("edit", new ContextMenuAction() {
@@ -106,8 +108,6 @@ public class TagView extends JComponent implements MouseListener {
 					if (delete == 0) {
 						tagger.deleteTag(model);
 						tagger.setHedEdited(true);
-						appView.updateTags();
-						appView.updateEventsPanel();
 					}
 				}
 			});
@@ -117,7 +117,20 @@ public class TagView extends JComponent implements MouseListener {
 
 	@Override
 	public Dimension getPreferredSize() {
-		return new Dimension(0, (int) (24 * ConstraintLayout.scale));
+		return new Dimension(0, getPreferredHeight());
+	}
+
+	/**
+	 * Gets the height of a tag view at the current scale.
+	 * 
+	 * @return The preferred height of every tag view.
+	 */
+	public static int getPreferredHeight() {
+		return (int) (24 * ConstraintLayout.scale);
+	}
+
+	public GuiTagModel getModel() {
+		return model;
 	}
 
 	/**
@@ -129,12 +142,13 @@ public class TagView extends JComponent implements MouseListener {
 	 */
 	@Override
 	public void mouseClicked(MouseEvent e) {
+		GuiTagModel model = this.model;
 		if (SwingUtilities.isRightMouseButton(e) && !"~".equals(model.getName())) {
 			displayContextMenu(e);
 		} else if (SwingUtilities.isLeftMouseButton(e)) {
 			if (model.isCollapsable() && collapserBounds.contains(e.getPoint())) {
 				model.setCollapsed(!model.isCollapsed());
-				appView.updateTags();
+				appView.updateTagCollapsed(model);
 			} else if (model.takesValue() || model.isNumeric()) {
 				model.setInAddValue(true);
 				appView.updateTags();
@@ -241,6 +255,24 @@ public class TagView extends JComponent implements MouseListener {
 		this.font = font;
 	}
 
+	/**
+	 * Shows another tag in the view, so that views can be reused for the tags
+	 * that are scrolled into sight.
+	 * 
+	 * @param model
+	 *            The tag to show.
+	 */
+	public void setModel(GuiTagModel model) {
+		this.model = model;
+		highlight = false;
+		hover = false;
+		pressed = false;
+		toolTip = null;
+		collapserBounds.setBounds(0, 0, 0, 0);
+		update();
+		repaint();
+	}
+
 	/**
 	 * Updates tag view to reflect information currently in the underlying tag
 	 * model.
@@ -1,12 +1,15 @@
 package edu.utsa.tagger.gui;
 
 import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GridLayout;
 import java.awt.MouseInfo;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.awt.event.MouseAdapter;
@@ -17,6 +20,7 @@ import java.awt.event.WindowEvent;
 import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -36,6 +40,8 @@ import javax.swing.JSeparator;
 import javax.swing.JTextField;
 import javax.swing.KeyStroke;
 import javax.swing.SwingConstants;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileFilter;
@@ -46,6 +52,8 @@ import edu.utsa.tagger.EventModel;
 import edu.utsa.tagger.HistoryItem;
 import edu.utsa.tagger.TaggedEvent;
 import edu.utsa.tagger.Tagger;
+import edu.utsa.tagger.TaggerChangeEvent;
+import edu.utsa.tagger.TaggerChangeListener;
 import edu.utsa.tagger.TaggerLoader;
 import edu.utsa.tagger.TaggerSet;
 import edu.utsa.tagger.ToggleTagMessage;
@@ -55,6 +63,7 @@ import edu.utsa.tagger.guisupport.ConstraintContainer;
 import edu.utsa.tagger.guisupport.ConstraintLayout;
 import edu.utsa.tagger.guisupport.DropShadowBorder;
 import edu.utsa.tagger.guisupport.ListLayout;
+import edu.utsa.tagger.guisupport.RefreshScheduler;
 import edu.utsa.tagger.guisupport.ScrollLayout;
 import edu.utsa.tagger.guisupport.VerticalSplitLayout;
 import edu.utsa.tagger.guisupport.XButton;
@@ -174,8 +183,6 @@ public class TaggerView extends ConstraintContainer {
 			} else {
 				item = tagger.redo();
 			}
-			updateEventsPanel();
-			updateTags();
 			hoverText = undo ? tagger.getUndoMessage() : tagger.getRedoMessage();
 			hoverMessage.setText(hoverText);
 			if (item != null) {
@@ -356,11 +363,35 @@ public class TaggerView extends ConstraintContainer {
 	private Tagger tagger;
 
 	private JPanel tagsPanel = new JPanel();
+	// Largest number of tags shown in the search results
+	private static final int MAX_SEARCH_RESULTS = 50;
 	private JPanel eventsPanel = new JPanel();
+	// Distance above and below the events scroll pane in which rows get views
+	private static final int VISIBLE_EVENTS_MARGIN = 200;
+	private JComponent eventsEnd = new JComponent() {
+	};
+	private EventRows eventRows = new EventRows();
+	// Rows that the events are laid out in when only some of them changed
+	private EventRows changedEventRows = new EventRows();
+	private int visibleEventsFrom;
+	private int visibleEventsTo;
+	// Distance in pixels above and below the tags scroll pane in which rows
+	// get views
+	private static final int VISIBLE_TAGS_MARGIN = 200;
+	private JComponent tagsAbove = new JComponent() {
+	};
+	private JComponent tagsBelow = new JComponent() {
+	};
+	private TagRows tagRows = new TagRows();
+	private List<TagView> tagViewPool = new ArrayList<TagView>();
+	private int visibleTagsFrom = -1;
+	private int visibleTagsTo = -1;
 	private boolean startOver;
 	private boolean fMapLoaded;
 	private String fMapPath;
 	private ScrollLayout tagsScrollLayout;
+	private RefreshScheduler refreshScheduler = new RefreshScheduler(this);
+	private TagSearchExecutor searchExecutor;
 
 	private JLayeredPane tagsScrollPane = new JLayeredPane();
 	private JLabel tagsTitle = new JLabel("Tags") {
@@ -395,7 +426,25 @@ public class TaggerView extends ConstraintContainer {
 		this.isStandAloneVersion = isStandAloneVersion;
 
 		autoCollapseDepth = loader.getInitialDepth();
+		searchExecutor = new TagSearchExecutor(tagger, MAX_SEARCH_RESULTS, TagSearchExecutor.DEFAULT_DELAY,
+				new TagSearchExecutor.SearchListener() {
+					@Override
+					public void searchCompleted(String searchText, Set<GuiTagModel> tags) {
+						updateSearch(tags);
+					}
+				});
 		createGui();
+		tagger.addChangeListener(new TaggerChangeListener() {
+			@Override
+			public void taggerChanged(TaggerChangeEvent e) {
+				if (e.getType() == TaggerChangeEvent.Type.HIERARCHY_EDITED) {
+					updateTags();
+					updateEventsPanel();
+				} else {
+					updateChangedEvents(e.getEvents());
+				}
+			}
+		});
 
 		frame.setTitle(frameTitle);
 
@@ -587,12 +636,12 @@ public class TaggerView extends ConstraintContainer {
 
 			@Override
 			public void insertUpdate(DocumentEvent e) {
-				updateSearch();
+				searchExecutor.search(searchTags.getJTextArea().getText());
 			}
 
 			@Override
 			public void removeUpdate(DocumentEvent e) {
-				updateSearch();
+				searchExecutor.search(searchTags.getJTextArea().getText());
 			}
 		});
 
@@ -678,11 +727,24 @@ public class TaggerView extends ConstraintContainer {
 		zoomPercent.setFont(FontsAndColors.contentFont);
 		zoomPercent.setForeground(FontsAndColors.GREY_DARK);
 
-		eventsScrollPane.setLayout(new ScrollLayout(eventsScrollPane, eventsPanel));
+		ScrollLayout eventsScrollLayout = new ScrollLayout(eventsScrollPane, eventsPanel);
+		eventsScrollPane.setLayout(eventsScrollLayout);
+		eventsScrollLayout.getViewport().addChangeListener(new ChangeListener() {
+			@Override
+			public void stateChanged(ChangeEvent e) {
+				updateVisibleEvents();
+			}
+		});
 		eventsPanel.setBackground(Color.WHITE);
 		tagsPanel.setBackground(Color.WHITE);
 		tagsScrollLayout = new ScrollLayout(tagsScrollPane, tagsPanel);
 		tagsScrollPane.setLayout(tagsScrollLayout);
+		tagsScrollLayout.getViewport().addChangeListener(new ChangeListener() {
+			@Override
+			public void stateChanged(ChangeEvent e) {
+				updateVisibleTags();
+			}
+		});
 
 		eventsTitle.setForeground(FontsAndColors.GREY_VERY_VERY_DARK);
 		tagsTitle.setForeground(FontsAndColors.GREY_VERY_VERY_DARK);
@@ -728,6 +790,7 @@ public class TaggerView extends ConstraintContainer {
 
 			@Override
 			public void focusLost(FocusEvent e) {
+				searchExecutor.cancel();
 				searchResults.setVisible(false);
 			}
 		});
@@ -996,14 +1059,7 @@ public class TaggerView extends ConstraintContainer {
 		Iterator<Integer> iter = selectedGroups.iterator();
 		while (iter.hasNext()) {
 			Integer groupId = iter.next();
-			boolean found = false;
-			for (TaggedEvent currentTaggedEvent : tagger.getEgtSet()) {
-				if (currentTaggedEvent.containsGroup(groupId)) {
-					found = true;
-					break;
-				}
-			}
-			if (!found) {
+			if (tagger.getEventByGroupId(groupId) == null) {
 				iter.remove();
 			}
 		}
@@ -1023,22 +1079,22 @@ public class TaggerView extends ConstraintContainer {
 	 * Repaints the events panel.
 	 */
 	public void repaintEventsPanel() {
-		eventsPanel.validate();
-		eventsPanel.repaint();
+		refreshScheduler.requestLayout(eventsPanel);
+		refreshScheduler.requestRepaint(eventsPanel);
 	}
 
 	/**
 	 * Repaints the events scroll pane.
 	 */
 	public void repaintEventsScrollPane() {
-		eventsScrollPane.repaint();
+		refreshScheduler.requestRepaint(eventsScrollPane);
 	}
 
 	/**
 	 * Repaints the tags scroll pane.
 	 */
 	public void repaintTagsScrollPane() {
-		tagsScrollPane.repaint();
+		refreshScheduler.requestRepaint(tagsScrollPane);
 	}
 
 	/**
@@ -1119,6 +1175,25 @@ public class TaggerView extends ConstraintContainer {
 		return fMapPath;
 	}
 
+	/**
+	 * Gets the scheduler that merges the layout and repaint requests of the
+	 * views into one pass.
+	 * 
+	 * @return The refresh scheduler.
+	 */
+	public RefreshScheduler getRefreshScheduler() {
+		return refreshScheduler;
+	}
+
+	/**
+	 * Gets the executor that runs the searches typed in the search bar.
+	 * 
+	 * @return The search executor.
+	 */
+	public TagSearchExecutor getSearchExecutor() {
+		return searchExecutor;
+	}
+
 	/**
 	 * Shows a file chooser to select a tab-delimited file.
 	 * 
@@ -1145,12 +1220,12 @@ public class TaggerView extends ConstraintContainer {
 	 */
 	public void scrollToEvent(TaggedEvent event) {
 		int offset = 100;
-		ScrollLayout layout = (ScrollLayout) eventsScrollPane.getLayout();
 		updateNotification(null, null);
-		EventView eventView = event.getEventView();
-		int y = Math.max(0, eventView.getY() - offset);
-		layout.scrollTo(y);
-		eventView.highlight();
+		int row = eventRows.findEvent(event);
+		if (row != -1) {
+			scrollEventsTo(getEventRowY(row) - offset);
+			event.getEventView().highlight();
+		}
 	}
 
 	/**
@@ -1160,11 +1235,12 @@ public class TaggerView extends ConstraintContainer {
 	 *            The event that the group belongs to.
 	 */
 	public void scrollToEventGroup(TaggedEvent event) {
-		int offset = event.getEventView().getHeight() + event.findNumberOfTagsInEvents() * 27;
-		ScrollLayout layout = (ScrollLayout) eventsScrollPane.getLayout();
+		int row = eventRows.findEvent(event);
+		int offset = (int) (ConstraintLayout.scale * 30) + event.findNumberOfTagsInEvents() * 27;
 		updateNotification(null, null);
-		int y = Math.max(0, event.getEventView().getY() + offset);
-		layout.scrollTo(y);
+		if (row != -1) {
+			scrollEventsTo(getEventRowY(row) + offset);
+		}
 	}
 
 	/**
@@ -1177,34 +1253,32 @@ public class TaggerView extends ConstraintContainer {
 		if (selectedGroups.size() > 0) {
 			int offset = 100;
 			int lastSelectedGroup = Collections.max(selectedGroups);
-			ScrollLayout layout = (ScrollLayout) eventsScrollPane.getLayout();
 			updateNotification(null, null);
 			TaggedEvent event = tagger.getTaggedEventFromGroupId(lastSelectedGroup);
-			if (event.isRRTagDescendant(tag)) {
-				AbstractTagModel rrTag = event.findRRParentTag(tag);
-				RRTagView rrTagView = event.getRRTagViewByKey(rrTag);
-				TagEventView tagEgtView = rrTagView.getTagEgtViewByKey(tag);
-				if (rrTagView != null) {
-					int y = Math.max(0, rrTagView.getY() - offset);
-					layout.scrollTo(y);
+			int row = eventRows.findRRTag(event, tag);
+			if (row != -1) {
+				scrollEventsTo(getEventRowY(row) - offset);
+				if (eventRows.getView(row) instanceof RRTagView) {
+					TagEventView tagEgtView = ((RRTagView) eventRows.getView(row)).getTagEgtViewByKey(tag);
 					if (tagEgtView != null)
 						tagEgtView.highlight();
 				}
 			} else if (event.getEventGroupId() != lastSelectedGroup) {
-				GroupView groupView = event.getGroupViewByKey(lastSelectedGroup);
-				TagEventView tagEgtView = groupView.getTagEgtViewByKey(tag);
-				if (groupView != null) {
-					int y = Math.max(0, groupView.getY() - offset);
-					layout.scrollTo(y);
+				row = eventRows.findGroup(lastSelectedGroup);
+				if (row != -1) {
+					scrollEventsTo(getEventRowY(row) - offset);
+					TagEventView tagEgtView = null;
+					if (eventRows.getView(row) instanceof GroupView)
+						tagEgtView = ((GroupView) eventRows.getView(row)).getTagEgtViewByKey(tag);
 					if (tagEgtView != null)
 						tagEgtView.highlight();
 				}
 			} else {
-				TagEventView tagEgtView = event.getTagEgtViewByKey(tag);
-				if (tagEgtView != null) {
-					int y = Math.max(0, tagEgtView.getY() - offset);
-					layout.scrollTo(y);
-					tagEgtView.highlight();
+				row = eventRows.findTag(lastSelectedGroup, tag);
+				if (row != -1) {
+					scrollEventsTo(getEventRowY(row) - offset);
+					if (eventRows.getView(row) instanceof TagEventView)
+						((TagEventView) eventRows.getView(row)).highlight();
 				}
 			}
 		}
@@ -1220,19 +1294,21 @@ public class TaggerView extends ConstraintContainer {
 		while (selectedGroupsIterator.hasNext()) {
 			lastSelectedGroup = selectedGroupsIterator.next().intValue();
 		}
-		ScrollLayout layout = (ScrollLayout) eventsScrollPane.getLayout();
 		updateNotification(null, null);
 		TaggedEvent event = tagger.getTaggedEventFromGroupId(lastSelectedGroup);
 		if (event.getEventGroupId() != lastSelectedGroup) {
-			GroupView groupView = event.getGroupViewByKey(lastSelectedGroup);
-			int y = Math.max(0, groupView.getY() - offset);
-			layout.scrollTo(y);
-			groupView.highlight();
+			int row = eventRows.findGroup(lastSelectedGroup);
+			if (row != -1) {
+				scrollEventsTo(getEventRowY(row) - offset);
+				if (eventRows.getView(row) instanceof GroupView)
+					((GroupView) eventRows.getView(row)).highlight();
+			}
 		} else {
-			EventView groupView = event.getEventView();
-			int y = Math.max(0, groupView.getY() - offset);
-			layout.scrollTo(y);
-			groupView.highlight();
+			int row = eventRows.findEvent(event);
+			if (row != -1) {
+				scrollEventsTo(getEventRowY(row) - offset);
+				event.getEventView().highlight();
+			}
 		}
 
 	}
@@ -1246,13 +1322,32 @@ public class TaggerView extends ConstraintContainer {
 	 *            The id of the new group.
 	 */
 	public void scrollToNewGroup(TaggedEvent event, int groupId) {
-		int offset = event.getEventView().getHeight() + event.findNumberOfTagsInEvents() * 27;
-		ScrollLayout layout = (ScrollLayout) eventsScrollPane.getLayout();
+		int offset = (int) (ConstraintLayout.scale * 30) + event.findNumberOfTagsInEvents() * 27;
 		updateNotification(null, null);
-		GroupView groupView = event.getGroupViewByKey(Integer.valueOf(groupId));
-		int y = Math.max(0, groupView.getY() - offset);
-		layout.scrollTo(y);
-		groupView.highlight();
+		int row = eventRows.findGroup(groupId);
+		if (row != -1) {
+			scrollEventsTo(getEventRowY(row) - offset);
+			if (eventRows.getView(row) instanceof GroupView)
+				((GroupView) eventRows.getView(row)).highlight();
+		}
+	}
+
+	/**
+	 * Gets the position of a row of the events panel on the screen.
+	 */
+	private int getEventRowY(int row) {
+		return (int) (ConstraintLayout.scale * eventRows.getTop(row));
+	}
+
+	/**
+	 * Scrolls the events panel to the given position and creates the views of
+	 * the rows that become visible, so they can be highlighted.
+	 */
+	private void scrollEventsTo(int y) {
+		ScrollLayout layout = (ScrollLayout) eventsScrollPane.getLayout();
+		refreshScheduler.flush();
+		layout.scrollTo(Math.max(0, y));
+		updateVisibleEvents();
 	}
 
 	/**
@@ -1278,10 +1373,16 @@ public class TaggerView extends ConstraintContainer {
 			gtm = (GuiTagModel) tag;
 		}
 		expandToLevel(gtm.getDepth());
-		TagView tagView = gtm.getTagView();
-		int y = Math.max(0, tagView.getY() - offset);
-		layout.scrollTo(y);
-		tagView.highlight();
+		int row = tagRows.find(gtm);
+		if (row != -1) {
+			int y = Math.max(0, tagRows.getTop(row) - offset);
+			refreshScheduler.flush();
+			layout.scrollTo(y);
+			updateVisibleTags();
+			if (tagRows.getView(row) instanceof TagView) {
+				((TagView) tagRows.getView(row)).highlight();
+			}
+		}
 	}
 
 	/**
@@ -1293,20 +1394,22 @@ public class TaggerView extends ConstraintContainer {
 		String[] eventFields = dialog.showDialog();
 		if (eventFields != null) {
 			TaggedEvent event = tagger.addNewEvent(eventFields[0], eventFields[1]);
-			updateEventsPanel();
 			if (event == null) {
 				showTaggerMessageDialog(MessageConstants.ADD_EVENT_ERROR, "Okay", null, null);
 			} else {
 				ScrollLayout eventScrollLayout = (ScrollLayout) eventsScrollPane.getLayout();
-				eventScrollLayout.scrollTo(event.getEventView().getCurrentPosition());
+				refreshScheduler.flush();
+				eventScrollLayout.scrollTo(eventRows.getTop(eventRows.findEvent(event)));
+				updateVisibleEvents();
 			}
 		}
 	}
 
 	/**
 	 * Shows a dialog to handle toggling a tag when ancestor tags are present.
-	 * If the user chooses to replace these ancestor tags, it removes the
-	 * ancestor tags in the tagger and toggles the tag again.
+	 * If the user chooses to replace these ancestor tags, the tagger replaces
+	 * them with the tag in all of the groups as a single action that can be
+	 * undone at once.
 	 * 
 	 * @param message
 	 */
@@ -1315,14 +1418,14 @@ public class TaggerView extends ConstraintContainer {
 				MessageConstants.REPLACE_TAGS_Q, true, "Replace", "Warning");
 		boolean replace = dialog.showDialog();
 		if (replace) {
-			// Remove ancestor tags
-			for (EventModel ancestor : message.ancestors) {
-				Set<Integer> tagIds = new HashSet<Integer>();
-				tagIds.add(ancestor.getGroupId());
-				tagger.unassociate(ancestor.getTagModel(), tagIds);
+			ToggleTagMessage conflicts = tagger.replaceAncestors(message);
+			if (conflicts != null) {
+				if (conflicts.descendants.size() > 0) {
+					showDescendantDialog(conflicts);
+				} else {
+					showUniqueDialog(conflicts);
+				}
 			}
-			// Toggle tag again
-			tagger.toggleTag(message.tagModel, message.groupIds);
 		}
 	}
 
@@ -1541,106 +1644,283 @@ public class TaggerView extends ConstraintContainer {
 
 	/**
 	 * Updates the events panel with the information currently represented by
-	 * the Tagger.
+	 * the Tagger. The rows of the events are laid out from the Tagger, but
+	 * views are only created for the rows that are visible in the events
+	 * scroll pane.
 	 */
 	public void updateEventsPanel() {
 		pruneSelectedGroups();
 		eventsPanel.removeAll();
+		eventRows.clear();
+		visibleEventsFrom = 0;
+		visibleEventsTo = 0;
 		int top = 0;
 		for (TaggedEvent taggedEvent : tagger.getEgtSet()) {
-			taggedEvent.setAppView(this);
-			EventView ev = taggedEvent.getEventView();
-			ev.setGroupId(taggedEvent.getEventGroupId());
-			if (selectedGroups.contains(taggedEvent.getEventGroupId())) {
-				ev.setSelected(true);
+			top = addEventRows(eventRows, taggedEvent, top);
+		}
+		eventRows.setNextTop(top);
+		// Sizes the panel for all of the rows, as only the visible rows have
+		// views
+		eventsPanel.add(eventsEnd, new Constraint("top:" + eventRows.getTotalHeight() + " height:0 left:0 width:0"));
+		eventsPanel.validate();
+		eventsScrollPane.validate();
+		updateVisibleEvents();
+		refreshScheduler.requestLayout(this);
+		refreshScheduler.requestRepaint(this);
+	}
+
+	/**
+	 * Adds the rows of an event to the rows of the events panel.
+	 * 
+	 * @param rows
+	 *            The rows to add to.
+	 * @param taggedEvent
+	 *            The event.
+	 * @param top
+	 *            The position of the event.
+	 * @return The position after the rows of the event.
+	 */
+	private int addEventRows(EventRows rows, TaggedEvent taggedEvent, int top) {
+		taggedEvent.setAppView(this);
+		int eventGroupId = taggedEvent.getEventGroupId();
+		rows.add(EventRows.EVENT, taggedEvent, eventGroupId, null, top, 30);
+		top += 31;
+		if (taggedEvent.isInEdit()) {
+			rows.add(EventRows.EVENT_EDIT, taggedEvent, eventGroupId, null, top, EventEditView.HEIGHT);
+			top += EventEditView.HEIGHT;
+		}
+		if (tagger.isPrimary() && taggedEvent.showInfo() && tagger.hasRRTags()) {
+			// Show required/recommended tags
+			for (AbstractTagModel tag : tagger.getRequiredTags()) {
+				int size = RRTagView.getConstraintHeight(taggedEvent, tag);
+				rows.add(EventRows.RR_TAG, taggedEvent, eventGroupId, tag, top, size);
+				top += size;
+			}
+			for (AbstractTagModel tag : tagger.getRecommendedTags()) {
+				int size = RRTagView.getConstraintHeight(taggedEvent, tag);
+				rows.add(EventRows.RR_TAG, taggedEvent, eventGroupId, tag, top, size);
+				top += size;
+			}
+			rows.add(EventRows.SEPARATOR, taggedEvent, eventGroupId, null, top, 1);
+			top += 5;
+		}
+		// Show other tags
+		for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> tagGroup : taggedEvent.getTagGroups().entrySet()) {
+			int groupId = tagGroup.getKey();
+			// Show tag group
+			if (groupId != eventGroupId) {
+				Integer numTagsInGroup = taggedEvent.getNumTagsInGroup(groupId);
+				if (numTagsInGroup == 0) {
+					rows.add(EventRows.GROUP, taggedEvent, groupId, null, top, 27);
+					top += 27;
+				} else {
+					rows.add(EventRows.GROUP, taggedEvent, groupId, null, top, numTagsInGroup * 27);
+				}
+			}
+			TaggerSet<AbstractTagModel> tags = tagGroup.getValue();
+			for (AbstractTagModel tag : tags) {
+				if (groupId != eventGroupId || !tagger.isRRValue(tag) || !tagger.isPrimary()) {
+					GuiTagModel guiTagModel = (GuiTagModel) tag;
+					guiTagModel.setAppView(this);
+					guiTagModel.updateMissing();
+					rows.add(EventRows.TAG, taggedEvent, groupId, tag, top, 26);
+					top += 27;
+					if (guiTagModel.isInEdit()) {
+						rows.add(EventRows.TAG_EDIT, taggedEvent, groupId, tag, top, TagEventEditView.HEIGHT);
+						top += TagEventEditView.HEIGHT;
+					}
+				}
+			}
+		}
+		return top;
+	}
+
+	/**
+	 * Updates the rows of the events that changed, after the given events are
+	 * added, removed or changed in the Tagger. The rows of the other events
+	 * and their views are kept and only moved, so only the views of the
+	 * changed events are created again.
+	 * 
+	 * @param changedEvents
+	 *            The events that changed.
+	 */
+	private void updateChangedEvents(Set<TaggedEvent> changedEvents) {
+		pruneSelectedGroups();
+		EventRows rows = changedEventRows;
+		int oldSize = eventRows.size();
+		int oldRow = 0;
+		// Rows before the first changed row are the same in the old and new
+		// rows
+		int firstChanged = -1;
+		int top = 0;
+		for (TaggedEvent taggedEvent : tagger.getEgtSet()) {
+			// Skips the rows of events that were removed or changed
+			while (oldRow < oldSize && changedEvents.contains(eventRows.getEvent(oldRow))) {
+				if (firstChanged < 0) {
+					firstChanged = rows.size();
+				}
+				oldRow = eventRows.findEventEnd(oldRow);
+			}
+			if (changedEvents.contains(taggedEvent)) {
+				if (firstChanged < 0) {
+					firstChanged = rows.size();
+				}
+				top = addEventRows(rows, taggedEvent, top);
+			} else if (oldRow < oldSize && eventRows.getEvent(oldRow) == taggedEvent) {
+				int end = eventRows.findEventEnd(oldRow);
+				int offset = top - eventRows.getTop(oldRow);
+				rows.add(eventRows, oldRow, end, offset);
+				top = eventRows.getNextTop(end) + offset;
+				oldRow = end;
 			} else {
-				ev.setSelected(false);
+				// The events were changed in a way that was not published
+				rows.clear();
+				updateEventsPanel();
+				return;
 			}
-			eventsPanel.add(ev,
-					new Constraint("top:" + top + " height:30 left:0 width:" + (eventsPanel.getWidth() - 15)));
+		}
+		if (firstChanged < 0 && oldRow < oldSize) {
+			firstChanged = rows.size();
+		}
+		rows.setNextTop(top);
+		if (firstChanged < 0) {
+			rows.clear();
+			return;
+		}
+		// Removes the views from the first changed row on, which are added
+		// again at their new positions
+		for (int row = Math.max(visibleEventsFrom, firstChanged); row < visibleEventsTo; row++) {
+			eventsPanel.remove(eventRows.getView(row));
+		}
+		if (visibleEventsFrom >= firstChanged) {
+			visibleEventsFrom = 0;
+			visibleEventsTo = 0;
+		} else {
+			visibleEventsTo = Math.min(visibleEventsTo, firstChanged);
+		}
+		changedEventRows = eventRows;
+		changedEventRows.clear();
+		eventRows = rows;
+		eventsPanel.remove(eventsEnd);
+		eventsPanel.add(eventsEnd, new Constraint("top:" + eventRows.getTotalHeight() + " height:0 left:0 width:0"));
+		eventsPanel.validate();
+		eventsScrollPane.validate();
+		updateVisibleEvents();
+		refreshScheduler.requestRepaint(eventsScrollPane);
+	}
+
+	/**
+	 * Adds the views of the rows that are visible in the events scroll pane to
+	 * the events panel, creating the views that do not exist yet, and removes
+	 * the views of the rows that are no longer visible.
+	 */
+	private void updateVisibleEvents() {
+		Rectangle viewRect = ((ScrollLayout) eventsScrollPane.getLayout()).getViewport().getViewRect();
+		int viewTop = (int) (viewRect.y / ConstraintLayout.scale) - VISIBLE_EVENTS_MARGIN;
+		int viewBottom = (int) ((viewRect.y + viewRect.height) / ConstraintLayout.scale) + VISIBLE_EVENTS_MARGIN;
+		int from = eventRows.findFirstBelow(viewTop);
+		int to = Math.max(from, eventRows.findFirstStarting(viewBottom));
+		if (from == visibleEventsFrom && to == visibleEventsTo) {
+			return;
+		}
+		for (int row = visibleEventsFrom; row < visibleEventsTo; row++) {
+			if (row < from || row >= to) {
+				eventsPanel.remove(eventRows.getView(row));
+			}
+		}
+		for (int row = from; row < to; row++) {
+			if (row < visibleEventsFrom || row >= visibleEventsTo) {
+				addEventRowView(row);
+			}
+		}
+		visibleEventsFrom = from;
+		visibleEventsTo = to;
+		eventsPanel.validate();
+		refreshScheduler.requestRepaint(eventsPanel);
+	}
+
+	/**
+	 * Adds the view of a row to the events panel, creating the view if the row
+	 * does not have one yet.
+	 */
+	private void addEventRowView(int row) {
+		TaggedEvent taggedEvent = eventRows.getEvent(row);
+		int groupId = eventRows.getGroupId(row);
+		AbstractTagModel tag = eventRows.getTag(row);
+		int top = eventRows.getTop(row);
+		int height = eventRows.getHeight(row);
+		Component view = eventRows.getView(row);
+		switch (eventRows.getType(row)) {
+		case EventRows.EVENT:
+			EventView ev = taggedEvent.getEventView();
+			ev.setGroupId(groupId);
+			ev.setSelected(selectedGroups.contains(groupId));
 			ev.setCurrentPosition(top);
-			top += 31;
-			if (taggedEvent.isInEdit()) {
+			eventsPanel.add(ev, new Constraint(
+					"top:" + top + " height:" + height + " left:0 width:" + (eventsPanel.getWidth() - 15)));
+			view = ev;
+			break;
+		case EventRows.EVENT_EDIT:
+			if (view == null) {
 				EventEditView eev = taggedEvent.getEventEditView();
 				eev.update();
-				eventsPanel.add(eev, new Constraint("top:" + top + " height:" + EventEditView.HEIGHT));
-				top += EventEditView.HEIGHT;
+				view = eev;
 			}
-			if (tagger.isPrimary() && taggedEvent.showInfo() && tagger.hasRRTags()) {
-				// Show required/recommended tags
-				for (AbstractTagModel tag : tagger.getRequiredTags()) {
-					RRTagView rrtv = taggedEvent.getRRTagView(tag);
-					taggedEvent.addRRTagView(tag, rrtv);
-					int size = rrtv.getConstraintHeight();
-					eventsPanel.add(rrtv, new Constraint("top:" + top + " height:" + size));
-					top += size;
-				}
-				for (AbstractTagModel tag : tagger.getRecommendedTags()) {
-					RRTagView rrtv = taggedEvent.getRRTagView(tag);
-					taggedEvent.addRRTagView(tag, rrtv);
-					int size = rrtv.getConstraintHeight();
-					eventsPanel.add(rrtv, new Constraint("top:" + top + " height:" + size));
-					top += size;
-				}
+			eventsPanel.add(view, new Constraint("top:" + top + " height:" + height));
+			break;
+		case EventRows.RR_TAG:
+			if (view == null) {
+				RRTagView rrtv = taggedEvent.getRRTagView(tag);
+				taggedEvent.addRRTagView(tag, rrtv);
+				view = rrtv;
+			}
+			eventsPanel.add(view, new Constraint("top:" + top + " height:" + height));
+			break;
+		case EventRows.SEPARATOR:
+			if (view == null) {
 				JSeparator separator = new JSeparator();
 				separator.setForeground(Color.black);
 				separator.setBackground(Color.black);
-				eventsPanel.add(separator, new Constraint("top:" + top + " height:1 left:15 right:20"));
-				top += 5;
+				view = separator;
 			}
-			// Show other tags
-			for (Map.Entry<Integer, TaggerSet<AbstractTagModel>> tagGroup : taggedEvent.getTagGroups().entrySet()) {
-				// Show tag group
-				if (tagGroup.getKey() != taggedEvent.getEventGroupId()) {
-					Integer groupId = tagGroup.getKey();
-					GroupView groupView = new GroupView(tagger, this, groupId);
-					taggedEvent.addGroupView(groupView);
-					if (selectedGroups.contains(groupId)) {
-						groupView.setSelected(true);
-					}
-					Integer numTagsInGroup = taggedEvent.getNumTagsInGroup(groupId);
-					if (numTagsInGroup == 0) {
-						eventsPanel.add(groupView, new Constraint("top:" + top + " height:27 left:0 width:30"));
-						top += 27;
-					} else {
-						eventsPanel.add(groupView,
-								new Constraint("top:" + top + " height:" + numTagsInGroup * 27 + " left:0 width:30"));
-					}
+			eventsPanel.add(view, new Constraint("top:" + top + " height:" + height + " left:15 right:20"));
+			break;
+		case EventRows.GROUP:
+			if (view == null) {
+				GroupView groupView = new GroupView(tagger, this, groupId);
+				taggedEvent.addGroupView(groupView);
+				if (selectedGroups.contains(groupId)) {
+					groupView.setSelected(true);
 				}
-				TaggerSet<AbstractTagModel> tags = tagGroup.getValue();
-				for (AbstractTagModel tag : tags) {
-					if (tagGroup.getKey() != taggedEvent.getEventGroupId() || !tagger.isRRValue(tag)
-							|| !tagger.isPrimary()) {
-						GuiTagModel guiTagModel = (GuiTagModel) tag;
-						guiTagModel.setAppView(this);
-						guiTagModel.updateMissing();
-						TagEventView tagEgtView = guiTagModel.getTagEgtView(tagGroup.getKey());
-						GroupView groupView = taggedEvent.getGroupViewByKey(tagGroup.getKey());
-						if (groupView == null) {
-							taggedEvent.addTagEgtView(tag, tagEgtView);
-						} else {
-							groupView.addTagEgtView(tag, tagEgtView);
-						}
-						eventsPanel.add(tagEgtView, new Constraint("top:" + top + " height:26 left:30 right:0"));
-						top += 27;
-						if (guiTagModel.isInEdit()) {
-							TagEventEditView teev = guiTagModel.getTagEgtEditView(taggedEvent);
-							teev.setAppView(this);
-							teev.update();
-							eventsPanel.add(teev, new Constraint(
-									"top:" + top + " height:" + TagEventEditView.HEIGHT + " left:30 right:0"));
-							top += TagEventEditView.HEIGHT;
-						}
-					}
+				view = groupView;
+			}
+			eventsPanel.add(view, new Constraint("top:" + top + " height:" + height + " left:0 width:30"));
+			break;
+		case EventRows.TAG:
+			if (view == null) {
+				// The group row spans its tags, so its view is created first
+				TagEventView tagEgtView = ((GuiTagModel) tag).getTagEgtView(groupId);
+				GroupView groupView = taggedEvent.getGroupViewByKey(groupId);
+				if (groupView == null) {
+					taggedEvent.addTagEgtView(tag, tagEgtView);
+				} else {
+					groupView.addTagEgtView(tag, tagEgtView);
 				}
+				view = tagEgtView;
 			}
+			eventsPanel.add(view, new Constraint("top:" + top + " height:" + height + " left:30 right:0"));
+			break;
+		case EventRows.TAG_EDIT:
+			if (view == null) {
+				TagEventEditView teev = ((GuiTagModel) tag).getTagEgtEditView(taggedEvent);
+				teev.setAppView(this);
+				teev.update();
+				view = teev;
+			}
+			eventsPanel.add(view, new Constraint("top:" + top + " height:" + height + " left:30 right:0"));
+			break;
 		}
-		eventsPanel.validate();
-		eventsPanel.repaint();
-		eventsScrollPane.validate();
-		eventsScrollPane.repaint();
-		validate();
-		repaint();
+		eventRows.setView(row, view);
 	}
 
 	/**
@@ -1659,12 +1939,16 @@ public class TaggerView extends ConstraintContainer {
 	}
 
 	/**
-	 * Updates the search items displayed to match the current text in the
-	 * search bar.
+	 * Updates the search items displayed with the result of the search for
+	 * the current text in the search bar, showing the most relevant tags
+	 * first.
+	 * 
+	 * @param tagModels
+	 *            The tags found by the search, or null if there is no search
+	 *            text.
 	 */
-	private void updateSearch() {
+	private void updateSearch(Set<GuiTagModel> tagModels) {
 		searchResults.removeAll();
-		Set<GuiTagModel> tagModels = tagger.getSearchTags(searchTags.getJTextArea().getText());
 		if (tagModels == null || tagModels.isEmpty()) {
 			searchResults.setVisible(false);
 			return;
@@ -1672,20 +1956,26 @@ public class TaggerView extends ConstraintContainer {
 		for (GuiTagModel tag : tagModels) {
 			searchResults.add(tag.getTagSearchView());
 		}
-		searchResults.revalidate();
 		splitPaneRight.setTopHeight(searchResults, 40.0, Unit.PX,
 				searchResults.getPreferredSize().getHeight() / ConstraintLayout.scale, Unit.PX);
 		searchResults.setVisible(true);
+		// The height constraint does not invalidate the container itself
+		splitPaneRight.invalidate();
+		refreshScheduler.requestLayout(splitPaneRight);
+		refreshScheduler.requestRepaint(splitPaneRight);
 	}
 
 	/**
 	 * Updates the tags panel with the information currently represented by the
-	 * tagger.
+	 * tagger. The rows of the tags that are not hidden by a collapsed ancestor
+	 * are laid out, but views are only given to the rows that are visible in
+	 * the tags scroll pane.
 	 */
 	public void updateTags() {
 		tagger.updateTagHighlights(true);
 		searchResults.setVisible(false);
-		tagsPanel.removeAll();
+		releaseVisibleTags();
+		tagRows.clear();
 		String lastVisibleTagPath = null;
 		for (AbstractTagModel tagModel : tagger.getTagSet()) {
 			GuiTagModel guiTagModel = (GuiTagModel) tagModel;
@@ -1698,23 +1988,149 @@ public class TaggerView extends ConstraintContainer {
 				continue;
 			}
 			lastVisibleTagPath = guiTagModel.isCollapsed() ? guiTagModel.getPath() : null;
-			guiTagModel.getTagView().update();
-			tagsPanel.add(guiTagModel.getTagView());
-			if (guiTagModel.isInEdit()) {
-				guiTagModel.getTagEditView().update();
-				tagsPanel.add(guiTagModel.getTagEditView());
+			addTagRows(tagRows, guiTagModel);
+		}
+		updateVisibleTags();
+		refreshScheduler.requestLayout(tagsScrollPane);
+		refreshScheduler.requestLayout(this);
+		refreshScheduler.requestRepaint(this);
+		autoCollapse = false;
+	}
+
+	/**
+	 * Updates the tags panel after a tag was collapsed or expanded. Only the
+	 * rows of the tags under it are removed or added.
+	 * 
+	 * @param tagModel
+	 *            The tag that was collapsed or expanded.
+	 */
+	public void updateTagCollapsed(GuiTagModel tagModel) {
+		int row = tagRows.find(tagModel);
+		if (row == -1 || autoCollapse) {
+			updateTags();
+			return;
+		}
+		tagger.updateTagHighlights(true);
+		searchResults.setVisible(false);
+		releaseVisibleTags();
+		// Skips the edit and add value rows of the tag
+		int next = row + 1;
+		while (next < tagRows.size() && tagRows.getTag(next) == tagModel) {
+			next++;
+		}
+		String path = tagModel.getPath();
+		if (tagModel.isCollapsed()) {
+			int end = next;
+			while (end < tagRows.size() && tagRows.getTag(end).getPath().startsWith(path)) {
+				end++;
+			}
+			tagRows.remove(next, end);
+		} else {
+			TagRows descendantRows = new TagRows();
+			String lastVisibleTagPath = null;
+			for (AbstractTagModel tag : tagger.getTagSet().tailSet(tagModel)) {
+				GuiTagModel guiTagModel = (GuiTagModel) tag;
+				if (guiTagModel == tagModel) {
+					continue;
+				}
+				if (!guiTagModel.getPath().startsWith(path)) {
+					break;
+				}
+				if (lastVisibleTagPath != null && guiTagModel.getPath().startsWith(lastVisibleTagPath)) {
+					continue;
+				}
+				lastVisibleTagPath = guiTagModel.isCollapsed() ? guiTagModel.getPath() : null;
+				addTagRows(descendantRows, guiTagModel);
+			}
+			tagRows.insert(next, descendantRows);
+		}
+		updateVisibleTags();
+		refreshScheduler.requestLayout(tagsScrollPane);
+		refreshScheduler.requestRepaint(tagsScrollPane);
+	}
+
+	/**
+	 * Adds the row of a tag, followed by the rows of its edit and add value
+	 * views if they are open.
+	 */
+	private void addTagRows(TagRows rows, GuiTagModel guiTagModel) {
+		rows.add(TagRows.TAG, guiTagModel, null);
+		if (guiTagModel.isInEdit()) {
+			TagEditView tagEditView = guiTagModel.getTagEditView();
+			tagEditView.update();
+			rows.add(TagRows.TAG_EDIT, guiTagModel, tagEditView);
+		}
+		if (guiTagModel.isInAddValue()) {
+			rows.add(TagRows.ADD_VALUE, guiTagModel, guiTagModel.getAddValueView());
+		}
+	}
+
+	/**
+	 * Returns the tag views of the visible rows to the pool, before the rows
+	 * are changed.
+	 */
+	private void releaseVisibleTags() {
+		for (int row = Math.max(visibleTagsFrom, 0); row < visibleTagsTo; row++) {
+			releaseTagView(row);
+		}
+		visibleTagsFrom = -1;
+		visibleTagsTo = -1;
+	}
+
+	private void releaseTagView(int row) {
+		if (tagRows.getType(row) == TagRows.TAG && tagRows.getView(row) != null) {
+			tagViewPool.add((TagView) tagRows.getView(row));
+			tagRows.setView(row, null);
+		}
+	}
+
+	/**
+	 * Shows the rows that are visible in the tags scroll pane, giving them tag
+	 * views from the pool. The rows above and below them are replaced by
+	 * spacers of the same height, so the tags panel keeps its size.
+	 */
+	private void updateVisibleTags() {
+		Rectangle viewRect = tagsScrollLayout.getViewport().getViewRect();
+		int from = tagRows.findFirstBelow(viewRect.y - VISIBLE_TAGS_MARGIN);
+		int to = Math.max(from, tagRows.findFirstStarting(viewRect.y + viewRect.height + VISIBLE_TAGS_MARGIN));
+		if (from == visibleTagsFrom && to == visibleTagsTo) {
+			return;
+		}
+		for (int row = Math.max(visibleTagsFrom, 0); row < visibleTagsTo; row++) {
+			if (row < from || row >= to) {
+				releaseTagView(row);
 			}
-			if (guiTagModel.isInAddValue()) {
-				tagsPanel.add(guiTagModel.getAddValueView());
+		}
+		tagsPanel.removeAll();
+		if (from > 0) {
+			// The list layout leaves a one pixel gap before each component
+			int top = from < tagRows.size() ? tagRows.getTop(from) : tagRows.getTotalHeight() + 1;
+			tagsAbove.setPreferredSize(new Dimension(0, top - 2));
+			tagsPanel.add(tagsAbove);
+		}
+		for (int row = from; row < to; row++) {
+			if (tagRows.getView(row) == null) {
+				tagRows.setView(row, getPooledTagView(tagRows.getTag(row)));
 			}
+			tagsPanel.add(tagRows.getView(row));
 		}
+		if (to < tagRows.size()) {
+			tagsBelow.setPreferredSize(new Dimension(0, tagRows.getTotalHeight() - tagRows.getTop(to)));
+			tagsPanel.add(tagsBelow);
+		}
+		visibleTagsFrom = from;
+		visibleTagsTo = to;
 		tagsPanel.validate();
-		tagsPanel.repaint();
-		tagsScrollPane.validate();
-		tagsScrollPane.repaint();
-		validate();
-		repaint();
-		autoCollapse = false;
+		refreshScheduler.requestRepaint(tagsPanel);
+	}
+
+	private TagView getPooledTagView(GuiTagModel guiTagModel) {
+		if (tagViewPool.isEmpty()) {
+			return new TagView(tagger, this, guiTagModel);
+		}
+		TagView tagView = tagViewPool.remove(tagViewPool.size() - 1);
+		tagView.setModel(guiTagModel);
+		return tagView;
 	}
 
 	/**
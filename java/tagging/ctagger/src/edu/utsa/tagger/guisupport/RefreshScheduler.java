@@ -0,0 +1,192 @@
+package edu.utsa.tagger.guisupport;
+
+import java.awt.Component;
+import java.awt.Rectangle;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * This class merges the layout and repaint requests raised during one event
+ * dispatch thread cycle into a single pass. The first request schedules the
+ * pass with invokeLater, and the pass validates the requested components in
+ * the order they were requested, then repaints the union of the dirty regions
+ * that are in the root component with one repaint.
+ *
+ * Counters of the requests and of the passes that were executed are kept, so
+ * the number of refreshes that were merged can be measured.
+ *
+ * @author Lauren Jett, Rebecca Strautman, Thomas Rognon, Jeremy Cockfield, Kay
+ *         Robbins
+ */
+public class RefreshScheduler implements Runnable {
+
+	private Component root;
+	private Set<Component> layoutComponents = new LinkedHashSet<Component>();
+	private Map<Component, Rectangle> dirtyRegions = new LinkedHashMap<Component, Rectangle>();
+	private boolean pending;
+
+	private long layoutRequestCount;
+	private long repaintRequestCount;
+	private long passCount;
+	private long layoutCount;
+	private long repaintCount;
+
+	/**
+	 * Creates a scheduler for the components in a root component.
+	 *
+	 * @param root
+	 *            The root component, which dirty regions are merged in.
+	 */
+	public RefreshScheduler(Component root) {
+		this.root = root;
+	}
+
+	/**
+	 * Runs the pending pass now, if there is one. This is used before reading
+	 * sizes that depend on the requested layout, such as the range of a
+	 * scroll bar.
+	 */
+	public void flush() {
+		if (pending) {
+			run();
+		}
+	}
+
+	public long getLayoutCount() {
+		return layoutCount;
+	}
+
+	public long getLayoutRequestCount() {
+		return layoutRequestCount;
+	}
+
+	public long getPassCount() {
+		return passCount;
+	}
+
+	public long getRepaintCount() {
+		return repaintCount;
+	}
+
+	public long getRepaintRequestCount() {
+		return repaintRequestCount;
+	}
+
+	/**
+	 * Gets the number of layout and repaint requests.
+	 *
+	 * @return The number of requests.
+	 */
+	public long getRequestCount() {
+		return layoutRequestCount + repaintRequestCount;
+	}
+
+	public boolean isPending() {
+		return pending;
+	}
+
+	/**
+	 * Requests that a component is validated in the next pass.
+	 *
+	 * @param component
+	 *            The component to validate.
+	 */
+	public void requestLayout(Component component) {
+		layoutRequestCount++;
+		layoutComponents.add(component);
+		schedule();
+	}
+
+	/**
+	 * Requests that all of a component is repainted in the next pass.
+	 *
+	 * @param component
+	 *            The component to repaint.
+	 */
+	public void requestRepaint(Component component) {
+		repaintRequestCount++;
+		// A null region stands for all of the component, whose size is only
+		// known after the layout
+		dirtyRegions.put(component, null);
+		schedule();
+	}
+
+	/**
+	 * Requests that a region of a component is repainted in the next pass.
+	 *
+	 * @param component
+	 *            The component to repaint.
+	 * @param region
+	 *            The region to repaint, in the coordinates of the component.
+	 */
+	public void requestRepaint(Component component, Rectangle region) {
+		repaintRequestCount++;
+		if (!dirtyRegions.containsKey(component)) {
+			dirtyRegions.put(component, new Rectangle(region));
+		} else if (dirtyRegions.get(component) != null) {
+			dirtyRegions.get(component).add(region);
+		}
+		schedule();
+	}
+
+	public void resetCounts() {
+		layoutRequestCount = 0;
+		repaintRequestCount = 0;
+		passCount = 0;
+		layoutCount = 0;
+		repaintCount = 0;
+	}
+
+	/**
+	 * Validates the requested components and repaints the dirty regions.
+	 * Requests raised while validating are handled in the same pass.
+	 */
+	@Override
+	public void run() {
+		if (!pending) {
+			return;
+		}
+		passCount++;
+		while (!layoutComponents.isEmpty()) {
+			Component[] components = layoutComponents.toArray(new Component[layoutComponents.size()]);
+			layoutComponents.clear();
+			for (Component component : components) {
+				component.validate();
+				layoutCount++;
+			}
+		}
+		pending = false;
+		Rectangle rootRegion = null;
+		for (Map.Entry<Component, Rectangle> entry : dirtyRegions.entrySet()) {
+			Component component = entry.getKey();
+			Rectangle region = entry.getValue();
+			if (region == null) {
+				region = new Rectangle(0, 0, component.getWidth(), component.getHeight());
+			}
+			if (component != root && !SwingUtilities.isDescendingFrom(component, root)) {
+				component.repaint(region.x, region.y, region.width, region.height);
+				repaintCount++;
+			} else if (rootRegion == null) {
+				rootRegion = SwingUtilities.convertRectangle(component, region, root);
+			} else {
+				rootRegion.add(SwingUtilities.convertRectangle(component, region, root));
+			}
+		}
+		dirtyRegions.clear();
+		if (rootRegion != null) {
+			root.repaint(rootRegion.x, rootRegion.y, rootRegion.width, rootRegion.height);
+			repaintCount++;
+		}
+	}
+
+	private void schedule() {
+		if (!pending) {
+			pending = true;
+			SwingUtilities.invokeLater(this);
+		}
+	}
+}
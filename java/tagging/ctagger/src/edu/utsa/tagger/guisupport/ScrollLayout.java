@@ -9,6 +9,7 @@ import java.awt.LayoutManager;
 import javax.swing.JComponent;
 import javax.swing.JLayeredPane;
 import javax.swing.JScrollPane;
+import javax.swing.JViewport;
 
 public class ScrollLayout implements LayoutManager {
 
@@ -41,6 +42,10 @@ public class ScrollLayout implements LayoutManager {
 		return content;
 	}
 
+	public JViewport getViewport() {
+		return scrollbar.getViewport();
+	}
+
 	@Override
 	public void layoutContainer(Container target) {
 		scrollbar.setSize(target.getWidth(), scrollContainer.getHeight());
@@ -1,15 +1,19 @@
 package edu.utsa.tagger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.Before;
@@ -19,6 +23,7 @@ import org.junit.rules.TemporaryFolder;
 
 import edu.utsa.tagger.app.TestUtilities;
 import edu.utsa.tagger.gui.GuiModelFactory;
+import edu.utsa.tagger.gui.GuiTagModel;
 
 public class TestTagger {
 
@@ -119,6 +124,171 @@ public class TestTagger {
 		assertEquals("Number of tags in tagger", numTags, testTagger.getTagSet().size());
 	}
 
+	@Test
+	public void testTagPathLookupAfterEdits() {
+		System.out.println("It should find tags by path after they are added, renamed and deleted.");
+		AbstractTagModel parentTag = testTagger.tagFound("Event/Category");
+		assertNotNull("Parent tag found", parentTag);
+		AbstractTagModel newTag = testTagger.addNewTag(parentTag, "New tag");
+		assertEquals("Added tag found", newTag, testTagger.tagFound("event/category/new tag"));
+		assertTrue("Added tag path found", testTagger.tagPathFound("EVENT/CATEGORY/NEW TAG"));
+		testTagger.updateTagName(newTag, "Renamed tag");
+		assertNull("Old tag path not found", testTagger.tagFound("Event/Category/New tag"));
+		assertEquals("Renamed tag found", newTag, testTagger.getTagModel("Event/Category/Renamed tag"));
+		testTagger.deleteTag(newTag);
+		assertNull("Deleted tag not found", testTagger.tagFound("Event/Category/Renamed tag"));
+	}
+
+	@Test
+	public void testChildTagsAfterEdits() {
+		System.out.println("It should keep the children of a tag in sync after tags are added and deleted.");
+		AbstractTagModel parentTag = testTagger.tagFound("Event/Category");
+		int numChildren = testTagger.getChildTags(parentTag).size();
+		int numSubTags = testTagger.getSubHierarchy(parentTag.getPath()).size();
+		AbstractTagModel newTag = testTagger.addNewTag(parentTag, "New tag");
+		AbstractTagModel newChild = testTagger.addNewTag(newTag, "New child");
+		assertEquals("Number of children after add", numChildren + 1, testTagger.getChildTags(parentTag).size());
+		assertTrue("New tag has children", testTagger.hasChildTags(newTag));
+		assertEquals("Child of new tag", newChild, testTagger.getChildTags(newTag).get(0));
+		assertEquals("Sub-hierarchy size after add", numSubTags + 2,
+				testTagger.getSubHierarchy(parentTag.getPath()).size());
+		testTagger.deleteTag(newTag);
+		assertEquals("Number of children after delete", numChildren, testTagger.getChildTags(parentTag).size());
+		assertEquals("Sub-hierarchy size after delete", numSubTags,
+				testTagger.getSubHierarchy(parentTag.getPath()).size());
+	}
+
+	@Test
+	public void testChangeListener() {
+		System.out.println("It should publish the events changed by each action and by its undo.");
+		final List<TaggerChangeEvent> changes = new ArrayList<TaggerChangeEvent>();
+		testTagger.addChangeListener(new TaggerChangeListener() {
+			@Override
+			public void taggerChanged(TaggerChangeEvent e) {
+				changes.add(e);
+			}
+		});
+		int groupId = testTagger.addNewGroup(testEvent2);
+		Set<Integer> groupIds = new LinkedHashSet<Integer>();
+		groupIds.add(groupId);
+		testTagger.toggleTag(tagAncestor, groupIds);
+		testTagger.undo();
+		testTagger.addNewTag(null, "New tag");
+		assertEquals("Number of changes", 4, changes.size());
+		assertEquals("Group added", TaggerChangeEvent.Type.GROUP_ADDED, changes.get(0).getType());
+		assertEquals("Tag added", TaggerChangeEvent.Type.TAG_ADDED, changes.get(1).getType());
+		assertEquals("Tag removed by undo", TaggerChangeEvent.Type.TAG_REMOVED, changes.get(2).getType());
+		assertEquals("Hierarchy edited", TaggerChangeEvent.Type.HIERARCHY_EDITED, changes.get(3).getType());
+		for (int i = 0; i < 3; i++) {
+			assertEquals("Changed events", 1, changes.get(i).getEvents().size());
+			assertTrue("Changed event", changes.get(i).getEvents().contains(testEvent2));
+		}
+		assertTrue("No events for hierarchy", changes.get(3).getEvents().isEmpty());
+	}
+
+	@Test
+	public void testSearchTags() {
+		System.out.println("It should rank the tags that match a search and keep the search in sync with the hierarchy.");
+		Set<GuiTagModel> ranked = testTagger.getSearchTags("LAB", 3);
+		assertEquals("Number of ranked tags", 3, ranked.size());
+		assertEquals("Most relevant tag", "Event/Label", ranked.iterator().next().getPath());
+		AbstractTagModel parentTag = testTagger.tagFound("Event/Category");
+		AbstractTagModel newTag = testTagger.addNewTag(parentTag, "Labelled tag");
+		assertTrue("New tag found", testTagger.getSearchTags("labelled").contains(newTag));
+		assertTrue("New tag found by extended search", testTagger.getSearchTags("labelled t").contains(newTag));
+		testTagger.deleteTag(newTag);
+		assertFalse("Deleted tag not found", testTagger.getSearchTags("labelled t").contains(newTag));
+	}
+
+	@Test
+	public void testTakesValueLookup() {
+		System.out.println("It should match a tag with a value to the tag that takes values under its parent.");
+		AbstractTagModel valueTag = testTagger.getTagModel("Event/Duration/3 s");
+		assertFalse("Value tag not missing", ((GuiTagModel) valueTag).isMissing());
+		GuiTagModel eventTag = (GuiTagModel) factory.createAbstractTagModel(testTagger);
+		eventTag.setPath("Event/Duration/3 s");
+		eventTag.updateMissing();
+		assertFalse("Value tag in event not missing", eventTag.isMissing());
+	}
+
+	@Test
+	public void testTransientTagShared() {
+		System.out.println("It should share the tag model for a path that is not in the hierarchy.");
+		AbstractTagModel labelTag = testTagger.getTagModel("Event/Label/Shared label");
+		assertTrue("Same tag model returned", labelTag == testTagger.getTagModel("Event/Label/Shared label"));
+		testTagger.addNewTag(testTagger.tagFound("Event/Category"), "New tag");
+		assertFalse("New tag model after the hierarchy changes",
+				labelTag == testTagger.getTagModel("Event/Label/Shared label"));
+	}
+
+	@Test
+	public void testTransientTagEditedInOneEvent() {
+		System.out.println("It should only change the event whose shared tag is edited.");
+		AbstractTagModel valueTag = testTagger.getTagModel("Event/Duration/3 s");
+		Set<Integer> groupIds = new LinkedHashSet<Integer>();
+		groupIds.add(testEvent1.getEventGroupId());
+		groupIds.add(testEvent2.getEventGroupId());
+		testTagger.associateBase(valueTag, groupIds);
+		testTagger.editTagPath(testEvent1, (GuiTagModel) valueTag, "Event/Duration/4 s");
+		assertEquals("Path in the other event", "Event/Duration/3 s", valueTag.getPath());
+		assertTrue("Tag still in the other event",
+				testEvent2.containsTagInGroup(testEvent2.getEventGroupId(), valueTag));
+		assertFalse("Tag replaced in the edited event",
+				testEvent1.containsTagInGroup(testEvent1.getEventGroupId(), valueTag));
+		AbstractTagModel editedTag = testEvent1.findTagModel("Event/Duration/4 s");
+		assertNotNull("Edited tag in the edited event", editedTag);
+		assertEquals("Path in the edited event", "Event/Duration/4 s", editedTag.getPath());
+	}
+
+	@Test
+	public void testHedSnapshotRoundTrip() throws IOException {
+		System.out.println("It should load the same hierarchy from the HED snapshot as from the HED XML.");
+		// The loader loads its own Tagger, which must not write the snapshot
+		TaggerLoader loader = new TaggerLoader(hedOld, eventsOld, TaggerLoader.USE_JSON, 0, "Tagger Test", 2, factory,
+				true, true);
+		File previousDirectory = HedSchemaSnapshot.getSnapshotDirectory();
+		HedSchemaSnapshot.setSnapshotDirectory(testFolder.newFolder("snapshots"));
+		try {
+			File snapshotFile = HedSchemaSnapshot.getSnapshotFile(HedSchemaSnapshot.hash(hedOld.getBytes("UTF-8")));
+			assertFalse("Snapshot not written before the XML is loaded", snapshotFile.exists());
+			Tagger xmlTagger = new Tagger(hedOld, eventsOld, true, factory, loader);
+			assertTrue("Snapshot written", snapshotFile.isFile());
+			Tagger snapshotTagger = new Tagger(hedOld, eventsOld, true, factory, loader);
+			assertEquals("Number of tags", xmlTagger.getTagSet().size(), snapshotTagger.getTagSet().size());
+			Iterator<AbstractTagModel> snapshotTags = snapshotTagger.getTagSet().iterator();
+			for (AbstractTagModel tag : xmlTagger.getTagSet()) {
+				AbstractTagModel snapshotTag = snapshotTags.next();
+				assertEquals("Path of tag", tag.getPath(), snapshotTag.getPath());
+				assertTrue("Tag in snapshot hierarchy", snapshotTag == snapshotTagger.tagFound(tag.getPath()));
+				assertEquals("Description of " + tag.getPath(), tag.getDescription(), snapshotTag.getDescription());
+				assertEquals("Unit class of " + tag.getPath(), tag.getUnitClass(), snapshotTag.getUnitClass());
+				assertEquals("Takes value " + tag.getPath(), tag.takesValue(), snapshotTag.takesValue());
+				assertEquals("Child required " + tag.getPath(), tag.isChildRequired(), snapshotTag.isChildRequired());
+				assertEquals("Extension allowed " + tag.getPath(), tag.isExtensionAllowed(),
+						snapshotTag.isExtensionAllowed());
+				assertEquals("Numeric " + tag.getPath(), tag.isNumeric(), snapshotTag.isNumeric());
+				assertEquals("Required " + tag.getPath(), tag.isRequired(), snapshotTag.isRequired());
+				assertEquals("Recommended " + tag.getPath(), tag.isRecommended(), snapshotTag.isRecommended());
+				assertEquals("Unique " + tag.getPath(), tag.isUnique(), snapshotTag.isUnique());
+				assertEquals("Predicate type of " + tag.getPath(), tag.getPredicateType(), snapshotTag.getPredicateType());
+				assertEquals("Position of " + tag.getPath(), tag.getPosition(), snapshotTag.getPosition());
+			}
+		} finally {
+			HedSchemaSnapshot.setSnapshotDirectory(previousDirectory);
+		}
+	}
+
+	@Test
+	public void testTagRenamedOutsideTagger() {
+		System.out.println("It should find a tag by its new path after it is renamed outside of the Tagger.");
+		AbstractTagModel tag = testTagger.getTagModel("Event/Category/Initial context");
+		assertTrue("Tag in hierarchy", testTagger.getTagSet().contains(tag));
+		tag.setPath("Event/Category/Starting context");
+		assertTrue("Tag found by new path", tag == testTagger.getTagModel("Event/Category/Starting context"));
+		assertTrue("Tag found by new path ignoring case", tag == testTagger.tagFound("event/category/starting context"));
+		assertNull("Tag not found by old path", testTagger.tagFound("Event/Category/Initial context"));
+	}
+
 	@Test
 	public void testDeleteTagMultiple() {
 		System.out
@@ -213,6 +383,89 @@ public class TestTagger {
 		assertEquals("Unique tags found", numUniqueJson, testTagger.getUniqueTags().size());
 	}
 
+	@Test
+	public void testLoadTdtNestedGroups() throws IOException {
+		System.out.println("It should load nested tag groups from tab-delimited text as groups of their own");
+		File tdtFile = testFolder.newFile("nested.tsv");
+		FileWriter writer = new FileWriter(tdtFile);
+		writer.write("1\tEvent/Label/Top, (Event/Description/A, (Attribute/Onset ~ Item/Object), "
+				+ "Event/Category/Participant response)\n");
+		writer.close();
+		int[] codeColumns = { 1 };
+		int[] tagColumns = { 2 };
+		assertTrue("Tagger load success - nested groups",
+				testTagger.loadTabDelimitedEvents(tdtFile, 0, codeColumns, tagColumns));
+		TaggedEvent event = testTagger.getEgtSet().first();
+		assertEquals("Number of groups in the event", 3, event.getTagGroups().size());
+		int[] groupSizes = { 1, 2, 3 };
+		int groupIdx = 0;
+		for (Integer groupId : event.getTagGroups().keySet()) {
+			assertEquals("Number of tags in the group", groupSizes[groupIdx++], event.getNumTagsInGroup(groupId));
+		}
+	}
+
+	@Test
+	public void testLoadTdtGroupFields() throws IOException {
+		System.out.println("It should drop the leading '/' of grouped tags and skip empty fields in groups");
+		File tdtFile = testFolder.newFile("groups.tsv");
+		FileWriter writer = new FileWriter(tdtFile);
+		writer.write("1\t(/Event/Label/A, , /Event/Label/B), ( , Event/Label/C), ()\n");
+		writer.close();
+		int[] codeColumns = { 1 };
+		int[] tagColumns = { 2 };
+		assertTrue("Tagger load success - group fields",
+				testTagger.loadTabDelimitedEvents(tdtFile, 0, codeColumns, tagColumns));
+		TaggedEvent event = testTagger.getEgtSet().first();
+		assertEquals("Number of groups in the event", 4, event.getTagGroups().size());
+		String[][] groupPaths = { {}, { "Event/Label/A", "Event/Label/B" }, { "Event/Label/C" }, {} };
+		int groupIdx = 0;
+		for (Integer groupId : event.getTagGroups().keySet()) {
+			String[] paths = groupPaths[groupIdx++];
+			assertEquals("Number of tags in the group", paths.length, event.getNumTagsInGroup(groupId));
+			int tagIdx = 0;
+			for (AbstractTagModel tag : event.getTagGroups().get(groupId)) {
+				assertEquals("Tag in the group", paths[tagIdx++], tag.getPath());
+			}
+		}
+	}
+
+	@Test
+	public void testLoadTdtLineByLine() throws URISyntaxException {
+		System.out.println("It should load the same events line by line from a tab-delimited file too large to read "
+				+ "at once");
+		File tdtFile = TestUtilities.getResourceAsFile(TestUtilities.DelimitedString2);
+		int[] eventCodeColumn = { 1 };
+		int[] tagColumns = { 2, 3, 4 };
+		assertTrue("Tagger load success - in memory", testTagger.loadTabDelimitedEvents(tdtFile, 0, eventCodeColumn,
+				tagColumns));
+		List<TaggedEvent> bufferedEvents = new ArrayList<TaggedEvent>(testTagger.getEgtSet());
+		assertFalse("Events loaded", bufferedEvents.isEmpty());
+		long maxBufferedSize = IndexedEventFile.getMaxBufferedSize();
+		IndexedEventFile.setMaxBufferedSize(0);
+		try {
+			assertFalse("File too large to read at once", IndexedEventFile.canBuffer(tdtFile));
+			assertTrue("Tagger load success - line by line", testTagger.loadTabDelimitedEvents(tdtFile, 0,
+					eventCodeColumn, tagColumns));
+		} finally {
+			IndexedEventFile.setMaxBufferedSize(maxBufferedSize);
+		}
+		assertEquals("Wrong EGT set size:", bufferedEvents.size(), testTagger.getEgtSet().size());
+		int eventIdx = 0;
+		for (TaggedEvent event : testTagger.getEgtSet()) {
+			TaggedEvent bufferedEvent = bufferedEvents.get(eventIdx++);
+			assertEquals("Event code", bufferedEvent.getEventModel().getCode(), event.getEventModel().getCode());
+			assertEquals("Group IDs of the event", bufferedEvent.getTagGroups().keySet(), event.getTagGroups().keySet());
+			for (Integer groupId : event.getTagGroups().keySet()) {
+				Iterator<AbstractTagModel> bufferedTags = bufferedEvent.getTagGroups().get(groupId).iterator();
+				assertEquals("Number of tags in the group", bufferedEvent.getNumTagsInGroup(groupId),
+						event.getNumTagsInGroup(groupId));
+				for (AbstractTagModel tag : event.getTagGroups().get(groupId)) {
+					assertEquals("Tag in the group", bufferedTags.next().getPath(), tag.getPath());
+				}
+			}
+		}
+	}
+
 	@Test
 	public void testLoadTdtMultipleTagColumns() throws URISyntaxException {
 		System.out.println("It should load the events and tag hierarchy from "
@@ -377,6 +630,34 @@ public class TestTagger {
 		assertNull("ToggleTagMessage returned", result);
 	}
 
+	@Test
+	public void testReplaceAncestorsSingleUndo() {
+		System.out.println("It should replace ancestors in all groups as one action that is undone at once");
+		// Add groups
+		testEvent1.addGroup(testGroupIds[0]);
+		testEvent2.addGroup(testGroupIds[1]);
+		testEvent3.addGroup(testGroupIds[2]);
+		// Add ancestor tags to some groups
+		testEvent1.addTagToGroup(testGroupIds[0], tagAncestor);
+		testEvent2.addTagToGroup(testGroupIds[1], tagAncestor2);
+		Set<Integer> groupIds = new LinkedHashSet<Integer>();
+		groupIds.add(testGroupIds[0]);
+		groupIds.add(testGroupIds[1]);
+		groupIds.add(testGroupIds[2]);
+		ToggleTagMessage result = testTagger.toggleTag(tagDescendant, groupIds);
+		assertEquals("Number of ancestors returned", 2, result.ancestors.size());
+		assertNull("No conflicts left", testTagger.replaceAncestors(result));
+		assertTrue("Tag added", testEvent3.containsTagInGroup(testGroupIds[2], tagDescendant));
+		assertFalse("Ancestor replaced", testEvent1.containsTagInGroup(testGroupIds[0], tagAncestor));
+		assertFalse("Ancestor replaced", testEvent2.containsTagInGroup(testGroupIds[1], tagAncestor2));
+		assertEquals("Groups timed", 3, testTagger.getToggleTiming().getGroupCount());
+		testTagger.undo();
+		assertTrue("Ancestor restored", testEvent1.containsTagInGroup(testGroupIds[0], tagAncestor));
+		assertTrue("Ancestor restored", testEvent2.containsTagInGroup(testGroupIds[1], tagAncestor2));
+		assertFalse("Tag removed", testEvent1.containsTagInGroup(testGroupIds[0], tagDescendant));
+		assertFalse("Tag removed", testEvent3.containsTagInGroup(testGroupIds[2], tagDescendant));
+	}
+
 	@Test
 	public void testRequiredRecommended() {
 		String required0 = "Event/Label";
@@ -527,6 +808,25 @@ public class TestTagger {
 		assertEquals("Unique tags", uniqueSize, testTagger.getUniqueTags().size());
 	}
 
+	@Test
+	public void testCreateTSVStringHeaderColumns() throws IOException {
+		System.out.println("It should write event-level header tags to their columns and keep "
+				+ "the first tag of each group in the group");
+		File tdtFile = testFolder.newFile("headers.tsv");
+		FileWriter writer = new FileWriter(tdtFile);
+		writer.write("1\tEvent/Label/A, Item/Object, Event/Category/Participant response, "
+				+ "(Event/Label/B, Attribute/Onset, Event/Description/C), Event/Description/D\n");
+		writer.close();
+		int[] codeColumns = { 1 };
+		int[] tagColumns = { 2 };
+		assertTrue("Tagger load success - header tags",
+				testTagger.loadTabDelimitedEvents(tdtFile, 0, codeColumns, tagColumns));
+		String[] lines = testTagger.createTSVString().split("\r?\n");
+		assertEquals("Number of lines", 2, lines.length);
+		assertEquals("Event row", "1\tEvent/Category/Participant response\tEvent/Label/A\t\tEvent/Description/D"
+				+ "\tItem/Object,(Event/Label/B,Attribute/Onset)", lines[1]);
+	}
+
 	@Test
 	public void testTTRPAncestor() {
 		System.out.println("It should not add an ancestor of an existing tag " + "in the group");
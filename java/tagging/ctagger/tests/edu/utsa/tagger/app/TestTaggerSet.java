@@ -13,7 +13,9 @@ import java.util.SortedSet;
 import org.junit.Before;
 import org.junit.Test;
 
+import edu.utsa.tagger.AbstractTagModel;
 import edu.utsa.tagger.TaggerSet;
+import edu.utsa.tagger.gui.GuiTagModel;
 
 public class TestTaggerSet {
 	
@@ -107,6 +109,74 @@ public class TestTaggerSet {
 		assertTrue("Element was added to set twice", !result);
 	}
 	
+	@Test
+	public void testAddDuplicateAtIndex() {
+		System.out.println("It should add a duplicate element at the desired "
+				+ "index only when duplicates are allowed.");
+		for (int i = 0; i < data.length; i++) {
+			taggerSet.add(data[i]);
+		}
+		assertTrue("Duplicate should not be added", !taggerSet.add(1, "d"));
+		assertTrue("Duplicate should be added", taggerSet.add(1, "d", true));
+		assertEquals("Set size:", data.length + 1, taggerSet.size());
+		assertEquals("First occurrence of d:", 1, taggerSet.indexOf("d"));
+		taggerSet.remove("d");
+		assertEquals("Remaining occurrence of d:", data.length - 1,
+				taggerSet.indexOf("d"));
+	}
+
+	@Test
+	public void testIndexOf() {
+		System.out.println("It should find the positions of the elements after "
+				+ "insertions and removals.");
+		for (int i = 0; i < data.length; i++) {
+			taggerSet.add(data[i]);
+		}
+		taggerSet.add(0, "x");
+		taggerSet.remove("c");
+		String[] expected = {"x", "a", "b", "e", "d"};
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals("Position of " + expected[i] + ":", i,
+					taggerSet.indexOf(expected[i]));
+			assertEquals("Element at " + i + ":", expected[i], taggerSet.get(i));
+		}
+		assertEquals("Position of c:", -1, taggerSet.indexOf("c"));
+	}
+
+	@Test
+	public void testContainsAfterPathChange() {
+		System.out.println("It should find a tag after its path is changed.");
+		TaggerSet<AbstractTagModel> tags = new TaggerSet<AbstractTagModel>();
+		AbstractTagModel tag = new GuiTagModel(null);
+		tag.setPath("Event/Label/a");
+		tags.add(tag);
+		tag.setPath("Event/Label/b");
+		AbstractTagModel other = new GuiTagModel(null);
+		other.setPath("Event/Label/b");
+		assertTrue("Should contain edited tag", tags.contains(other));
+		assertEquals("Position of edited tag:", 0, tags.indexOf(other));
+		assertTrue("Should remove edited tag", tags.remove(other));
+		assertTrue("Set should be empty", tags.isEmpty());
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		System.out.println("It should remove elements through the iterator.");
+		for (int i = 0; i < data.length; i++) {
+			taggerSet.add(data[i]);
+		}
+		Iterator<String> it = taggerSet.iterator();
+		while (it.hasNext()) {
+			String next = it.next();
+			if ("b".equals(next) || "e".equals(next)) {
+				it.remove();
+			}
+		}
+		String[] expected = {"a", "c", "d"};
+		assertArrayEquals("Array after removal:", expected, taggerSet.toArray());
+		assertEquals("Position of d:", 2, taggerSet.indexOf("d"));
+	}
+	
 	@Test
 	public void testClear() {
 		System.out.println("It should clear the set.");